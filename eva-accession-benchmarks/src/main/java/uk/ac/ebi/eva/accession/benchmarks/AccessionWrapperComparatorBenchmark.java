@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.AccessionWrapperComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting a shuffled chunk of accessions back into the order of the VCF, as the accession writer does before writing
+ * the report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccessionWrapperComparatorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int chunkSize;
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> shuffledAccessions;
+
+    private AccessionWrapperComparator comparator;
+
+    @Setup
+    public void setUp() {
+        List<ISubmittedVariant> variants = SyntheticVariants.submittedVariants(chunkSize, 1, 42);
+        comparator = new AccessionWrapperComparator(variants);
+        shuffledAccessions = new ArrayList<>(variants.size());
+        long accession = 0;
+        for (ISubmittedVariant variant : variants) {
+            shuffledAccessions.add(new AccessionWrapper<>(accession++, "hash-" + accession, variant));
+        }
+        Collections.shuffle(shuffledAccessions, new Random(42));
+    }
+
+    @Benchmark
+    public List<AccessionWrapper<ISubmittedVariant, String, Long>> sort() {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = new ArrayList<>(shuffledAccessions);
+        accessions.sort(comparator);
+        return accessions;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepositoryImpl;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovery of the accessions already used in the uncompleted blocks, as done when the accession generator starts.
+ * <p>
+ * This needs a running MongoDB, given with the mongoUri parameter, e.g. {@code -p
+ * mongoUri=mongodb://localhost:27017}. A temporary database is filled with variants whose accessions are spread over
+ * several blocks, and it is dropped at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccessionsInRangesBenchmark {
+
+    private static final String ACCESSION_FIELD = "accession";
+
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    private static final long FIRST_ACCESSION = 5000000000L;
+
+    @Param({"mongodb://localhost:27017"})
+    private String mongoUri;
+
+    @Param({"accessionsInRangesBenchmark"})
+    private String database;
+
+    @Param({"1000000"})
+    private int variantCount;
+
+    @Param({"100000"})
+    private int blockSize;
+
+    /**
+     * Percentage of each block whose accessions are stored, as if the accessioning had stopped in the middle of them
+     */
+    @Param({"50"})
+    private int blockUsage;
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private SubmittedVariantAccessioningRepositoryImpl repository;
+
+    private List<MonotonicRange> uncompletedBlocks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongoClient = new MongoClient(new MongoClientURI(mongoUri));
+        mongoTemplate = new MongoTemplate(mongoClient, database);
+        mongoTemplate.dropCollection(SubmittedVariantEntity.class);
+        mongoTemplate.indexOps(SubmittedVariantEntity.class).ensureIndex(
+                new Index().on(ACCESSION_FIELD, Sort.Direction.ASC));
+
+        SubmittedVariantSummaryHashingFunction hashingFunction = new SubmittedVariantSummaryHashingFunction();
+        long usedAccessionsPerBlock = Math.max(1, (long) blockSize * blockUsage / 100);
+        List<SubmittedVariantEntity> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        uncompletedBlocks = new ArrayList<>();
+        long accession = FIRST_ACCESSION;
+        long usedInBlock = 0;
+        for (ISubmittedVariant variant : SyntheticVariants.submittedVariants(variantCount, 1, 42)) {
+            if (usedInBlock == 0) {
+                uncompletedBlocks.add(new MonotonicRange(accession, accession + blockSize - 1));
+            }
+            batch.add(new SubmittedVariantEntity(accession, hashingFunction.apply(variant), variant));
+            accession++;
+            usedInBlock++;
+            if (usedInBlock == usedAccessionsPerBlock) {
+                accession += blockSize - usedAccessionsPerBlock;
+                usedInBlock = 0;
+            }
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                mongoTemplate.insert(batch, SubmittedVariantEntity.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, SubmittedVariantEntity.class);
+        }
+        repository = new SubmittedVariantAccessioningRepositoryImpl(mongoTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.getDb().dropDatabase();
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public long[] findAccessionsInRanges() {
+        return repository.findAccessionsInRanges(uncompletedBlocks);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.CoordinatesVcfFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of accession report lines into variants, as done by the report check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CoordinatesVcfFactoryBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"1", "10", "100"})
+    private int alleleLength;
+
+    private List<String> lines;
+
+    private CoordinatesVcfFactory factory;
+
+    @Setup
+    public void setUp() {
+        lines = new ArrayList<>(CHUNK_SIZE);
+        long accession = 5000000000L;
+        for (ISubmittedVariant variant : SyntheticVariants.submittedVariants(CHUNK_SIZE, alleleLength, 42)) {
+            lines.add(String.join("\t", variant.getContig(), Long.toString(variant.getStart()), "ss" + accession++,
+                                  variant.getReferenceAllele(), variant.getAlternateAllele(), ".", ".", "."));
+        }
+        factory = new CoordinatesVcfFactory();
+    }
+
+    @Benchmark
+    public void create(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(factory.create(null, null, line));
+        }
+    }
+}
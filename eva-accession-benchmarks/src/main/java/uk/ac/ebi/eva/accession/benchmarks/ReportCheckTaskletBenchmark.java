@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.ReportCheckTasklet;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.SortMergeReportCheckTasklet;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparison of the original VCF with an accession report that contains the same variants, shuffled within windows of
+ * a given size to simulate the reordering introduced by the accessioning. A disorder of 1 means the report is in the
+ * same order as the original VCF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReportCheckTaskletBenchmark {
+
+    private static final int INITIAL_BUFFER_SIZE = 1000;
+
+    @Param({"100000"})
+    private int variantCount;
+
+    @Param({"1", "1000", "100000"})
+    private int disorder;
+
+    @Param({"10000"})
+    private int maxVariantsInMemory;
+
+    private List<Variant> inputVariants;
+
+    private List<Variant> reportVariants;
+
+    @Setup
+    public void setUp() {
+        inputVariants = new ArrayList<>(variantCount);
+        for (ISubmittedVariant submittedVariant : SyntheticVariants.submittedVariants(variantCount, 1, 42)) {
+            long start = submittedVariant.getStart();
+            inputVariants.add(new Variant(submittedVariant.getContig(), start, start,
+                                          submittedVariant.getReferenceAllele(),
+                                          submittedVariant.getAlternateAllele()));
+        }
+        reportVariants = new ArrayList<>(inputVariants);
+        Random random = new Random(42);
+        for (int windowStart = 0; windowStart < reportVariants.size(); windowStart += disorder) {
+            int windowEnd = Math.min(windowStart + disorder, reportVariants.size());
+            Collections.shuffle(reportVariants.subList(windowStart, windowEnd), random);
+        }
+    }
+
+    @Benchmark
+    public long bufferedReportCheck() throws Exception {
+        ReportCheckTasklet tasklet = new ReportCheckTasklet(new ListVariantReader(inputVariants),
+                                                            new ListVariantReader(reportVariants),
+                                                            INITIAL_BUFFER_SIZE);
+        tasklet.execute(newStepContribution(), null);
+        return tasklet.getUnmatchedVariantsInInputVcf();
+    }
+
+    @Benchmark
+    public long sortMergeReportCheck() throws Exception {
+        SortMergeReportCheckTasklet tasklet = new SortMergeReportCheckTasklet(new ListVariantReader(inputVariants),
+                                                                              new ListVariantReader(reportVariants),
+                                                                              maxVariantsInMemory, null);
+        tasklet.execute(newStepContribution(), null);
+        return tasklet.getUnmatchedVariantsInInputVcf();
+    }
+
+    private StepContribution newStepContribution() {
+        return new StepContribution(new StepExecution("checkSubsnpAccessionsStep", new JobExecution(0L)));
+    }
+
+    /**
+     * Serves the variants from memory, so that the VCF parsing is not measured.
+     */
+    private static class ListVariantReader extends AbstractItemCountingItemStreamItemReader<Variant> {
+
+        private final List<Variant> variants;
+
+        private int next;
+
+        ListVariantReader(List<Variant> variants) {
+            this.variants = variants;
+            setName(ListVariantReader.class.getSimpleName());
+        }
+
+        @Override
+        protected Variant doRead() {
+            return next < variants.size() ? variants.get(next++) : null;
+        }
+
+        @Override
+        protected void doOpen() {
+            next = 0;
+        }
+
+        @Override
+        protected void doClose() {
+        }
+    }
+}
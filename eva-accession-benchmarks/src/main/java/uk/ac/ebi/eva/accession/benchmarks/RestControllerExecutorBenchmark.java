@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the submitted variant lookups of the web service, comparing the servlet threads doing the lookups
+ * themselves with handing them over to the REST controller executor, as the controller does.
+ * <p>
+ * The container is simulated with a fixed pool of servlet threads, and every lookup is a blocking call of a fixed
+ * latency, like a database query. Many more clients than servlet threads send requests at the same time, so the
+ * throughput shows how many lookups each configuration serves concurrently. With an executor smaller than the
+ * container, the asynchronous lookups are limited by the executor instead of by the servlet threads, e.g. {@code -p
+ * executorThreads=16,200}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(400)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RestControllerExecutorBenchmark {
+
+    /**
+     * Default size of the thread pool of Tomcat
+     */
+    @Param({"200"})
+    private int containerThreads;
+
+    @Param({"16", "200"})
+    private int executorThreads;
+
+    @Param({"5"})
+    private int lookupMillis;
+
+    private ExecutorService servletThreads;
+
+    private ThreadPoolTaskExecutor restControllerExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        servletThreads = Executors.newFixedThreadPool(containerThreads);
+        restControllerExecutor = new ThreadPoolTaskExecutor();
+        restControllerExecutor.setCorePoolSize(executorThreads);
+        restControllerExecutor.setMaxPoolSize(executorThreads);
+        restControllerExecutor.setQueueCapacity(Integer.MAX_VALUE);
+        restControllerExecutor.initialize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        servletThreads.shutdownNow();
+        restControllerExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Long blockingLookup() throws Exception {
+        return servletThreads.submit(this::lookup).get();
+    }
+
+    @Benchmark
+    public Long asynchronousLookup() throws Exception {
+        CompletableFuture<Long> response = CompletableFuture.supplyAsync(
+                () -> CompletableFuture.supplyAsync(this::lookup, restControllerExecutor), servletThreads).get();
+        return response.get();
+    }
+
+    private Long lookup() {
+        try {
+            Thread.sleep(lookupMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return System.nanoTime();
+    }
+}
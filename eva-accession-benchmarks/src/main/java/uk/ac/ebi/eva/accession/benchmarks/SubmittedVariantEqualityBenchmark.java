@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * equals and hashCode of {@link SubmittedVariant}, alone and through a HashSet, comparing each variant with an equal
+ * copy so that every field has to be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubmittedVariantEqualityBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"1", "10", "100"})
+    private int alleleLength;
+
+    private List<ISubmittedVariant> variants;
+
+    private List<ISubmittedVariant> copies;
+
+    @Setup
+    public void setUp() {
+        variants = SyntheticVariants.submittedVariants(CHUNK_SIZE, alleleLength, 42);
+        copies = new ArrayList<>(variants.size());
+        for (ISubmittedVariant variant : variants) {
+            copies.add(new SubmittedVariant(variant.getAssemblyAccession(), variant.getTaxonomyAccession(),
+                                            variant.getProjectAccession(), variant.getContig(), variant.getStart(),
+                                            variant.getReferenceAllele(), variant.getAlternateAllele(),
+                                            variant.isSupportedByEvidence()));
+        }
+    }
+
+    @Benchmark
+    public void equalsToCopy(Blackhole blackhole) {
+        for (int i = 0; i < variants.size(); i++) {
+            blackhole.consume(variants.get(i).equals(copies.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void hashCodes(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(variant.hashCode());
+        }
+    }
+
+    @Benchmark
+    public Set<ISubmittedVariant> addToHashSet() {
+        Set<ISubmittedVariant> set = new HashSet<>(variants);
+        set.addAll(copies);
+        return set;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantModelSummaryFunction;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing of a chunk of submitted variants: summary string plus SHA1 of the string, against the hashing function that
+ * streams the summary fields into the digest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SubmittedVariantHashingBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"1", "10", "100"})
+    private int alleleLength;
+
+    private List<ISubmittedVariant> variants;
+
+    private SubmittedVariantModelSummaryFunction summaryFunction;
+
+    private SHA1HashingFunction sha1HashingFunction;
+
+    private SubmittedVariantSummaryHashingFunction summaryHashingFunction;
+
+    @Setup
+    public void setUp() {
+        variants = SyntheticVariants.submittedVariants(CHUNK_SIZE, alleleLength, 42);
+        summaryFunction = new SubmittedVariantModelSummaryFunction();
+        sha1HashingFunction = new SHA1HashingFunction();
+        summaryHashingFunction = new SubmittedVariantSummaryHashingFunction();
+    }
+
+    @Benchmark
+    public void summaryAndSha1(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(sha1HashingFunction.apply(summaryFunction.apply(variant)));
+        }
+    }
+
+    @Benchmark
+    public void summaryHashing(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(summaryHashingFunction.apply(variant));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible random variants for the benchmarks, spread over a few contigs like in a real VCF.
+ */
+final class SyntheticVariants {
+
+    static final String ASSEMBLY_ACCESSION = "GCA_000001405.1";
+
+    static final int TAXONOMY_ACCESSION = 9606;
+
+    static final String PROJECT_ACCESSION = "PRJEB12345";
+
+    private static final String NUCLEOTIDES = "ACGT";
+
+    private static final int CONTIGS = 5;
+
+    private SyntheticVariants() {
+    }
+
+    /**
+     * @param alleleLength length of the reference allele; the alternate is a single nucleotide, as in most indels
+     */
+    static List<ISubmittedVariant> submittedVariants(int count, int alleleLength, long seed) {
+        Random random = new Random(seed);
+        List<ISubmittedVariant> variants = new ArrayList<>(count);
+        int variantsPerContig = Math.max(1, count / CONTIGS);
+        for (int i = 0; i < count; i++) {
+            String contig = Integer.toString(1 + i / variantsPerContig);
+            long start = 1 + (i % variantsPerContig) * 100L + random.nextInt(100);
+            variants.add(new SubmittedVariant(ASSEMBLY_ACCESSION, TAXONOMY_ACCESSION, PROJECT_ACCESSION, contig, start,
+                                              randomAllele(random, alleleLength), randomAllele(random, 1), true));
+        }
+        return variants;
+    }
+
+    static String randomAllele(Random random, int length) {
+        StringBuilder allele = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            allele.append(NUCLEOTIDES.charAt(random.nextInt(NUCLEOTIDES.length())));
+        }
+        return allele.toString();
+    }
+}
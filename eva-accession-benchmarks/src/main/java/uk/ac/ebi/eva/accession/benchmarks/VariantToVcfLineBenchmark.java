@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
+import uk.ac.ebi.eva.accession.pipeline.io.FastaSequenceReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the accession report lines, without the I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VariantToVcfLineBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"1", "10", "100"})
+    private int alleleLength;
+
+    private List<ISubmittedVariant> variants;
+
+    private LineFormatter lineFormatter;
+
+    @Setup
+    public void setUp() throws IOException {
+        variants = SyntheticVariants.submittedVariants(CHUNK_SIZE, alleleLength, 42);
+        lineFormatter = new LineFormatter();
+    }
+
+    @Benchmark
+    public void variantToVcfLine(Blackhole blackhole) {
+        long accession = 0;
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(lineFormatter.format(accession++, variant));
+        }
+    }
+
+    /**
+     * Exposes the formatting of the report writer. No file is opened and the FASTA is not needed, because the
+     * variants are already denormalized.
+     */
+    private static class LineFormatter extends AccessionReportWriter {
+
+        LineFormatter() throws IOException {
+            super(new File("unused.vcf"), (FastaSequenceReader) null);
+        }
+
+        String format(Long accession, ISubmittedVariant variant) {
+            return variantToVcfLine(accession, variant);
+        }
+    }
+}
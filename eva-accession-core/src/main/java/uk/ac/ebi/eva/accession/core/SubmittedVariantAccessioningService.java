@@ -17,16 +17,102 @@
  */
 package uk.ac.ebi.eva.accession.core;
 
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
-import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.MonotonicDatabaseService;
 import uk.ac.ebi.ampt2d.commons.accession.service.BasicMonotonicAccessioningService;
 
+import uk.ac.ebi.eva.accession.core.persistence.DuplicateSubmittedVariantsException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The summary function already returns the SHA1 hash of the summary (see
+ * {@link SubmittedVariantSummaryHashingFunction}), so the hashing function is the identity.
+ */
 public class SubmittedVariantAccessioningService extends BasicMonotonicAccessioningService<ISubmittedVariant, String> {
 
+    private final MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    private final MonotonicDatabaseService<ISubmittedVariant, String> dbService;
+
+    private final Function<ISubmittedVariant, String> hashingFunction;
+
     public SubmittedVariantAccessioningService(MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator,
                                                MonotonicDatabaseService dbService) {
-        super(accessionGenerator, dbService, new SubmittedVariantModelSummaryFunction(), new SHA1HashingFunction());
+        super(accessionGenerator, dbService, new SubmittedVariantSummaryHashingFunction(), Function.identity());
+        this.accessionGenerator = accessionGenerator;
+        this.dbService = dbService;
+        this.hashingFunction = new SubmittedVariantSummaryHashingFunction();
+    }
+
+    /**
+     * The variants not found in the database are inserted at once. If some of them were inserted by another thread or
+     * process in the meantime, the database service still inserts the rest and reports the duplicated hashes (see
+     * {@link DuplicateSubmittedVariantsException}): the accessions of the inserted variants are committed, the ones
+     * generated for the duplicated variants are released to be used again, and the existing accessions of the
+     * duplicated variants are looked up and returned instead. If the insertion fails for any other reason, all the
+     * generated accessions are released before the exception is thrown.
+     */
+    @Override
+    public List<AccessionWrapper<ISubmittedVariant, String, Long>> getOrCreate(
+            List<? extends ISubmittedVariant> variants) throws AccessionCouldNotBeGeneratedException {
+        Map<String, ISubmittedVariant> variantsByHash = new LinkedHashMap<>();
+        for (ISubmittedVariant variant : variants) {
+            variantsByHash.putIfAbsent(hashingFunction.apply(variant), variant);
+        }
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = new ArrayList<>(
+                dbService.findAllAccessionsByHash(variantsByHash.keySet()));
+        for (AccessionWrapper<ISubmittedVariant, String, Long> existingAccession : accessions) {
+            variantsByHash.remove(existingAccession.getHash());
+        }
+        if (variantsByHash.isEmpty()) {
+            return accessions;
+        }
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> newAccessions =
+                accessionGenerator.generateAccessions(variantsByHash);
+        Set<String> duplicatedHashes;
+        try {
+            dbService.insert(newAccessions);
+            duplicatedHashes = Collections.emptySet();
+        } catch (DuplicateSubmittedVariantsException e) {
+            duplicatedHashes = new HashSet<>(e.getDuplicatedHashes());
+        } catch (RuntimeException e) {
+            accessionGenerator.release(newAccessions.stream().mapToLong(AccessionWrapper::getAccession).toArray());
+            throw e;
+        }
+
+        List<Long> savedAccessions = new ArrayList<>(newAccessions.size());
+        List<Long> unsavedAccessions = new ArrayList<>(duplicatedHashes.size());
+        for (AccessionWrapper<ISubmittedVariant, String, Long> newAccession : newAccessions) {
+            if (duplicatedHashes.contains(newAccession.getHash())) {
+                unsavedAccessions.add(newAccession.getAccession());
+            } else {
+                savedAccessions.add(newAccession.getAccession());
+                accessions.add(newAccession);
+            }
+        }
+        if (!savedAccessions.isEmpty()) {
+            accessionGenerator.commit(toArray(savedAccessions));
+        }
+        if (!unsavedAccessions.isEmpty()) {
+            accessionGenerator.release(toArray(unsavedAccessions));
+            accessions.addAll(dbService.findAllAccessionsByHash(duplicatedHashes));
+        }
+        return accessions;
+    }
+
+    private static long[] toArray(List<Long> accessions) {
+        return accessions.stream().mapToLong(Long::longValue).toArray();
     }
 
 }
@@ -0,0 +1,155 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Function;
+
+/**
+ * Computes the same hash as applying {@link SubmittedVariantModelSummaryFunction} and then the SHA1 hashing function
+ * (an uppercase hexadecimal SHA1 of the summary), but without building the summary string.
+ * <p>
+ * The summary fields are encoded directly into a buffer that is fed to a {@link MessageDigest}. The buffers and the
+ * digest are reused by each thread, so the only allocation per variant is the returned hash.
+ */
+public class SubmittedVariantSummaryHashingFunction implements Function<ISubmittedVariant, String> {
+
+    private static final String HASHING_ALGORITHM = "SHA1";
+
+    private static final ThreadLocal<HashingBuffers> buffers = ThreadLocal.withInitial(HashingBuffers::new);
+
+    @Override
+    public String apply(ISubmittedVariant model) {
+        HashingBuffers hashingBuffers = buffers.get();
+        hashingBuffers.append(model.getAssemblyAccession());
+        hashingBuffers.appendSeparator();
+        hashingBuffers.append(model.getProjectAccession());
+        hashingBuffers.appendSeparator();
+        hashingBuffers.append(model.getContig());
+        hashingBuffers.appendSeparator();
+        hashingBuffers.append(model.getStart());
+        hashingBuffers.appendSeparator();
+        hashingBuffers.append(model.getReferenceAllele());
+        hashingBuffers.appendSeparator();
+        hashingBuffers.append(model.getAlternateAllele());
+        return hashingBuffers.digestAsHex();
+    }
+
+    private static class HashingBuffers {
+
+        private static final int INPUT_BUFFER_SIZE = 512;
+
+        private static final byte SEPARATOR = '_';
+
+        private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+        private final MessageDigest messageDigest;
+
+        private final byte[] input;
+
+        private int inputLength;
+
+        private final byte[] digest;
+
+        private final char[] hex;
+
+        HashingBuffers() {
+            try {
+                messageDigest = MessageDigest.getInstance(HASHING_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            input = new byte[INPUT_BUFFER_SIZE];
+            inputLength = 0;
+            digest = new byte[messageDigest.getDigestLength()];
+            hex = new char[digest.length * 2];
+        }
+
+        void appendSeparator() {
+            appendByte(SEPARATOR);
+        }
+
+        /**
+         * ASCII characters are copied as they are. Anything else is encoded as UTF-8, which allocates, but should be
+         * very rare in a summary.
+         */
+        void append(String value) {
+            if (value == null) {
+                value = "null";
+            }
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char character = value.charAt(i);
+                if (character >= 0x80) {
+                    flushInput();
+                    messageDigest.update(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                appendByte((byte) character);
+            }
+        }
+
+        void append(long value) {
+            if (value == Long.MIN_VALUE) {
+                append(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                appendByte((byte) '-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (divisor <= value / 10) {
+                divisor *= 10;
+            }
+            while (divisor > 0) {
+                appendByte((byte) ('0' + (value / divisor) % 10));
+                divisor /= 10;
+            }
+        }
+
+        String digestAsHex() {
+            flushInput();
+            try {
+                messageDigest.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new String(hex);
+        }
+
+        private void appendByte(byte value) {
+            if (inputLength == input.length) {
+                flushInput();
+            }
+            input[inputLength++] = value;
+        }
+
+        private void flushInput() {
+            messageDigest.update(input, 0, inputLength);
+            inputLength = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.configuration;
+
+public class BlockPrefetchProperties {
+
+    private boolean enabled;
+
+    private int blocks;
+
+    private int refillThreshold;
+
+    public BlockPrefetchProperties() {
+        this.enabled = false;
+        this.blocks = 4;
+        this.refillThreshold = 2;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getBlocks() {
+        return blocks;
+    }
+
+    public int getRefillThreshold() {
+        return refillThreshold;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setBlocks(int blocks) {
+        this.blocks = blocks;
+    }
+
+    public void setRefillThreshold(int refillThreshold) {
+        this.refillThreshold = refillThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockPrefetchProperties{" +
+                "enabled=" + enabled +
+                ", blocks=" + blocks +
+                ", refillThreshold=" + refillThreshold +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.configuration;
+
+public class HashBloomFilterProperties {
+
+    private boolean enabled;
+
+    private long expectedInsertions;
+
+    private double falsePositiveRate;
+
+    private String snapshot;
+
+    public HashBloomFilterProperties() {
+        this.enabled = false;
+        this.expectedInsertions = 100_000_000L;
+        this.falsePositiveRate = 0.01;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setExpectedInsertions(long expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public void setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "HashBloomFilterProperties{" +
+                "enabled=" + enabled +
+                ", expectedInsertions=" + expectedInsertions +
+                ", falsePositiveRate=" + falsePositiveRate +
+                ", snapshot='" + snapshot + '\'' +
+                '}';
+    }
+}
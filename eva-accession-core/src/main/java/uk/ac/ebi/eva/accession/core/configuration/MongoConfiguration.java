@@ -20,6 +20,7 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.ReadPreference;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.mongo.MongoProperties;
@@ -34,6 +35,9 @@ import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntityInterningListener;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+
 import java.net.UnknownHostException;
 
 @Configuration
@@ -66,4 +70,11 @@ public class MongoConfiguration {
         converter.setTypeMapper(new DefaultMongoTypeMapper(null));
         return new MongoTemplate(mongoDbFactory, converter);
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "accessioning.variant.interner.enabled", havingValue = "true", matchIfMissing = true)
+    public SubmittedVariantEntityInterningListener submittedVariantEntityInterningListener(
+            StringInterner stringInterner) {
+        return new SubmittedVariantEntityInterningListener(stringInterner);
+    }
 }
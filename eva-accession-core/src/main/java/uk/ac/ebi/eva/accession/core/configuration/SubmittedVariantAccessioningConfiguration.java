@@ -17,6 +17,8 @@
  */
 package uk.ac.ebi.eva.accession.core.configuration;
 
+import com.codahale.metrics.MetricRegistry;
+import com.mongodb.WriteConcern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,12 +32,23 @@ import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.Cont
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.generators.ConcurrentMonotonicAccessionGenerator;
+import uk.ac.ebi.eva.accession.core.persistence.HashBloomFilter;
+import uk.ac.ebi.eva.accession.core.persistence.PrefetchingContiguousIdBlockService;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantInactiveEntity;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantOperationEntity;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantOperationRepository;
 import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 
 @Configuration
 @EnableSpringDataContiguousIdService
@@ -56,6 +69,19 @@ public class SubmittedVariantAccessioningConfiguration {
     @Autowired
     private ContiguousIdBlockService service;
 
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    private HashBloomFilter hashFilter;
+
+    private long hashFilterDocumentCount;
+
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    private PrefetchingContiguousIdBlockService prefetchingBlockService;
+
+    private ConcurrentMonotonicAccessionGenerator<ISubmittedVariant> concurrentAccessionGenerator;
+
     @Bean
     @ConfigurationProperties(prefix = "accessioning")
     public ApplicationProperties applicationProperties() {
@@ -63,11 +89,21 @@ public class SubmittedVariantAccessioningConfiguration {
     }
 
     @Bean
-    public SubmittedVariantAccessioningService submittedVariantAccessioningService() {
+    public SubmittedVariantAccessioningService submittedVariantAccessioningService() throws IOException {
         return new SubmittedVariantAccessioningService(submittedVariantAccessionGenerator(),
                                                        submittedVariantAccessioningDatabaseService());
     }
 
+    /**
+     * Registry of this context only, so that applications that disable it don't affect others in the same JVM. When
+     * it's disabled it has no room for any value, and every value is returned as it is.
+     */
+    @Bean
+    public StringInterner stringInterner() {
+        boolean enabled = applicationProperties().getVariant().getInterner().isEnabled();
+        return new StringInterner(enabled ? StringInterner.DEFAULT_MAX_SIZE : 0);
+    }
+
     @Bean
     public SubmittedVariantOperationRepository submittedVariantOperationRepository() {
         return operationRepository;
@@ -81,19 +117,188 @@ public class SubmittedVariantAccessioningConfiguration {
     }
 
     @Bean
-    public SubmittedVariantAccessioningDatabaseService submittedVariantAccessioningDatabaseService() {
-        return new SubmittedVariantAccessioningDatabaseService(repository, inactiveService);
+    public SubmittedVariantAccessioningDatabaseService submittedVariantAccessioningDatabaseService()
+            throws IOException {
+        HashBloomFilterProperties hashFilterProperties = applicationProperties().getVariant().getHashFilter();
+        if (hashFilterProperties.isEnabled()) {
+            hashFilter = loadHashFilter(hashFilterProperties);
+        }
+        databaseService = new SubmittedVariantAccessioningDatabaseService(repository, inactiveService, hashFilter,
+                                                                          getWriteConcern(), metricRegistry);
+        return databaseService;
+    }
+
+    private WriteConcern getWriteConcern() {
+        String writeConcernName = applicationProperties().getVariant().getWriteConcern();
+        if (writeConcernName == null || writeConcernName.isEmpty()) {
+            return null;
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(writeConcernName);
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown write concern: " + writeConcernName);
+        }
+        return writeConcern;
+    }
+
+    /**
+     * The snapshot is only used if the collection still has the same number of documents and the same last creation
+     * date as when it was saved. Otherwise, some variants may have been inserted by another process since then, and the
+     * filter is built again from the database.
+     */
+    private HashBloomFilter loadHashFilter(HashBloomFilterProperties properties) throws IOException {
+        if (properties.getSnapshot() != null && !properties.getSnapshot().isEmpty()) {
+            Path snapshot = Paths.get(properties.getSnapshot());
+            if (Files.exists(snapshot)) {
+                HashBloomFilter filter = loadHashFilterSnapshot(snapshot);
+                if (filter != null) {
+                    return filter;
+                }
+            }
+        }
+        logger.info("Building the filter of submitted variant hashes from the database");
+        HashBloomFilter filter = new HashBloomFilter(properties.getExpectedInsertions(),
+                                                     properties.getFalsePositiveRate());
+        long[] hashCount = {0};
+        repository.findAllHashes(hash -> {
+            filter.put(hash);
+            hashCount[0]++;
+        });
+        hashFilterDocumentCount = hashCount[0];
+        logger.info("Added {} hashes to the filter ({} bits, {} hash functions)", hashCount[0],
+                    filter.getBitCount(), filter.getHashFunctionCount());
+        if (hashCount[0] > properties.getExpectedInsertions()) {
+            logger.warn("There are more hashes in the database than the expected insertions of the filter, so it " +
+                                "will have a higher false positive rate than configured");
+        }
+        return filter;
+    }
+
+    private HashBloomFilter loadHashFilterSnapshot(Path snapshot) {
+        try {
+            String snapshotCollectionState = HashBloomFilter.readCollectionState(snapshot);
+            long documentCount = repository.count();
+            String collectionState = getCollectionState(documentCount);
+            if (collectionState == null || !collectionState.equals(snapshotCollectionState)) {
+                logger.warn("Ignoring the filter of submitted variant hashes in {}, because it was saved when the " +
+                                    "database had {}, and now it has {}", snapshot, snapshotCollectionState,
+                            collectionState);
+                return null;
+            }
+            logger.info("Loading the filter of submitted variant hashes from {}", snapshot);
+            HashBloomFilter filter = HashBloomFilter.readFrom(snapshot);
+            hashFilterDocumentCount = documentCount;
+            return filter;
+        } catch (IOException e) {
+            logger.warn("Ignoring the filter of submitted variant hashes in " + snapshot + ", because it could not " +
+                                "be read", e);
+            return null;
+        }
+    }
+
+    /**
+     * The snapshot is only saved if all the variants in the database are in the filter, which is not the case if
+     * another process inserted variants while this one was running. In that case, any previous snapshot is deleted.
+     */
+    private void saveHashFilterSnapshot() throws IOException {
+        HashBloomFilterProperties properties = applicationProperties().getVariant().getHashFilter();
+        if (hashFilter == null || properties.getSnapshot() == null || properties.getSnapshot().isEmpty()) {
+            return;
+        }
+        Path snapshot = Paths.get(properties.getSnapshot());
+        long expectedDocumentCount = hashFilterDocumentCount + databaseService.getInsertedCount();
+        long documentCount = repository.count();
+        if (documentCount != expectedDocumentCount) {
+            logger.warn("Not saving the filter of submitted variant hashes to {}, because there are {} variants in " +
+                                "the database and the filter only knows about {}", snapshot, documentCount,
+                        expectedDocumentCount);
+            Files.deleteIfExists(snapshot);
+            return;
+        }
+        String collectionState = getCollectionState(documentCount);
+        if (collectionState == null) {
+            logger.warn("Not saving the filter of submitted variant hashes to {}, because the variants in the " +
+                                "database have no creation date to check the snapshot against", snapshot);
+            Files.deleteIfExists(snapshot);
+            return;
+        }
+        logger.info("Saving the filter of submitted variant hashes to {}", snapshot);
+        hashFilter.writeTo(snapshot, collectionState);
+    }
+
+    /**
+     * The creation date of the documents is filled when they are inserted, so any insertion since the state was taken
+     * changes the last creation date, even if some other documents were deleted and the count is the same.
+     *
+     * @return the number of documents and the last creation date in the collection, or null if the documents have no
+     * creation date and the state can't tell whether they changed
+     */
+    private String getCollectionState(long documentCount) {
+        LocalDateTime lastCreatedDate = repository.findLastCreatedDate();
+        if (documentCount > 0 && lastCreatedDate == null) {
+            return null;
+        }
+        return documentCount + " variants created until " + lastCreatedDate;
     }
 
     @Bean
     public MonotonicAccessionGenerator<ISubmittedVariant> submittedVariantAccessionGenerator() {
         ApplicationProperties properties = applicationProperties();
         logger.debug("Using application properties: " + properties.toString());
+        int subBlockSize = properties.getVariant().getSubBlockSize();
+        if (subBlockSize > 0) {
+            concurrentAccessionGenerator = new ConcurrentMonotonicAccessionGenerator<>(
+                    properties.getVariant().getBlockSize(),
+                    properties.getVariant().getCategoryId(),
+                    properties.getInstanceId(),
+                    getBlockService(properties),
+                    subBlockSize);
+            return concurrentAccessionGenerator;
+        }
         return new MonotonicAccessionGenerator<>(
                 properties.getVariant().getBlockSize(),
                 properties.getVariant().getCategoryId(),
                 properties.getInstanceId(),
-                service);
+                getBlockService(properties));
+    }
+
+    private ContiguousIdBlockService getBlockService(ApplicationProperties properties) {
+        BlockPrefetchProperties prefetchProperties = properties.getVariant().getBlockPrefetch();
+        if (!prefetchProperties.isEnabled()) {
+            return service;
+        }
+        logger.info("Reserving up to {} blocks of accessions in advance", prefetchProperties.getBlocks());
+        prefetchingBlockService = new PrefetchingContiguousIdBlockService(service,
+                                                                          properties.getVariant().getCategoryId(),
+                                                                          properties.getInstanceId(),
+                                                                          properties.getVariant().getBlockSize(),
+                                                                          prefetchProperties.getBlocks(),
+                                                                          prefetchProperties.getRefillThreshold());
+        return prefetchingBlockService;
+    }
+
+    /**
+     * The shutdown steps depend on each other, so they are run in order from a single method instead of several
+     * {@link PreDestroy} methods, whose order is not defined:
+     * <ol>
+     * <li>The block prefetching is stopped, so that no block is reserved while the accessions are being released.</li>
+     * <li>The accessions left in the sub-blocks of the threads are released, in case the application didn't release
+     * them when the threads finished.</li>
+     * <li>The filter of hashes is saved, once no more variants can be inserted. It's saved even if the previous steps
+     * fail, as it doesn't depend on them.</li>
+     * </ol>
+     */
+    @PreDestroy
+    public void shutDown() throws IOException, InterruptedException {
+        try {
+            if (prefetchingBlockService != null) {
+                prefetchingBlockService.shutDown();
+            }
+            if (concurrentAccessionGenerator != null) {
+                concurrentAccessionGenerator.releaseUnusedAccessions();
+            }
+        } finally {
+            saveHashFilterSnapshot();
+        }
     }
 
 }
@@ -23,6 +23,29 @@ public class VariantAccessioningProperties {
 
     private long blockSize;
 
+    private HashBloomFilterProperties hashFilter = new HashBloomFilterProperties();
+
+    private BlockPrefetchProperties blockPrefetch = new BlockPrefetchProperties();
+
+    /**
+     * Whether the assembly, project and contig of the submitted variants are shared through the
+     * {@link uk.ac.ebi.eva.accession.core.utils.StringInterner}.
+     */
+    private StringInternerProperties interner = new StringInternerProperties();
+
+    /**
+     * Number of accessions taken at a time by each thread that generates accessions, so that the threads don't wait
+     * for each other. If 0, the accessions are generated one batch at a time.
+     */
+    private int subBlockSize;
+
+    /**
+     * Name of the MongoDB write concern used to insert new accessions, as accepted by
+     * {@link com.mongodb.WriteConcern#valueOf(String)}, e.g. ACKNOWLEDGED, MAJORITY or JOURNALED. If empty, the default
+     * write concern of the database is used.
+     */
+    private String writeConcern;
+
     public String getCategoryId() {
         return categoryId;
     }
@@ -31,6 +54,14 @@ public class VariantAccessioningProperties {
         return blockSize;
     }
 
+    public HashBloomFilterProperties getHashFilter() {
+        return hashFilter;
+    }
+
+    public BlockPrefetchProperties getBlockPrefetch() {
+        return blockPrefetch;
+    }
+
     public void setCategoryId(String categoryId) {
         this.categoryId = categoryId;
     }
@@ -39,11 +70,48 @@ public class VariantAccessioningProperties {
         this.blockSize = blockSize;
     }
 
+    public void setHashFilter(HashBloomFilterProperties hashFilter) {
+        this.hashFilter = hashFilter;
+    }
+
+    public void setBlockPrefetch(BlockPrefetchProperties blockPrefetch) {
+        this.blockPrefetch = blockPrefetch;
+    }
+
+    public StringInternerProperties getInterner() {
+        return interner;
+    }
+
+    public void setInterner(StringInternerProperties interner) {
+        this.interner = interner;
+    }
+
+    public int getSubBlockSize() {
+        return subBlockSize;
+    }
+
+    public void setSubBlockSize(int subBlockSize) {
+        this.subBlockSize = subBlockSize;
+    }
+
+    public String getWriteConcern() {
+        return writeConcern;
+    }
+
+    public void setWriteConcern(String writeConcern) {
+        this.writeConcern = writeConcern;
+    }
+
     @Override
     public String toString() {
         return "VariantAccessioningProperties{" +
                 "categoryId='" + categoryId + '\'' +
                 ", blockSize=" + blockSize +
+                ", hashFilter=" + hashFilter +
+                ", blockPrefetch=" + blockPrefetch +
+                ", interner=" + interner +
+                ", subBlockSize=" + subBlockSize +
+                ", writeConcern='" + writeConcern + '\'' +
                 '}';
     }
 }
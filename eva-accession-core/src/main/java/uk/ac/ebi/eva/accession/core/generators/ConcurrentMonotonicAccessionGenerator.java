@@ -0,0 +1,148 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.generators;
+
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.ContiguousIdBlockService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accession generator for several threads accessioning at the same time. Every thread takes its accessions from its
+ * own sub-block, claiming them with a compare-and-set, so the threads don't wait for each other. Only when its
+ * sub-block runs out a thread takes a new one from the synchronized generator of the superclass, which is the only
+ * path that reserves blocks in the database.
+ * <p>
+ * The accessions of a sub-block not used yet can be given back with {@link #releaseUnusedAccessions()}, for instance
+ * when the threads finish, so that they are used by other threads instead of being left until the next run recovers
+ * them. Committing and releasing the accessions after saving them is still done by the superclass, once per batch.
+ */
+public class ConcurrentMonotonicAccessionGenerator<MODEL> extends MonotonicAccessionGenerator<MODEL> {
+
+    private final int subBlockSize;
+
+    private final ThreadLocal<SubBlock> currentSubBlock;
+
+    private final Queue<SubBlock> subBlocks;
+
+    public ConcurrentMonotonicAccessionGenerator(long blockSize, String categoryId, String applicationInstanceId,
+                                                 ContiguousIdBlockService contiguousIdBlockService,
+                                                 int subBlockSize) {
+        super(blockSize, categoryId, applicationInstanceId, contiguousIdBlockService);
+        if (subBlockSize < 1) {
+            throw new IllegalArgumentException("The size of the sub-blocks must be positive");
+        }
+        this.subBlockSize = subBlockSize;
+        this.currentSubBlock = new ThreadLocal<>();
+        this.subBlocks = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public long[] generateAccessions(int numAccessionsToGenerate) throws AccessionCouldNotBeGeneratedException {
+        long[] accessions = new long[numAccessionsToGenerate];
+        int generated = 0;
+        SubBlock subBlock = currentSubBlock.get();
+        if (subBlock != null) {
+            generated = subBlock.claim(accessions, generated);
+        }
+        while (generated < numAccessionsToGenerate) {
+            if (subBlock != null) {
+                subBlocks.remove(subBlock);
+            }
+            subBlock = new SubBlock(super.generateAccessions(
+                    Math.max(subBlockSize, numAccessionsToGenerate - generated)));
+            subBlocks.add(subBlock);
+            currentSubBlock.set(subBlock);
+            generated = subBlock.claim(accessions, generated);
+        }
+        return accessions;
+    }
+
+    @Override
+    public <HASH> List<AccessionWrapper<MODEL, HASH, Long>> generateAccessions(Map<HASH, MODEL> messages)
+            throws AccessionCouldNotBeGeneratedException {
+        long[] accessions = generateAccessions(messages.size());
+        List<AccessionWrapper<MODEL, HASH, Long>> accessionedModels = new ArrayList<>(messages.size());
+        int i = 0;
+        for (Map.Entry<HASH, MODEL> entry : messages.entrySet()) {
+            accessionedModels.add(new AccessionWrapper<>(accessions[i++], entry.getKey(), entry.getValue()));
+        }
+        return accessionedModels;
+    }
+
+    /**
+     * Gives back to the superclass the accessions of all the sub-blocks that were not handed out yet. It's safe to
+     * call it while other threads are generating accessions: every accession is either handed out or released.
+     */
+    public void releaseUnusedAccessions() {
+        for (SubBlock subBlock : subBlocks) {
+            long[] unusedAccessions = subBlock.claimRemaining();
+            if (unusedAccessions.length > 0) {
+                release(unusedAccessions);
+            }
+            subBlocks.remove(subBlock);
+        }
+    }
+
+    private static class SubBlock {
+
+        private final long[] accessions;
+
+        private final AtomicInteger next;
+
+        SubBlock(long[] accessions) {
+            this.accessions = accessions;
+            this.next = new AtomicInteger(0);
+        }
+
+        /**
+         * Copies as many accessions as fit or are left into the target from the given offset
+         *
+         * @return the offset in the target after the copied accessions
+         */
+        int claim(long[] target, int offset) {
+            while (true) {
+                int start = next.get();
+                int end = Math.min(start + target.length - offset, accessions.length);
+                if (start >= end) {
+                    return offset;
+                }
+                if (next.compareAndSet(start, end)) {
+                    System.arraycopy(accessions, start, target, offset, end - start);
+                    return offset + end - start;
+                }
+            }
+        }
+
+        long[] claimRemaining() {
+            int start = next.getAndSet(accessions.length);
+            if (start >= accessions.length) {
+                return new long[0];
+            }
+            return Arrays.copyOfRange(accessions, start, accessions.length);
+        }
+    }
+}
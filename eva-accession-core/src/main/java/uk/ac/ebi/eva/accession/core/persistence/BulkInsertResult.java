@@ -0,0 +1,57 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an unordered bulk insertion: how many documents were inserted, and which ones were rejected because a
+ * document with the same key was already in the collection.
+ */
+public class BulkInsertResult<DOCUMENT> {
+
+    private final int insertedCount;
+
+    private final List<DOCUMENT> duplicatedDocuments;
+
+    public BulkInsertResult(int insertedCount, List<DOCUMENT> duplicatedDocuments) {
+        this.insertedCount = insertedCount;
+        this.duplicatedDocuments = Collections.unmodifiableList(duplicatedDocuments);
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public List<DOCUMENT> getDuplicatedDocuments() {
+        return duplicatedDocuments;
+    }
+
+    public boolean hasDuplicates() {
+        return !duplicatedDocuments.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsertResult{" +
+                "insertedCount=" + insertedCount +
+                ", duplicatedDocuments=" + duplicatedDocuments.size() +
+                '}';
+    }
+}
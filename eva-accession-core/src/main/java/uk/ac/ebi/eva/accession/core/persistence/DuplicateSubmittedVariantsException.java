@@ -0,0 +1,41 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Some submitted variants could not be inserted because their hashes were already in the database, most likely
+ * because another thread or process inserted them at the same time. The rest of the variants were inserted.
+ */
+public class DuplicateSubmittedVariantsException extends DuplicateKeyException {
+
+    private final List<String> duplicatedHashes;
+
+    public DuplicateSubmittedVariantsException(List<String> duplicatedHashes) {
+        super(duplicatedHashes.size() + " submitted variants were already in the database: " + duplicatedHashes);
+        this.duplicatedHashes = Collections.unmodifiableList(duplicatedHashes);
+    }
+
+    public List<String> getDuplicatedHashes() {
+        return duplicatedHashes;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Probabilistic set of hashes: if {@link #mightContain(String)} returns false, the hash was definitely never added,
+ * but if it returns true, the hash may have been added or not (false positive).
+ * <p>
+ * The bits are updated with compare-and-set, so hashes can be added and queried from several threads at the same time
+ * without locking.
+ */
+public class HashBloomFilter {
+
+    private static final int SNAPSHOT_FORMAT_VERSION = 3;
+
+    private static final long FIRST_HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private static final long SECOND_HASH_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashFunctionCount;
+
+    /**
+     * @param expectedInsertions number of hashes that will be added to the filter
+     * @param falsePositiveRate probability of {@link #mightContain(String)} returning true for a hash that was not
+     * added, once the expected number of hashes have been added
+     */
+    public HashBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("The number of expected insertions must be a positive number");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1 (exclusive)");
+        }
+        long optimalBitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate)
+                                                        / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBitCount + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctionCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    private HashBloomFilter(AtomicLongArray bits, int hashFunctionCount) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashFunctionCount = hashFunctionCount;
+    }
+
+    /**
+     * @return true if the hash was definitely not in the filter before this call
+     */
+    public boolean put(String hash) {
+        long hash1 = hash(hash, FIRST_HASH_SEED);
+        long hash2 = hash(hash, SECOND_HASH_SEED) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            changed |= setBit(index(hash1, hash2, i));
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String hash) {
+        long hash1 = hash(hash, FIRST_HASH_SEED);
+        long hash2 = hash(hash, SECOND_HASH_SEED) | 1;
+        for (int i = 0; i < hashFunctionCount; i++) {
+            long index = index(hash1, hash2, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashFunctionCount() {
+        return hashFunctionCount;
+    }
+
+    /**
+     * Writes the filter to a file that can be read with {@link #readFrom(Path)}. Hashes added while the snapshot is
+     * being written may or may not be included in it.
+     *
+     * @param collectionState description of the collection whose hashes are in the filter, so that the snapshot can be
+     * checked against the collection before using it, see {@link #readCollectionState(Path)}
+     */
+    public void writeTo(Path snapshot, String collectionState) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(snapshot)))) {
+            output.writeInt(SNAPSHOT_FORMAT_VERSION);
+            output.writeUTF(collectionState);
+            output.writeInt(hashFunctionCount);
+            output.writeInt(bits.length());
+            for (int i = 0; i < bits.length(); i++) {
+                output.writeLong(bits.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the state of the collection when the snapshot was written, as given to {@link #writeTo(Path, String)}
+     */
+    public static String readCollectionState(Path snapshot) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            checkVersion(input, snapshot);
+            return input.readUTF();
+        }
+    }
+
+    public static HashBloomFilter readFrom(Path snapshot) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            checkVersion(input, snapshot);
+            input.readUTF();
+            int hashFunctionCount = input.readInt();
+            int words = input.readInt();
+            AtomicLongArray bits = new AtomicLongArray(words);
+            for (int i = 0; i < words; i++) {
+                bits.set(i, input.readLong());
+            }
+            return new HashBloomFilter(bits, hashFunctionCount);
+        }
+    }
+
+    private static void checkVersion(DataInputStream input, Path snapshot) throws IOException {
+        int version = input.readInt();
+        if (version != SNAPSHOT_FORMAT_VERSION) {
+            throw new IOException("Unsupported version " + version + " of the hash filter snapshot " + snapshot);
+        }
+    }
+
+    /**
+     * Double hashing: the i-th index is derived from two independent hashes, as good as using k different hash
+     * functions (Kirsch and Mitzenmacher, 2006). The second hash is odd so that the indices don't cycle through a
+     * small subset of the bits.
+     */
+    private long index(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, bitCount);
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private static long hash(String value, long seed) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        // finalization step of MurmurHash3, so that every input bit affects every output bit
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.entities.ContiguousIdBlock;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.ContiguousIdBlockService;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps some blocks of accessions of a category reserved in advance, so that the accession generator doesn't have to
+ * wait for a database transaction whenever its current block runs out. When the number of blocks ready falls to the
+ * refill threshold, more blocks are reserved in a background thread, one at a time and in order, so the accessions are
+ * still handed out in increasing order. If no block is ready, one is reserved synchronously as usual.
+ * <p>
+ * The prefetching starts with the first reservation, after the generator has recovered the uncompleted blocks of a
+ * previous run, and the blocks that are waiting to be handed out are never reported as uncompleted blocks, so a block
+ * can't be used twice. The blocks that were never handed out are logged when shutting down: they are left untouched in
+ * the database as uncompleted blocks of the application instance, so the next run with the same instance ID will
+ * recover them, leaving no gaps.
+ * <p>
+ * Every call is delegated to the given service (the state of the superclass is not used), and the reservations of
+ * other categories, instances or block sizes are not prefetched.
+ */
+public class PrefetchingContiguousIdBlockService extends ContiguousIdBlockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingContiguousIdBlockService.class);
+
+    private static final String THREAD_NAME = "accession-block-prefetcher";
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final ContiguousIdBlockService delegate;
+
+    private final String categoryId;
+
+    private final String applicationInstanceId;
+
+    private final long blockSize;
+
+    private final int prefetchedBlocks;
+
+    private final int refillThreshold;
+
+    private final Deque<ContiguousIdBlock> readyBlocks;
+
+    /**
+     * Held while reserving a block in the database, so that the blocks are added to {@link #readyBlocks} in the order
+     * they were reserved.
+     */
+    private final Object reservationLock;
+
+    private final ExecutorService refillExecutor;
+
+    private boolean refilling;
+
+    private boolean shutDown;
+
+    /**
+     * @param refillThreshold number of blocks ready at or below which more blocks are reserved, up to
+     * prefetchedBlocks
+     */
+    public PrefetchingContiguousIdBlockService(ContiguousIdBlockService delegate, String categoryId,
+                                               String applicationInstanceId, long blockSize, int prefetchedBlocks,
+                                               int refillThreshold) {
+        super(null, null);
+        if (prefetchedBlocks < 1) {
+            throw new IllegalArgumentException("The number of prefetched blocks must be positive");
+        }
+        if (refillThreshold < 0 || refillThreshold >= prefetchedBlocks) {
+            throw new IllegalArgumentException(
+                    "The refill threshold must be at least 0 and less than the number of prefetched blocks");
+        }
+        this.delegate = delegate;
+        this.categoryId = categoryId;
+        this.applicationInstanceId = applicationInstanceId;
+        this.blockSize = blockSize;
+        this.prefetchedBlocks = prefetchedBlocks;
+        this.refillThreshold = refillThreshold;
+        this.readyBlocks = new ArrayDeque<>();
+        this.reservationLock = new Object();
+        this.refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ContiguousIdBlock reserveNewBlock(String categoryId, String instanceId, long size) {
+        if (!isPrefetched(categoryId, instanceId, size)) {
+            return delegate.reserveNewBlock(categoryId, instanceId, size);
+        }
+        synchronized (this) {
+            checkNotShutDown();
+            ContiguousIdBlock block = readyBlocks.pollFirst();
+            if (block != null) {
+                scheduleRefillIfNeeded();
+                return block;
+            }
+        }
+        ContiguousIdBlock block;
+        synchronized (reservationLock) {
+            synchronized (this) {
+                // a refill may have finished while waiting for the lock
+                block = readyBlocks.pollFirst();
+            }
+            if (block == null) {
+                logger.debug("No prefetched block of accessions ready, reserving one synchronously");
+                block = delegate.reserveNewBlock(categoryId, instanceId, size);
+            }
+        }
+        synchronized (this) {
+            scheduleRefillIfNeeded();
+        }
+        return block;
+    }
+
+    private boolean isPrefetched(String categoryId, String instanceId, long size) {
+        return this.categoryId.equals(categoryId) && this.applicationInstanceId.equals(instanceId)
+                && this.blockSize == size;
+    }
+
+    private void checkNotShutDown() {
+        if (shutDown) {
+            throw new IllegalStateException("The prefetching of accession blocks has been shut down");
+        }
+    }
+
+    private void scheduleRefillIfNeeded() {
+        if (!refilling && !shutDown && readyBlocks.size() <= refillThreshold) {
+            refilling = true;
+            refillExecutor.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (shutDown || readyBlocks.size() >= prefetchedBlocks) {
+                        refilling = false;
+                        return;
+                    }
+                }
+                synchronized (reservationLock) {
+                    ContiguousIdBlock block = delegate.reserveNewBlock(categoryId, applicationInstanceId, blockSize);
+                    synchronized (this) {
+                        readyBlocks.addLast(block);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not prefetch a block of accessions, it will be reserved when needed", e);
+            synchronized (this) {
+                refilling = false;
+            }
+        }
+    }
+
+    @Override
+    public void save(Iterable<ContiguousIdBlock> blocks) {
+        delegate.save(blocks);
+    }
+
+    @Override
+    public List<ContiguousIdBlock> getUncompletedBlocksByCategoryIdAndApplicationInstanceIdOrderByEndAsc(
+            String categoryId, String applicationInstanceId) {
+        Set<Long> readyFirstValues;
+        synchronized (this) {
+            readyFirstValues = new HashSet<>();
+            for (ContiguousIdBlock block : readyBlocks) {
+                readyFirstValues.add(block.getFirstValue());
+            }
+        }
+        return delegate.getUncompletedBlocksByCategoryIdAndApplicationInstanceIdOrderByEndAsc(categoryId,
+                                                                                             applicationInstanceId)
+                       .stream()
+                       .filter(block -> !readyFirstValues.contains(block.getFirstValue()))
+                       .collect(Collectors.toList());
+    }
+
+    /**
+     * Stops the prefetching, waiting for a reservation in progress to finish, and logs the blocks that were never
+     * handed out.
+     */
+    public void shutDown() throws InterruptedException {
+        synchronized (this) {
+            shutDown = true;
+        }
+        refillExecutor.shutdown();
+        if (!refillExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("The prefetching of accession blocks didn't finish in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+        synchronized (this) {
+            for (ContiguousIdBlock block : readyBlocks) {
+                logger.info("Accessions {} to {} were reserved but not used, they will be used by the next run of " +
+                                    "application instance {}", block.getFirstValue(), block.getLastValue(),
+                            applicationInstanceId);
+            }
+            readyBlocks.clear();
+        }
+    }
+
+    /**
+     * @return number of blocks reserved and waiting to be handed out
+     */
+    public synchronized int getReadyBlockCount() {
+        return readyBlocks.size();
+    }
+}
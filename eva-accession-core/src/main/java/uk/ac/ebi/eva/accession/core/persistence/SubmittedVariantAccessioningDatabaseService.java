@@ -17,6 +17,10 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.mongodb.WriteConcern;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.BasicSpringDataRepositoryDatabaseService;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.MonotonicDatabaseService;
@@ -24,24 +28,167 @@ import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.Mono
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SubmittedVariantAccessioningDatabaseService
         extends BasicSpringDataRepositoryDatabaseService<ISubmittedVariant, Long, SubmittedVariantEntity>
         implements MonotonicDatabaseService<ISubmittedVariant, String> {
 
+    public static final String LOOKUP_TIMER = "accessioning.lookup";
+
+    public static final String SAVE_TIMER = "accessioning.save";
+
+    private final SubmittedVariantAccessioningRepository repository;
+
+    private final HashBloomFilter hashFilter;
+
+    private final WriteConcern writeConcern;
+
+    private final Timer lookupTimer;
+
+    private final Timer saveTimer;
+
+    private final AtomicLong insertedCount;
+
     public SubmittedVariantAccessioningDatabaseService(SubmittedVariantAccessioningRepository repository,
                                                        SubmittedVariantInactiveService inactiveAccessionService) {
+        this(repository, inactiveAccessionService, null);
+    }
+
+    public SubmittedVariantAccessioningDatabaseService(SubmittedVariantAccessioningRepository repository,
+                                                       SubmittedVariantInactiveService inactiveAccessionService,
+                                                       HashBloomFilter hashFilter) {
+        this(repository, inactiveAccessionService, hashFilter, null, null);
+    }
+
+    /**
+     * @param hashFilter if not null, must contain all the hashes in the database, and will be used to avoid querying
+     * the database for hashes that are certainly not there
+     * @param writeConcern write concern of the insertions of new accessions, or null to use the default of the
+     * database
+     * @param metricRegistry where the time spent looking up and saving accessions is recorded, or null to not publish
+     * those timers
+     */
+    public SubmittedVariantAccessioningDatabaseService(SubmittedVariantAccessioningRepository repository,
+                                                       SubmittedVariantInactiveService inactiveAccessionService,
+                                                       HashBloomFilter hashFilter, WriteConcern writeConcern,
+                                                       MetricRegistry metricRegistry) {
         super(repository,
               accessionWrapper -> new SubmittedVariantEntity(accessionWrapper.getAccession(),
                                                              accessionWrapper.getHash(),
                                                              accessionWrapper.getData()),
               ISubmittedVariant.class::cast,
               inactiveAccessionService);
+        this.repository = repository;
+        this.hashFilter = hashFilter;
+        this.writeConcern = writeConcern;
+        MetricRegistry registry = metricRegistry != null ? metricRegistry : new MetricRegistry();
+        this.lookupTimer = registry.timer(LOOKUP_TIMER);
+        this.saveTimer = registry.timer(SAVE_TIMER);
+        this.insertedCount = new AtomicLong();
     }
 
+    /**
+     * The new accessions are inserted with one unordered bulk operation, so the time to save a chunk grows with the
+     * size of the chunk rather than with the number of round trips to the database. If some of the hashes were already
+     * in the database, the rest of the variants are still inserted, and the duplicates are reported with a
+     * {@link DuplicateSubmittedVariantsException} so that their existing accessions can be looked up.
+     * <p>
+     * Once the insertion has finished, all the hashes are in the database, either inserted now or before, so they are
+     * added to the hash filter, and the lookup of the duplicated ones will not be skipped.
+     */
+    @Override
+    public void insert(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions) {
+        BulkInsertResult<SubmittedVariantEntity> result;
+        try (Timer.Context ignored = saveTimer.time()) {
+            result = bulkInsert(accessions);
+        }
+        insertedCount.addAndGet(result.getInsertedCount());
+        if (hashFilter != null) {
+            for (AccessionWrapper<ISubmittedVariant, String, Long> accession : accessions) {
+                hashFilter.put(accession.getHash());
+            }
+        }
+        if (result.hasDuplicates()) {
+            List<String> duplicatedHashes = new ArrayList<>(result.getDuplicatedDocuments().size());
+            for (SubmittedVariantEntity duplicatedEntity : result.getDuplicatedDocuments()) {
+                duplicatedHashes.add(duplicatedEntity.getHashedMessage());
+            }
+            throw new DuplicateSubmittedVariantsException(duplicatedHashes);
+        }
+    }
+
+    private BulkInsertResult<SubmittedVariantEntity> bulkInsert(
+            List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions) {
+        List<SubmittedVariantEntity> entities = new ArrayList<>(accessions.size());
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accession : accessions) {
+            entities.add(new SubmittedVariantEntity(accession.getAccession(), accession.getHash(),
+                                                    accession.getData()));
+        }
+        return repository.bulkInsert(entities, writeConcern);
+    }
+
+    /**
+     * When there is a hash filter, only the hashes that might be in the database are queried. The filter is not
+     * modified here: the hashes are added to it after they are inserted, see {@link #insert(List)}.
+     */
+    @Override
+    public List<AccessionWrapper<ISubmittedVariant, String, Long>> findAllAccessionsByHash(Collection<String> hashes) {
+        try (Timer.Context ignored = lookupTimer.time()) {
+            return findAllAccessionsByHashInFilter(hashes);
+        }
+    }
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> findAllAccessionsByHashInFilter(
+            Collection<String> hashes) {
+        if (hashFilter == null) {
+            return super.findAllAccessionsByHash(hashes);
+        }
+        List<String> hashesMaybeInDatabase = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            if (hashFilter.mightContain(hash)) {
+                hashesMaybeInDatabase.add(hash);
+            }
+        }
+        if (hashesMaybeInDatabase.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return super.findAllAccessionsByHash(hashesMaybeInDatabase);
+    }
+
+    /**
+     * @return number of documents inserted by this service since it was created
+     */
+    public long getInsertedCount() {
+        return insertedCount.get();
+    }
+
+    /**
+     * Used by the accession generator to find out which accessions of the uncommitted blocks were already saved
+     * before a crash, so that they are not assigned again.
+     */
     @Override
     public long[] getAccessionsInRanges(Collection<MonotonicRange> ranges) {
-        return new long[0];
+        return repository.findAccessionsInRanges(ranges);
+    }
+
+    /**
+     * @see SubmittedVariantAccessioningRepositoryCustom#findByRegion
+     */
+    public List<AccessionWrapper<ISubmittedVariant, String, Long>> findByRegion(String assemblyAccession,
+                                                                                String contig, long start, long end,
+                                                                                Long afterStart, String afterHash,
+                                                                                int limit) {
+        List<SubmittedVariantEntity> entities = repository.findByRegion(assemblyAccession, contig, start, end,
+                                                                        afterStart, afterHash, limit);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> variants = new ArrayList<>(entities.size());
+        for (SubmittedVariantEntity entity : entities) {
+            variants.add(new AccessionWrapper<>(entity.getAccession(), entity.getHashedMessage(), entity));
+        }
+        return variants;
     }
 }
@@ -22,6 +22,6 @@ import uk.ac.ebi.ampt2d.commons.accession.persistence.IAccessionedObjectReposito
 
 @Repository
 public interface SubmittedVariantAccessioningRepository extends
-        IAccessionedObjectRepository<SubmittedVariantEntity, Long> {
+        IAccessionedObjectRepository<SubmittedVariantEntity, Long>, SubmittedVariantAccessioningRepositoryCustom {
 
 }
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import com.mongodb.WriteConcern;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface SubmittedVariantAccessioningRepositoryCustom {
+
+    /**
+     * @return the accessions in use inside the given ranges (both ends included), in ascending order
+     */
+    long[] findAccessionsInRanges(Collection<MonotonicRange> ranges);
+
+    /**
+     * Passes every hash in the collection to the consumer, without loading the documents in memory at once.
+     */
+    void findAllHashes(Consumer<String> hashConsumer);
+
+    /**
+     * @return the creation date of the most recently created document, or null if the collection is empty
+     */
+    LocalDateTime findLastCreatedDate();
+
+    /**
+     * Inserts all the documents in a single unordered bulk operation. A document whose hash is already in the
+     * collection doesn't stop the insertion of the rest, and is returned in the result instead.
+     *
+     * @param writeConcern write concern of the bulk operation, or null to use the default of the collection
+     * @throws org.springframework.data.mongodb.BulkOperationException if any document fails for any other reason
+     */
+    BulkInsertResult<SubmittedVariantEntity> bulkInsert(List<SubmittedVariantEntity> documents,
+                                                        WriteConcern writeConcern);
+
+    /**
+     * Finds the variants of a region sorted by start and hash, continuing after a given variant. The next page can be
+     * retrieved passing the start and hash of the last variant returned, so no documents are skipped in the server.
+     *
+     * @param start first position of the region (included)
+     * @param end last position of the region (included)
+     * @param afterStart start of the last variant of the previous page, or null to get the first page
+     * @param afterHash hash of the last variant of the previous page, or null to get the first page
+     * @param limit maximum number of variants returned
+     */
+    List<SubmittedVariantEntity> findByRegion(String assemblyAccession, String contig, long start, long end,
+                                              Long afterStart, String afterHash, int limit);
+
+    /**
+     * Drops all the indexes of the collection except the one on the hash (_id), so that a bulk load doesn't have to
+     * update them for every document. They can be built again with {@link #createIndexes()}.
+     */
+    void dropSecondaryIndexes();
+
+    /**
+     * Creates the indexes declared in {@link SubmittedVariantEntity} that don't exist yet.
+     */
+    void createIndexes();
+
+}
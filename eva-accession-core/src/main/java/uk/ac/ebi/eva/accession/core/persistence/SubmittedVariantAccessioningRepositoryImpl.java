@@ -17,14 +17,244 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.WriteConcern;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.mongodb.repository.BasicMongoDbAccessionedCustomRepositoryImpl;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
 public class SubmittedVariantAccessioningRepositoryImpl
-        extends BasicMongoDbAccessionedCustomRepositoryImpl<Long, SubmittedVariantEntity> {
+        extends BasicMongoDbAccessionedCustomRepositoryImpl<Long, SubmittedVariantEntity>
+        implements SubmittedVariantAccessioningRepositoryCustom, ApplicationEventPublisherAware {
+
+    private static final String ACCESSION_FIELD = "accession";
+
+    private static final String ID_FIELD = "_id";
+
+    private static final String CREATED_DATE_FIELD = "createdDate";
+
+    private static final String ASSEMBLY_FIELD = "asm";
+
+    private static final String CONTIG_FIELD = "contig";
+
+    private static final String START_FIELD = "start";
+
+    private static final int ACCESSIONS_BATCH_SIZE = 10000;
+
+    private static final int HASHES_BATCH_SIZE = 10000;
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private ApplicationEventPublisher eventPublisher;
 
     public SubmittedVariantAccessioningRepositoryImpl(MongoTemplate mongoTemplate) {
         super(SubmittedVariantEntity.class, mongoTemplate);
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Only the accession field is projected (and the _id is excluded), so that the query can be answered from the
+     * accession index without fetching the documents. The driver is used directly to avoid mapping every accession
+     * to an entity.
+     */
+    @Override
+    public long[] findAccessionsInRanges(Collection<MonotonicRange> ranges) {
+        if (ranges.isEmpty()) {
+            return new long[0];
+        }
+        List<DBObject> rangeQueries = new ArrayList<>(ranges.size());
+        for (MonotonicRange range : ranges) {
+            DBObject bounds = new BasicDBObject("$gte", range.getStart()).append("$lte", range.getEnd());
+            rangeQueries.add(new BasicDBObject(ACCESSION_FIELD, bounds));
+        }
+        DBObject query = rangeQueries.size() == 1 ? rangeQueries.get(0) : new BasicDBObject("$or", rangeQueries);
+        DBObject projection = new BasicDBObject(ACCESSION_FIELD, 1).append(ID_FIELD, 0);
+
+        DBCollection collection = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(SubmittedVariantEntity.class));
+        LongStream.Builder accessions = LongStream.builder();
+        try (DBCursor cursor = collection.find(query, projection).batchSize(ACCESSIONS_BATCH_SIZE)) {
+            while (cursor.hasNext()) {
+                accessions.add(((Number) cursor.next().get(ACCESSION_FIELD)).longValue());
+            }
+        }
+        long[] accessionsInRanges = accessions.build().toArray();
+        Arrays.sort(accessionsInRanges);
+        return accessionsInRanges;
+    }
+
+    /**
+     * The hash is the _id of the documents, so only the _id index needs to be read.
+     */
+    @Override
+    public void findAllHashes(Consumer<String> hashConsumer) {
+        DBObject projection = new BasicDBObject(ID_FIELD, 1);
+        DBCollection collection = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(SubmittedVariantEntity.class));
+        try (DBCursor cursor = collection.find(new BasicDBObject(), projection).batchSize(HASHES_BATCH_SIZE)) {
+            while (cursor.hasNext()) {
+                hashConsumer.accept((String) cursor.next().get(ID_FIELD));
+            }
+        }
+    }
+
+    /**
+     * Only the creation date of a single document is returned, so that the server doesn't send the collection back.
+     * The date is converted the same way as when mapping the entities.
+     */
+    @Override
+    public LocalDateTime findLastCreatedDate() {
+        DBObject projection = new BasicDBObject(CREATED_DATE_FIELD, 1).append(ID_FIELD, 0);
+        DBCollection collection = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(SubmittedVariantEntity.class));
+        try (DBCursor cursor = collection.find(new BasicDBObject(), projection)
+                                         .sort(new BasicDBObject(CREATED_DATE_FIELD, -1)).limit(1)) {
+            if (!cursor.hasNext()) {
+                return null;
+            }
+            Date createdDate = (Date) cursor.next().get(CREATED_DATE_FIELD);
+            return createdDate == null ? null : LocalDateTime.ofInstant(createdDate.toInstant(),
+                                                                        ZoneId.systemDefault());
+        }
+    }
+
+    /**
+     * The documents are converted and sent to the server in one bulk operation, instead of one insert per document.
+     * The same mapping events as in {@link MongoTemplate#insert} are published, so that auditing fills the creation
+     * date.
+     * <p>
+     * Duplicates are detected from the errors reported by the server, so with an unacknowledged write concern all the
+     * documents will be counted as inserted.
+     */
+    @Override
+    public BulkInsertResult<SubmittedVariantEntity> bulkInsert(List<SubmittedVariantEntity> documents,
+                                                               WriteConcern writeConcern) {
+        if (documents.isEmpty()) {
+            return new BulkInsertResult<>(0, Collections.emptyList());
+        }
+        String collectionName = mongoTemplate.getCollectionName(SubmittedVariantEntity.class);
+        DBCollection collection = mongoTemplate.getCollection(collectionName);
+        BulkWriteOperation bulkInsert = collection.initializeUnorderedBulkOperation();
+        List<DBObject> dbObjects = new ArrayList<>(documents.size());
+        for (SubmittedVariantEntity document : documents) {
+            publishEvent(new BeforeConvertEvent<>(document, collectionName));
+            DBObject dbObject = new BasicDBObject();
+            mongoTemplate.getConverter().write(document, dbObject);
+            publishEvent(new BeforeSaveEvent<>(document, dbObject, collectionName));
+            bulkInsert.insert(dbObject);
+            dbObjects.add(dbObject);
+        }
+
+        List<SubmittedVariantEntity> duplicatedDocuments = new ArrayList<>();
+        int insertedCount;
+        try {
+            BulkWriteResult result = writeConcern == null ? bulkInsert.execute() : bulkInsert.execute(writeConcern);
+            insertedCount = result.isAcknowledged() ? result.getInsertedCount() : documents.size();
+        } catch (BulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                    throw new BulkOperationException("Could not insert the submitted variants in " + collectionName,
+                                                     e);
+                }
+                duplicatedDocuments.add(documents.get(error.getIndex()));
+            }
+            if (e.getWriteConcernError() != null) {
+                throw new BulkOperationException("Could not insert the submitted variants in " + collectionName, e);
+            }
+            insertedCount = e.getWriteResult().getInsertedCount();
+        }
+
+        Set<SubmittedVariantEntity> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        duplicates.addAll(duplicatedDocuments);
+        for (int i = 0; i < documents.size(); i++) {
+            if (!duplicates.contains(documents.get(i))) {
+                publishEvent(new AfterSaveEvent<>(documents.get(i), dbObjects.get(i), collectionName));
+            }
+        }
+        return new BulkInsertResult<>(insertedCount, duplicatedDocuments);
+    }
+
+    /**
+     * Both the filter and the sort are covered by the compound index on assembly, contig, start and hash (see
+     * {@link SubmittedVariantEntity}), so each page reads only the index entries it returns.
+     */
+    @Override
+    public List<SubmittedVariantEntity> findByRegion(String assemblyAccession, String contig, long start, long end,
+                                                     Long afterStart, String afterHash, int limit) {
+        Criteria criteria = Criteria.where(ASSEMBLY_FIELD).is(assemblyAccession).and(CONTIG_FIELD).is(contig);
+        if (afterStart == null) {
+            criteria.and(START_FIELD).gte(start).lte(end);
+        } else {
+            criteria.and(START_FIELD).gte(Math.max(start, afterStart)).lte(end)
+                    .orOperator(Criteria.where(START_FIELD).gt(afterStart), Criteria.where(ID_FIELD).gt(afterHash));
+        }
+        Query query = new Query(criteria).with(new Sort(Sort.Direction.ASC, START_FIELD, ID_FIELD)).limit(limit);
+        return mongoTemplate.find(query, SubmittedVariantEntity.class);
+    }
+
+    @Override
+    public void dropSecondaryIndexes() {
+        mongoTemplate.indexOps(SubmittedVariantEntity.class).dropAllIndexes();
+    }
+
+    /**
+     * The indexes are resolved from the mapping annotations, the same way they are created when the entity is first
+     * mapped.
+     */
+    @Override
+    public void createIndexes() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        IndexOperations indexOperations = mongoTemplate.indexOps(SubmittedVariantEntity.class);
+        for (IndexDefinitionHolder index : indexResolver.resolveIndexForClass(SubmittedVariantEntity.class)) {
+            indexOperations.ensureIndex(index);
+        }
     }
 
+    private void publishEvent(ApplicationEvent event) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
 }
@@ -17,15 +17,28 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.mongodb.document.AccessionedDocument;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
 
 import java.util.Objects;
 
+/**
+ * The compound index on the coordinates serves the region queries. The hash (_id) is its last field so that the
+ * variants of a region can be paged by (start, hash) without sorting them in memory. It's built in the background,
+ * so creating it on an existing collection doesn't block the reads and writes of the accessioning.
+ * <p>
+ * The assembly, project and contig of the entities loaded from the database are interned with the
+ * {@link StringInterner} of the application (see {@link SubmittedVariantEntityInterningListener}). The entities
+ * created from a model share the instances of the model.
+ */
 @Document
+@CompoundIndex(name = "asm_contig_start", def = "{'asm': 1, 'contig': 1, 'start': 1, '_id': 1}",
+        background = true)
 public class SubmittedVariantEntity extends AccessionedDocument<Long> implements ISubmittedVariant {
 
     @Field("asm")
@@ -74,6 +87,12 @@ public class SubmittedVariantEntity extends AccessionedDocument<Long> implements
         this.supportedByEvidence = isSupportedByEvidence;
     }
 
+    void internFields(StringInterner interner) {
+        assemblyAccession = interner.intern(assemblyAccession);
+        projectAccession = interner.intern(projectAccession);
+        contig = interner.intern(contig);
+    }
+
     @Override
     public String getAssemblyAccession() {
         return assemblyAccession;
@@ -0,0 +1,41 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+
+/**
+ * Interns the low-cardinality fields of every {@link SubmittedVariantEntity} loaded from the database. The mapping
+ * converter sets the fields directly, so the constructors of the entity can't do it.
+ */
+public class SubmittedVariantEntityInterningListener extends AbstractMongoEventListener<SubmittedVariantEntity> {
+
+    private final StringInterner interner;
+
+    public SubmittedVariantEntityInterningListener(StringInterner interner) {
+        this.interner = interner;
+    }
+
+    @Override
+    public void onAfterConvert(AfterConvertEvent<SubmittedVariantEntity> event) {
+        event.getSource().internFields(interner);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of canonical instances of low-cardinality strings such as contigs, assemblies and projects, so that the
+ * millions of variants of a job share a few instances instead of holding a copy each.
+ * <p>
+ * Unlike {@link String#intern()}, the registry is bounded: once it holds the maximum number of values, new values are
+ * returned as they are. This keeps the memory used by the registry predictable if it's accidentally fed with
+ * high-cardinality values such as alleles. A registry with a maximum size of 0 doesn't register anything, which is how
+ * applications whose objects are short-lived disable it.
+ * <p>
+ * There is no shared instance: every application context has its own registry, which is given to the classes that
+ * create the variants in bulk.
+ * <p>
+ * This class is thread safe.
+ */
+public class StringInterner {
+
+    /**
+     * The registry is meant for a few assemblies and projects and the contigs of an assembly
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final ConcurrentMap<String, String> values;
+
+    private final int maxSize;
+
+    public StringInterner(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the interner can't be negative");
+        }
+        this.values = new ConcurrentHashMap<>();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the canonical instance equal to the given value, or the value itself if it's null, it's the first time
+     * it's seen or the registry is full
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return value;
+        }
+        String canonical = values.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        canonical = values.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * Registers the values in advance, for instance the contigs of a sequence dictionary, so that the first variants
+     * read already share them.
+     */
+    public void seed(Iterable<String> values) {
+        for (String value : values) {
+            intern(value);
+        }
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
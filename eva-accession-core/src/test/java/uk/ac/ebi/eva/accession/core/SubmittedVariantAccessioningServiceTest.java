@@ -31,17 +31,27 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
 import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
 
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.HashBloomFilter;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
 import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
 import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
@@ -49,6 +59,10 @@ import static org.junit.Assert.assertTrue;
 @ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
 public class SubmittedVariantAccessioningServiceTest {
 
+    private static final Long EXISTING_ACCESSION_1 = 900000000L;
+
+    private static final Long EXISTING_ACCESSION_2 = 900000001L;
+
     @Rule
     public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
             MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
@@ -56,6 +70,15 @@ public class SubmittedVariantAccessioningServiceTest {
     @Autowired
     private SubmittedVariantAccessioningService service;
 
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private SubmittedVariantInactiveService inactiveService;
+
+    @Autowired
+    private MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
     //Required by nosql-unit
     @Autowired
     private ApplicationContext applicationContext;
@@ -76,4 +99,88 @@ public class SubmittedVariantAccessioningServiceTest {
 
         assertEquals(new HashSet(generatedAccessions), new HashSet(retrievedAccessions));
     }
+
+    /**
+     * The hash filter of the database service is empty, so the lookup skips the variants already in the database and
+     * the bulk insert finds them as duplicates, like when another process inserts them at the same time.
+     */
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void existingAccessionsAreReturnedWhenTheBulkInsertFindsDuplicates()
+            throws AccessionCouldNotBeGeneratedException {
+        SubmittedVariant newVariant = new SubmittedVariant("assembly", 1111, "project", "contig_1", 100, "A", "T",
+                                                           true);
+        SubmittedVariant existingVariant1 = new SubmittedVariant("assembly", 1111, "project", "contig_1", 200, "A",
+                                                                 "C", true);
+        SubmittedVariant existingVariant2 = new SubmittedVariant("assembly", 1111, "project", "contig_1", 300, "G",
+                                                                 "T", true);
+        SubmittedVariantSummaryHashingFunction hashingFunction = new SubmittedVariantSummaryHashingFunction();
+        repository.save(Arrays.asList(
+                new SubmittedVariantEntity(EXISTING_ACCESSION_1, hashingFunction.apply(existingVariant1),
+                                           existingVariant1),
+                new SubmittedVariantEntity(EXISTING_ACCESSION_2, hashingFunction.apply(existingVariant2),
+                                           existingVariant2)));
+        SubmittedVariantAccessioningService serviceWithEmptyFilter = new SubmittedVariantAccessioningService(
+                accessionGenerator,
+                new SubmittedVariantAccessioningDatabaseService(repository, inactiveService,
+                                                                new HashBloomFilter(1000, 0.01)));
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = serviceWithEmptyFilter.getOrCreate(
+                Arrays.asList(newVariant, existingVariant1, existingVariant2));
+
+        Map<String, Long> accessionsByHash = new HashMap<>();
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accession : accessions) {
+            accessionsByHash.put(accession.getHash(), accession.getAccession());
+        }
+        assertEquals(3, accessionsByHash.size());
+        assertEquals(EXISTING_ACCESSION_1, accessionsByHash.get(hashingFunction.apply(existingVariant1)));
+        assertEquals(EXISTING_ACCESSION_2, accessionsByHash.get(hashingFunction.apply(existingVariant2)));
+        Long newAccession = accessionsByHash.get(hashingFunction.apply(newVariant));
+        assertEquals(newAccession, repository.findOne(hashingFunction.apply(newVariant)).getAccession());
+        assertEquals(3, repository.count());
+
+        // the accessions generated for the duplicated variants were released, so the next variants get them
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> nextAccessions = service.getOrCreate(Arrays.asList(
+                new SubmittedVariant("assembly", 1111, "project", "contig_2", 100, "A", "T", true),
+                new SubmittedVariant("assembly", 1111, "project", "contig_2", 200, "A", "C", true)));
+        Set<Long> nextAccessionValues = new HashSet<>();
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accession : nextAccessions) {
+            nextAccessionValues.add(accession.getAccession());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(newAccession + 1, newAccession + 2)), nextAccessionValues);
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void generatedAccessionsAreReleasedWhenTheInsertFails() throws AccessionCouldNotBeGeneratedException {
+        Set<Long> failedAccessions = new HashSet<>();
+        SubmittedVariantAccessioningService serviceWithFailingInsert = new SubmittedVariantAccessioningService(
+                accessionGenerator,
+                new SubmittedVariantAccessioningDatabaseService(repository, inactiveService) {
+                    @Override
+                    public void insert(List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions) {
+                        for (AccessionWrapper<ISubmittedVariant, String, Long> accession : accessions) {
+                            failedAccessions.add(accession.getAccession());
+                        }
+                        throw new IllegalStateException("Insert failed");
+                    }
+                });
+        List<SubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("assembly", 1111, "project", "contig_1", 100, "A", "T", true),
+                new SubmittedVariant("assembly", 1111, "project", "contig_1", 200, "A", "C", true));
+        try {
+            serviceWithFailingInsert.getOrCreate(variants);
+            fail("The insert should have failed");
+        } catch (IllegalStateException e) {
+            assertEquals(0, repository.count());
+        }
+
+        // the accessions generated for the failed insert were released, so the next variants get them
+        Set<Long> accessions = new HashSet<>();
+        for (AccessionWrapper<ISubmittedVariant, String, Long> accession : service.getOrCreate(variants)) {
+            accessions.add(accession.getAccession());
+        }
+        assertEquals(2, failedAccessions.size());
+        assertEquals(failedAccessions, accessions);
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantSummaryHashingFunctionTest {
+
+    private SubmittedVariantSummaryHashingFunction hashingFunction;
+
+    private SubmittedVariantModelSummaryFunction summaryFunction;
+
+    private SHA1HashingFunction sha1HashingFunction;
+
+    @Before
+    public void setUp() {
+        hashingFunction = new SubmittedVariantSummaryHashingFunction();
+        summaryFunction = new SubmittedVariantModelSummaryFunction();
+        sha1HashingFunction = new SHA1HashingFunction();
+    }
+
+    @Test
+    public void sameHashAsSummaryAndSha1() {
+        assertSameHash(new SubmittedVariant("GCA_000001405.1", 9606, "PRJEB12345", "22", 16050075, "A", "G", true));
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", 0, "", "T", false));
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", Long.MAX_VALUE, "A", "", true));
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", -15, "A", "C", true));
+    }
+
+    @Test
+    public void sameHashWithAllelesLongerThanTheBuffer() {
+        StringBuilder longAllele = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            longAllele.append("ACGT".charAt(i % 4));
+        }
+        assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", 100, longAllele.toString(), "A",
+                                            true));
+    }
+
+    @Test
+    public void sameHashFromSeveralThreads() throws Exception {
+        List<Callable<Void>> hashings = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int firstStart = thread;
+            hashings.add(() -> {
+                for (int start = firstStart; start < 10000; start += 8) {
+                    assertSameHash(new SubmittedVariant("assembly", 1, "project", "contig", start, "A", "T", true));
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(hashings.size());
+        for (Future<Void> result : executor.invokeAll(hashings)) {
+            result.get();
+        }
+        executor.shutdown();
+    }
+
+    private void assertSameHash(ISubmittedVariant variant) {
+        assertEquals(sha1HashingFunction.apply(summaryFunction.apply(variant)), hashingFunction.apply(variant));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.generators;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.entities.ContiguousIdBlock;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.ContiguousIdBlockService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentMonotonicAccessionGeneratorTest {
+
+    private static final String CATEGORY_ID = "test-ss";
+
+    private static final String INSTANCE_ID = "test-instance-01";
+
+    private static final long BLOCK_SIZE = 1000;
+
+    private static final int SUB_BLOCK_SIZE = 37;
+
+    private static final int THREADS = 32;
+
+    private static final int BATCHES_PER_THREAD = 200;
+
+    private static final int MAX_BATCH_SIZE = 50;
+
+    private ContiguousIdBlockService blockService;
+
+    private List<Long> releasedAccessions;
+
+    @Before
+    public void setUp() {
+        blockService = mock(ContiguousIdBlockService.class);
+        AtomicLong nextFirstValue = new AtomicLong(0);
+        when(blockService.reserveNewBlock(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            long size = (long) invocation.getArguments()[2];
+            return mockBlock(nextFirstValue.getAndAdd(size), size);
+        });
+        releasedAccessions = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private static ContiguousIdBlock mockBlock(long firstValue, long size) {
+        ContiguousIdBlock block = mock(ContiguousIdBlock.class);
+        when(block.getFirstValue()).thenReturn(firstValue);
+        when(block.getLastValue()).thenReturn(firstValue + size - 1);
+        when(block.getLastCommitted()).thenReturn(firstValue - 1);
+        return block;
+    }
+
+    private ConcurrentMonotonicAccessionGenerator<Object> createGenerator() {
+        return new ConcurrentMonotonicAccessionGenerator<Object>(BLOCK_SIZE, CATEGORY_ID, INSTANCE_ID, blockService,
+                                                                 SUB_BLOCK_SIZE) {
+            @Override
+            public synchronized void release(long... accessions) {
+                for (long accession : accessions) {
+                    releasedAccessions.add(accession);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void accessionsAreTakenFromTheSameSubBlock() throws AccessionCouldNotBeGeneratedException {
+        ConcurrentMonotonicAccessionGenerator<Object> generator = createGenerator();
+        long[] first = generator.generateAccessions(10);
+        long[] second = generator.generateAccessions(10);
+        long[] third = generator.generateAccessions(SUB_BLOCK_SIZE * 2);
+
+        assertEquals(0, first[0]);
+        assertEquals(10, second[0]);
+        assertEquals(SUB_BLOCK_SIZE * 2, third.length);
+        assertEquals(SUB_BLOCK_SIZE - 1, third[SUB_BLOCK_SIZE - 20 - 1]);
+    }
+
+    @Test
+    public void unusedAccessionsAreReleased() throws AccessionCouldNotBeGeneratedException {
+        ConcurrentMonotonicAccessionGenerator<Object> generator = createGenerator();
+        generator.generateAccessions(10);
+        generator.releaseUnusedAccessions();
+
+        assertEquals(SUB_BLOCK_SIZE - 10, releasedAccessions.size());
+        assertEquals(10L, (long) releasedAccessions.get(0));
+
+        generator.releaseUnusedAccessions();
+        assertEquals(SUB_BLOCK_SIZE - 10, releasedAccessions.size());
+    }
+
+    @Test
+    public void concurrentThreadsGetUniqueAccessionsAndNoneIsLost() throws Exception {
+        ConcurrentMonotonicAccessionGenerator<Object> generator = createGenerator();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long seed = thread;
+            results.add(executor.submit(generateBatches(generator, start, new Random(seed))));
+        }
+        start.countDown();
+        List<Long> generatedAccessions = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            generatedAccessions.addAll(result.get());
+        }
+        executor.shutdown();
+        generator.releaseUnusedAccessions();
+
+        boolean[] seen = new boolean[generatedAccessions.size() + releasedAccessions.size()];
+        for (long accession : generatedAccessions) {
+            assertFalse("Accession " + accession + " was generated twice", seen[(int) accession]);
+            seen[(int) accession] = true;
+        }
+        for (long accession : releasedAccessions) {
+            assertFalse("Accession " + accession + " was generated and released", seen[(int) accession]);
+            seen[(int) accession] = true;
+        }
+        for (int accession = 0; accession < seen.length; accession++) {
+            assertTrue("Accession " + accession + " was lost", seen[accession]);
+        }
+    }
+
+    private Callable<List<Long>> generateBatches(ConcurrentMonotonicAccessionGenerator<Object> generator,
+                                                 CountDownLatch start, Random random) {
+        return () -> {
+            start.await();
+            List<Long> accessions = new ArrayList<>();
+            for (int batch = 0; batch < BATCHES_PER_THREAD; batch++) {
+                for (long accession : generator.generateAccessions(1 + random.nextInt(MAX_BATCH_SIZE))) {
+                    accessions.add(accession);
+                }
+            }
+            return accessions;
+        };
+    }
+}
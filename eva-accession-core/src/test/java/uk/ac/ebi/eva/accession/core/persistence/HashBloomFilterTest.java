@@ -0,0 +1,120 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashBloomFilterTest {
+
+    private static final int EXPECTED_INSERTIONS = 100000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void addedHashesAreAlwaysFound() {
+        HashBloomFilter filter = new HashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+            filter.put("hash-" + i);
+        }
+        for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+            assertTrue(filter.mightContain("hash-" + i));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateIsCloseToTheConfiguredOne() {
+        HashBloomFilter filter = new HashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+            filter.put("hash-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = EXPECTED_INSERTIONS; i < 2 * EXPECTED_INSERTIONS; i++) {
+            if (filter.mightContain("hash-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2 * FALSE_POSITIVE_RATE * EXPECTED_INSERTIONS);
+    }
+
+    @Test
+    public void putReportsNewHashes() {
+        HashBloomFilter filter = new HashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+        assertFalse(filter.mightContain("hash"));
+        assertTrue(filter.put("hash"));
+        assertFalse(filter.put("hash"));
+        assertTrue(filter.mightContain("hash"));
+    }
+
+    @Test
+    public void snapshotContainsTheSameHashes() throws Exception {
+        HashBloomFilter filter = new HashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("hash-" + i);
+        }
+        Path snapshot = temporaryFolder.newFile().toPath();
+        filter.writeTo(snapshot, "1000 documents");
+
+        assertEquals("1000 documents", HashBloomFilter.readCollectionState(snapshot));
+        HashBloomFilter loadedFilter = HashBloomFilter.readFrom(snapshot);
+        for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+            assertEquals(filter.mightContain("hash-" + i), loadedFilter.mightContain("hash-" + i));
+        }
+    }
+
+    @Test
+    public void concurrentInsertionsAreNotLost() throws Exception {
+        HashBloomFilter filter = new HashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+        int threads = 8;
+        List<Callable<Void>> insertions = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int firstHash = thread;
+            insertions.add(() -> {
+                for (int i = firstHash; i < EXPECTED_INSERTIONS; i += threads) {
+                    filter.put("hash-" + i);
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (Future<Void> result : executor.invokeAll(insertions)) {
+            result.get();
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+            assertTrue(filter.mightContain("hash-" + i));
+        }
+    }
+}
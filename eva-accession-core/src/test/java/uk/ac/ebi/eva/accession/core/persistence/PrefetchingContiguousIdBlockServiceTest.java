@@ -0,0 +1,147 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.entities.ContiguousIdBlock;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.jpa.monotonic.service.ContiguousIdBlockService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrefetchingContiguousIdBlockServiceTest {
+
+    private static final String CATEGORY_ID = "test-ss";
+
+    private static final String INSTANCE_ID = "test-instance-01";
+
+    private static final long BLOCK_SIZE = 100;
+
+    private static final int PREFETCHED_BLOCKS = 3;
+
+    private static final int REFILL_THRESHOLD = 1;
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private ContiguousIdBlockService delegate;
+
+    private List<ContiguousIdBlock> reservedBlocks;
+
+    private PrefetchingContiguousIdBlockService service;
+
+    @Before
+    public void setUp() {
+        delegate = mock(ContiguousIdBlockService.class);
+        reservedBlocks = new ArrayList<>();
+        AtomicLong nextFirstValue = new AtomicLong(0);
+        when(delegate.reserveNewBlock(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            long size = (long) invocation.getArguments()[2];
+            ContiguousIdBlock block = mockBlock(nextFirstValue.getAndAdd(size), size);
+            synchronized (reservedBlocks) {
+                reservedBlocks.add(block);
+            }
+            return block;
+        });
+        service = new PrefetchingContiguousIdBlockService(delegate, CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE,
+                                                          PREFETCHED_BLOCKS, REFILL_THRESHOLD);
+    }
+
+    private static ContiguousIdBlock mockBlock(long firstValue, long size) {
+        ContiguousIdBlock block = mock(ContiguousIdBlock.class);
+        when(block.getFirstValue()).thenReturn(firstValue);
+        when(block.getLastValue()).thenReturn(firstValue + size - 1);
+        return block;
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        service.shutDown();
+    }
+
+    private void waitForReadyBlocks(int blocks) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (service.getReadyBlockCount() < blocks && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(blocks, service.getReadyBlockCount());
+    }
+
+    @Test
+    public void blocksAreHandedOutInOrderAndPrefetched() throws InterruptedException {
+        ContiguousIdBlock first = service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE);
+        assertEquals(0, first.getFirstValue());
+        waitForReadyBlocks(PREFETCHED_BLOCKS);
+
+        for (int i = 1; i <= 10; i++) {
+            ContiguousIdBlock block = service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE);
+            assertEquals(i * BLOCK_SIZE, block.getFirstValue());
+        }
+    }
+
+    @Test
+    public void otherCategoriesAreNotPrefetched() {
+        service.reserveNewBlock("other-category", INSTANCE_ID, BLOCK_SIZE);
+        service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE * 2);
+
+        assertEquals(0, service.getReadyBlockCount());
+        assertEquals(2, reservedBlocks.size());
+    }
+
+    @Test
+    public void readyBlocksAreNotReportedAsUncompleted() throws InterruptedException {
+        service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE);
+        waitForReadyBlocks(PREFETCHED_BLOCKS);
+        synchronized (reservedBlocks) {
+            when(delegate.getUncompletedBlocksByCategoryIdAndApplicationInstanceIdOrderByEndAsc(CATEGORY_ID,
+                                                                                               INSTANCE_ID))
+                    .thenReturn(new ArrayList<>(reservedBlocks));
+        }
+
+        List<ContiguousIdBlock> uncompletedBlocks =
+                service.getUncompletedBlocksByCategoryIdAndApplicationInstanceIdOrderByEndAsc(CATEGORY_ID,
+                                                                                             INSTANCE_ID);
+
+        assertEquals(1, uncompletedBlocks.size());
+        assertEquals(0, uncompletedBlocks.get(0).getFirstValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noBlocksAreReservedAfterShuttingDown() throws InterruptedException {
+        service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE);
+        service.shutDown();
+
+        assertEquals(0, service.getReadyBlockCount());
+        assertTrue(reservedBlocks.size() <= 1 + PREFETCHED_BLOCKS);
+        service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refillThresholdMustBeLessThanThePrefetchedBlocks() {
+        new PrefetchingContiguousIdBlockService(delegate, CATEGORY_ID, INSTANCE_ID, BLOCK_SIZE, 2, 2);
+    }
+}
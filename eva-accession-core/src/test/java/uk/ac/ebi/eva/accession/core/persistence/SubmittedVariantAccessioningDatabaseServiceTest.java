@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.service.SubmittedVariantInactiveService;
+import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource("classpath:ss-accession-test.properties")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+public class SubmittedVariantAccessioningDatabaseServiceTest {
+
+    @Rule
+    public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
+            MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantInactiveService inactiveService;
+
+    //Required by nosql-unit
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Before
+    public void setUp() {
+        List<SubmittedVariantEntity> entities = new ArrayList<>();
+        for (long accession = 100; accession < 110; accession++) {
+            entities.add(createEntity(accession));
+        }
+        for (long accession = 200; accession < 205; accession++) {
+            entities.add(createEntity(accession));
+        }
+        entities.add(createEntity(300));
+        repository.save(entities);
+    }
+
+    private SubmittedVariantEntity createEntity(long accession) {
+        return new SubmittedVariantEntity(accession, "hash-" + accession, "assembly", 1111, "project", "contig",
+                                          accession, "A", "T", true, 1);
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void getAccessionsInSingleRange() {
+        long[] accessions = databaseService.getAccessionsInRanges(
+                Collections.singletonList(new MonotonicRange(105, 202)));
+        assertArrayEquals(new long[]{105, 106, 107, 108, 109, 200, 201, 202}, accessions);
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void getAccessionsInSeveralRanges() {
+        long[] accessions = databaseService.getAccessionsInRanges(
+                Arrays.asList(new MonotonicRange(300, 399), new MonotonicRange(100, 102)));
+        assertArrayEquals(new long[]{100, 101, 102, 300}, accessions);
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void getAccessionsInRangeWithoutAccessions() {
+        long[] accessions = databaseService.getAccessionsInRanges(
+                Collections.singletonList(new MonotonicRange(110, 199)));
+        assertArrayEquals(new long[0], accessions);
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void getAccessionsWithoutRanges() {
+        assertArrayEquals(new long[0], databaseService.getAccessionsInRanges(Collections.emptyList()));
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void findHashesWithFilterBuiltFromDatabase() {
+        HashBloomFilter hashFilter = new HashBloomFilter(1000, 0.01);
+        repository.findAllHashes(hashFilter::put);
+        SubmittedVariantAccessioningDatabaseService filteredDatabaseService =
+                new SubmittedVariantAccessioningDatabaseService(repository, inactiveService, hashFilter);
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions =
+                filteredDatabaseService.findAllAccessionsByHash(Arrays.asList("hash-100", "hash-300", "hash-400"));
+
+        assertEquals(2, accessions.size());
+        assertFalse(hashFilter.mightContain("hash-400"));
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void hashesNotInFilterAreNotFound() {
+        HashBloomFilter emptyHashFilter = new HashBloomFilter(1000, 0.01);
+        SubmittedVariantAccessioningDatabaseService filteredDatabaseService =
+                new SubmittedVariantAccessioningDatabaseService(repository, inactiveService, emptyHashFilter);
+
+        assertEquals(0, filteredDatabaseService.findAllAccessionsByHash(Collections.singletonList("hash-100")).size());
+        assertEquals(0, filteredDatabaseService.findAllAccessionsByHash(Collections.singletonList("hash-100")).size());
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void hashesAreAddedToTheFilterAfterInsertingThem() {
+        HashBloomFilter emptyHashFilter = new HashBloomFilter(1000, 0.01);
+        SubmittedVariantAccessioningDatabaseService filteredDatabaseService =
+                new SubmittedVariantAccessioningDatabaseService(repository, inactiveService, emptyHashFilter);
+
+        try {
+            filteredDatabaseService.insert(Arrays.asList(createWrapper(100), createWrapper(400)));
+            fail("The duplicated hash should have been reported");
+        } catch (DuplicateSubmittedVariantsException exception) {
+            assertEquals(Collections.singletonList("hash-100"), exception.getDuplicatedHashes());
+        }
+
+        // the lookup of the existing accession of a duplicated variant is not skipped
+        assertEquals(2, filteredDatabaseService.findAllAccessionsByHash(Arrays.asList("hash-100", "hash-400"))
+                                               .size());
+        assertEquals(1, filteredDatabaseService.getInsertedCount());
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void insertNewVariants() {
+        databaseService.insert(Arrays.asList(createWrapper(400), createWrapper(401)));
+
+        assertEquals(18, repository.count());
+        SubmittedVariantEntity insertedEntity = repository.findOne("hash-400");
+        assertEquals(400L, insertedEntity.getAccession().longValue());
+        assertNotNull(insertedEntity.getCreatedDate());
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void insertReportsDuplicatedHashesAndInsertsTheRest() {
+        try {
+            databaseService.insert(Arrays.asList(createWrapper(100), createWrapper(400), createWrapper(300)));
+            fail("The duplicated hashes should have been reported");
+        } catch (DuplicateSubmittedVariantsException exception) {
+            assertEquals(Arrays.asList("hash-100", "hash-300"), exception.getDuplicatedHashes());
+        }
+
+        assertEquals(17, repository.count());
+        assertNotNull(repository.findOne("hash-400"));
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void findByRegion() {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> variants = databaseService.findByRegion(
+                "assembly", "contig", 105, 202, null, null, 100);
+        assertEquals(Arrays.asList(105L, 106L, 107L, 108L, 109L, 200L, 201L, 202L), getAccessions(variants));
+    }
+
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void findByRegionInPages() {
+        repository.save(Arrays.asList(
+                new SubmittedVariantEntity(500L, "hash-500", "assembly", 1111, "project", "contig", 201, "A", "G",
+                                           true, 1),
+                new SubmittedVariantEntity(501L, "hash-501", "assembly", 1111, "project", "otherContig", 201, "A",
+                                           "G", true, 1)));
+
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> firstPage = databaseService.findByRegion(
+                "assembly", "contig", 109, 300, null, null, 3);
+        assertEquals(Arrays.asList(109L, 200L, 201L), getAccessions(firstPage));
+
+        AccessionWrapper<ISubmittedVariant, String, Long> lastVariant = firstPage.get(2);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> secondPage = databaseService.findByRegion(
+                "assembly", "contig", 109, 300, lastVariant.getData().getStart(), lastVariant.getHash(), 3);
+        assertEquals(Arrays.asList(500L, 202L, 203L), getAccessions(secondPage));
+    }
+
+    private List<Long> getAccessions(List<AccessionWrapper<ISubmittedVariant, String, Long>> variants) {
+        List<Long> accessions = new ArrayList<>();
+        for (AccessionWrapper<ISubmittedVariant, String, Long> variant : variants) {
+            accessions.add(variant.getAccession());
+        }
+        return accessions;
+    }
+
+    private AccessionWrapper<ISubmittedVariant, String, Long> createWrapper(long accession) {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", 1111, "project", "contig", accession, "A", "T",
+                                                         true);
+        return new AccessionWrapper<>(accession, "hash-" + accession, variant);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbConfigurationBuilder;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import com.mongodb.BasicDBObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.accession.core.test.rule.FixSpringMongoDbRule;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource("classpath:ss-accession-test.properties")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+public class SubmittedVariantEntityInterningListenerTest {
+
+    private static final String HASH = "hash-100";
+
+    private static final String ASSEMBLY = "assembly";
+
+    private static final String PROJECT = "project";
+
+    private static final String CONTIG = "contig";
+
+    @Rule
+    public MongoDbRule mongoDbRule = new FixSpringMongoDbRule(
+            MongoDbConfigurationBuilder.mongoDb().databaseName("submitted-variants-test").build());
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StringInterner interner;
+
+    //Required by nosql-unit
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /**
+     * The fields are overwritten in the database with new instances, so the ones read back are only the canonical
+     * instances if the entity is interned after being loaded.
+     */
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    @Test
+    public void entitiesLoadedFromTheDatabaseAreInterned() {
+        repository.save(new SubmittedVariantEntity(100L, HASH, ASSEMBLY, 1111, PROJECT, CONTIG, 100, "A", "T", true,
+                                                   1));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(SubmittedVariantEntity.class)).update(
+                new BasicDBObject("_id", HASH),
+                new BasicDBObject("$set", new BasicDBObject("asm", new String(ASSEMBLY))
+                        .append("study", new String(PROJECT))
+                        .append("contig", new String(CONTIG))));
+
+        SubmittedVariantEntity entity = repository.findOne(HASH);
+
+        assertEquals(CONTIG, entity.getContig());
+        assertSame(interner.intern(ASSEMBLY), entity.getAssemblyAccession());
+        assertSame(interner.intern(PROJECT), entity.getProjectAccession());
+        assertSame(interner.intern(CONTIG), entity.getContig());
+    }
+}
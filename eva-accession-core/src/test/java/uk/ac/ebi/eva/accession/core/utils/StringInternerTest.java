@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringInternerTest {
+
+    @Test
+    public void equalValuesShareTheFirstInstance() {
+        StringInterner interner = new StringInterner(10);
+        String first = new String("chr1");
+        String second = new String("chr1");
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void seededValuesAreReused() {
+        StringInterner interner = new StringInterner(10);
+        String seeded = new String("chr2");
+        interner.seed(Arrays.asList("chr1", seeded));
+
+        assertSame(seeded, interner.intern(new String("chr2")));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void newValuesAreNotRegisteredWhenFull() {
+        StringInterner interner = new StringInterner(1);
+        String registered = interner.intern(new String("chr1"));
+        String notRegistered = new String("chr2");
+
+        assertSame(notRegistered, interner.intern(notRegistered));
+        assertNotSame(notRegistered, interner.intern(new String("chr2")));
+        assertSame(registered, interner.intern(new String("chr1")));
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    public void nullIsNotRegistered() {
+        StringInterner interner = new StringInterner(10);
+        assertNull(interner.intern(null));
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void internerWithoutRoomReturnsValuesAsTheyAre() {
+        StringInterner interner = new StringInterner(0);
+        interner.intern(new String("chr1"));
+        String value = new String("chr1");
+
+        assertSame(value, interner.intern(value));
+        assertEquals(0, interner.size());
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration;
+
+public class BeanNames {
+
+    public static final String PARTITION_SUBSNP_READER = "PARTITION_SUBSNP_READER";
+
+    public static final String DBSNP_VARIANT_WRITER = "DBSNP_VARIANT_WRITER";
+
+    public static final String IMPORT_DBSNP_VARIANTS_STEP = "IMPORT_DBSNP_VARIANTS_STEP";
+
+    public static final String IMPORT_DBSNP_VARIANTS_PARTITION_STEP = "IMPORT_DBSNP_VARIANTS_PARTITION_STEP";
+
+    public static final String IMPORT_DBSNP_VARIANTS_JOB = "IMPORT_DBSNP_VARIANTS_JOB";
+}
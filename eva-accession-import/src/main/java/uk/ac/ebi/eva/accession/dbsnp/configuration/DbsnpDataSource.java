@@ -15,8 +15,10 @@
  */
 package uk.ac.ebi.eva.accession.dbsnp.configuration;
 
+import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -24,8 +26,17 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
+/**
+ * Connection to the dbSNP mirror.
+ * <p>
+ * By default the connections are taken from a bounded pool, so that several readers can query the mirror without
+ * opening a new physical connection each time, and without exceeding the connection limit of the server. The pool is
+ * created on the first call to {@link #getDatasource()} and shared by all the callers; the pool size, validation and
+ * statement caching are configured with the dbsnp.datasource.pool.* properties. Setting dbsnp.datasource.pooled=false
+ * goes back to opening a new connection every time one is requested.
+ */
 @ConfigurationProperties(prefix = "dbsnp.datasource")
-public class DbsnpDataSource implements InitializingBean {
+public class DbsnpDataSource implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(DbsnpDataSource.class);
 
@@ -38,18 +49,66 @@ public class DbsnpDataSource implements InitializingBean {
 
     private String password;
 
+    private boolean pooled = true;
+
+    private Pool pool = new Pool();
+
+    private org.apache.tomcat.jdbc.pool.DataSource pooledDataSource;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         logger.debug("Properties were set to: {}", this);
     }
 
-    public DataSource getDatasource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driverClassName);
-        dataSource.setUrl(url);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        return dataSource;
+    public synchronized DataSource getDatasource() {
+        if (!pooled) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource();
+            dataSource.setDriverClassName(driverClassName);
+            dataSource.setUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            return dataSource;
+        }
+        if (pooledDataSource == null) {
+            pooledDataSource = new org.apache.tomcat.jdbc.pool.DataSource(buildPoolProperties());
+        }
+        return pooledDataSource;
+    }
+
+    private PoolProperties buildPoolProperties() {
+        PoolProperties poolProperties = new PoolProperties();
+        poolProperties.setName("dbsnp");
+        poolProperties.setDriverClassName(driverClassName);
+        poolProperties.setUrl(url);
+        poolProperties.setUsername(username);
+        poolProperties.setPassword(password);
+        poolProperties.setMaxActive(pool.getMaxActive());
+        poolProperties.setMaxIdle(pool.getMaxActive());
+        poolProperties.setInitialSize(Math.min(pool.getMinIdle(), pool.getMaxActive()));
+        poolProperties.setMinIdle(Math.min(pool.getMinIdle(), pool.getMaxActive()));
+        poolProperties.setMaxWait(pool.getMaxWait());
+        poolProperties.setValidationQuery(pool.getValidationQuery());
+        poolProperties.setValidationInterval(pool.getValidationInterval());
+        poolProperties.setTestOnBorrow(pool.getValidationQuery() != null);
+        poolProperties.setTestWhileIdle(pool.getValidationQuery() != null);
+        // the cursor readers disable the auto-commit of their connections, so it must be restored when a connection
+        // is borrowed again, and their transactions must not be left open while the connection is idle in the pool
+        poolProperties.setDefaultAutoCommit(true);
+        poolProperties.setRollbackOnReturn(true);
+        String interceptors = "ConnectionState";
+        if (pool.getStatementCacheSize() > 0) {
+            interceptors += ";StatementCache(prepared=true,callable=false,max=" + pool.getStatementCacheSize() + ")";
+        }
+        poolProperties.setJdbcInterceptors(interceptors);
+        return poolProperties;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (pooledDataSource != null) {
+            pooledDataSource.close();
+            pooledDataSource = null;
+        }
     }
 
     public String getUrl() {
@@ -84,11 +143,123 @@ public class DbsnpDataSource implements InitializingBean {
         this.password = password;
     }
 
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
     @Override
     public String toString() {
         return "DbsnpDatasource{" +
                 "url='" + url + '\'' +
                 ", driverClassName='" + driverClassName + '\'' +
+                ", pooled=" + pooled +
+                ", pool=" + pool +
                 '}';
     }
+
+    public static class Pool {
+
+        /**
+         * Maximum number of connections open at the same time. When all of them are in use, the callers wait. The
+         * import runs at most this number of partitions, as each of them keeps a connection while it is reading.
+         */
+        private int maxActive = 8;
+
+        /**
+         * Number of connections kept open when the pool is idle
+         */
+        private int minIdle = 1;
+
+        /**
+         * Maximum time in milliseconds to wait for a free connection before failing
+         */
+        private int maxWait = 30000;
+
+        /**
+         * Query to check that a connection is still usable before handing it out, or null to skip the check
+         */
+        private String validationQuery = "SELECT 1";
+
+        /**
+         * Minimum time in milliseconds between validations of the same connection
+         */
+        private long validationInterval = 30000;
+
+        /**
+         * Maximum number of prepared statements cached across all the connections, or 0 to disable the cache
+         */
+        private int statementCacheSize = 50;
+
+        public int getMaxActive() {
+            return maxActive;
+        }
+
+        public void setMaxActive(int maxActive) {
+            this.maxActive = maxActive;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(int maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public String getValidationQuery() {
+            return validationQuery;
+        }
+
+        public void setValidationQuery(String validationQuery) {
+            this.validationQuery = validationQuery;
+        }
+
+        public long getValidationInterval() {
+            return validationInterval;
+        }
+
+        public void setValidationInterval(long validationInterval) {
+            this.validationInterval = validationInterval;
+        }
+
+        public int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+
+        public void setStatementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Pool{" +
+                    "maxActive=" + maxActive +
+                    ", minIdle=" + minIdle +
+                    ", maxWait=" + maxWait +
+                    ", validationQuery='" + validationQuery + '\'' +
+                    ", validationInterval=" + validationInterval +
+                    ", statementCacheSize=" + statementCacheSize +
+                    '}';
+        }
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration;
+
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.dbsnp.io.BatchesSubSnpNoHgvsReader;
+import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.dbsnp.steps.partitioners.DbsnpBatchPartitioner;
+
+import java.util.List;
+
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.PARTITION_SUBSNP_READER;
+
+@Configuration
+@Import(InputParametersConfiguration.class)
+@EnableConfigurationProperties(DbsnpDataSource.class)
+public class SubSnpNoHgvsReaderConfiguration {
+
+    /**
+     * Reader for a partition of the dbSNP batches, as created by {@link DbsnpBatchPartitioner}.
+     */
+    @Bean(PARTITION_SUBSNP_READER)
+    @StepScope
+    public BatchesSubSnpNoHgvsReader partitionSubSnpNoHgvsReader(
+            @Value("#{stepExecutionContext['" + DbsnpBatchPartitioner.BATCHES_KEY + "']}") List<Integer> batches,
+            InputParameters inputParameters, DbsnpDataSource dbsnpDataSource) {
+        return new BatchesSubSnpNoHgvsReader(batches, inputParameters.getAssemblyName(),
+                                             dbsnpDataSource.getDatasource(), inputParameters.getPageSize(),
+                                             inputParameters.isPagingReader());
+    }
+}
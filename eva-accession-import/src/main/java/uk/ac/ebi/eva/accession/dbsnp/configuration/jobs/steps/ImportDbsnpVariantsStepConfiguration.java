@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration.jobs.steps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.DbsnpDataSource;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.SubSnpNoHgvsReaderConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+import uk.ac.ebi.eva.accession.dbsnp.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.dbsnp.steps.partitioners.DbsnpBatchPartitioner;
+
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_WRITER;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PARTITION_STEP;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_STEP;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.PARTITION_SUBSNP_READER;
+
+/**
+ * Imports the submitted variants of an assembly in parallel: the dbSNP batches are split by
+ * {@link DbsnpBatchPartitioner} and each partition is read in its own thread, with its own cursor.
+ * <p>
+ * Every partition is a separate step execution in the job repository, which also keeps the batches already completed
+ * in each of them. When the job is restarted, the partitions that finished are not run again, and the ones that
+ * failed only read the batches they didn't complete.
+ * <p>
+ * Each partition keeps a connection of the dbSNP pool open while its cursor is being read, so no more partitions than
+ * dbsnp.datasource.pool.max-active are run, even if more are requested. Otherwise the extra partitions would wait for a
+ * connection and fail once dbsnp.datasource.pool.max-wait is exceeded.
+ * <p>
+ * The variants are written by the {@link ItemWriter} named {@link BeanNames#DBSNP_VARIANT_WRITER}, which is not defined
+ * in this configuration: it must be provided by the context that runs the job.
+ */
+@Configuration
+@EnableBatchProcessing
+@Import(SubSnpNoHgvsReaderConfiguration.class)
+public class ImportDbsnpVariantsStepConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportDbsnpVariantsStepConfiguration.class);
+
+    private static final String PARTITION_THREAD_NAME_PREFIX = "dbsnp-import-partition-";
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    @Autowired
+    private DbsnpDataSource dbsnpDataSource;
+
+    @Autowired
+    @Qualifier(PARTITION_SUBSNP_READER)
+    private ItemStreamReader<SubSnpNoHgvs> partitionSubSnpReader;
+
+    @Autowired
+    @Qualifier(DBSNP_VARIANT_WRITER)
+    private ItemWriter<SubSnpNoHgvs> dbsnpVariantWriter;
+
+    @Bean(IMPORT_DBSNP_VARIANTS_STEP)
+    public Step importDbsnpVariantsStep(StepBuilderFactory stepBuilderFactory) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(PARTITION_THREAD_NAME_PREFIX);
+        taskExecutor.setConcurrencyLimit(getMaxPartitions());
+
+        DbsnpBatchPartitioner partitioner = new DbsnpBatchPartitioner(inputParameters.getAssemblyName(),
+                                                                      dbsnpDataSource.getDatasource());
+        return stepBuilderFactory.get(IMPORT_DBSNP_VARIANTS_STEP)
+                                 .partitioner(IMPORT_DBSNP_VARIANTS_PARTITION_STEP, partitioner)
+                                 .step(importDbsnpVariantsPartitionStep(stepBuilderFactory))
+                                 .gridSize(getMaxPartitions())
+                                 .taskExecutor(taskExecutor)
+                                 .build();
+    }
+
+    @Bean(IMPORT_DBSNP_VARIANTS_PARTITION_STEP)
+    public Step importDbsnpVariantsPartitionStep(StepBuilderFactory stepBuilderFactory) {
+        return stepBuilderFactory.get(IMPORT_DBSNP_VARIANTS_PARTITION_STEP)
+                                 .<SubSnpNoHgvs, SubSnpNoHgvs>chunk(inputParameters.getChunkSize())
+                                 .reader(partitionSubSnpReader)
+                                 .writer(dbsnpVariantWriter)
+                                 .build();
+    }
+
+    private int getMaxPartitions() {
+        int partitions = Math.max(1, inputParameters.getPartitions());
+        if (dbsnpDataSource.isPooled() && partitions > dbsnpDataSource.getPool().getMaxActive()) {
+            int maxActive = dbsnpDataSource.getPool().getMaxActive();
+            logger.warn("Using {} partitions instead of {}, as there are only {} connections to dbSNP, see " +
+                                "dbsnp.datasource.pool.max-active", maxActive, partitions, maxActive);
+            return maxActive;
+        }
+        return partitions;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Reads the submitted variants of several dbSNP batches, one after the other, opening a {@link SubSnpNoHgvsReader}
+ * (and its own cursor) or a {@link SubSnpNoHgvsPagingReader} for each batch.
+ * <p>
+ * The batches that have been read completely are saved in the execution context, so that when a failed step is
+ * restarted only the batches that were not completed are read again. A batch that was being read when the step failed
+ * is read again from the beginning with the cursor reader, and from the last variant written with the paging reader.
+ */
+public class BatchesSubSnpNoHgvsReader implements ItemStreamReader<SubSnpNoHgvs> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchesSubSnpNoHgvsReader.class);
+
+    public static final String COMPLETED_BATCHES_KEY = "completedBatches";
+
+    public static final String CURRENT_BATCH_KEY = "currentBatch";
+
+    private final List<Integer> batches;
+
+    private final String assembly;
+
+    private final DataSource dataSource;
+
+    private final int pageSize;
+
+    private final boolean paging;
+
+    private Deque<Integer> pendingBatches;
+
+    private ArrayList<Integer> completedBatches;
+
+    private Integer currentBatch;
+
+    private ItemStreamReader<SubSnpNoHgvs> currentReader;
+
+    private ExecutionContext restartedBatchContext;
+
+    public BatchesSubSnpNoHgvsReader(List<Integer> batches, String assembly, DataSource dataSource, int pageSize) {
+        this(batches, assembly, dataSource, pageSize, false);
+    }
+
+    /**
+     * @param paging whether to read each batch in pages with a {@link SubSnpNoHgvsPagingReader}, instead of with a
+     * single cursor
+     */
+    public BatchesSubSnpNoHgvsReader(List<Integer> batches, String assembly, DataSource dataSource, int pageSize,
+                                     boolean paging) {
+        this.batches = batches;
+        this.assembly = assembly;
+        this.dataSource = dataSource;
+        this.pageSize = pageSize;
+        this.paging = paging;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        completedBatches = new ArrayList<>();
+        if (executionContext.containsKey(COMPLETED_BATCHES_KEY)) {
+            completedBatches.addAll((List<Integer>) executionContext.get(COMPLETED_BATCHES_KEY));
+            logger.info("Skipping batches {}, already imported in a previous execution", completedBatches);
+        }
+        restartedBatchContext = executionContext.containsKey(CURRENT_BATCH_KEY) ? executionContext : null;
+        pendingBatches = new ArrayDeque<>();
+        for (Integer batch : batches) {
+            if (!completedBatches.contains(batch)) {
+                pendingBatches.add(batch);
+            }
+        }
+    }
+
+    @Override
+    public SubSnpNoHgvs read() throws Exception {
+        while (true) {
+            if (currentReader == null) {
+                if (pendingBatches.isEmpty()) {
+                    return null;
+                }
+                openNextBatch();
+            }
+            SubSnpNoHgvs variant = currentReader.read();
+            if (variant != null) {
+                return variant;
+            }
+            currentReader.close();
+            currentReader = null;
+            completedBatches.add(currentBatch);
+            logger.info("Batch {} of assembly {} read", currentBatch, assembly);
+        }
+    }
+
+    private void openNextBatch() throws Exception {
+        currentBatch = pendingBatches.poll();
+        logger.debug("Reading batch {} of assembly {}", currentBatch, assembly);
+        ExecutionContext batchContext = new ExecutionContext();
+        if (restartedBatchContext != null && currentBatch.equals(restartedBatchContext.get(CURRENT_BATCH_KEY))) {
+            batchContext = restartedBatchContext;
+        }
+        restartedBatchContext = null;
+
+        if (paging) {
+            currentReader = new SubSnpNoHgvsPagingReader(currentBatch, assembly, dataSource, pageSize);
+        } else {
+            SubSnpNoHgvsReader cursorReader = new SubSnpNoHgvsReader(currentBatch, assembly, dataSource, pageSize);
+            cursorReader.setSaveState(false);
+            cursorReader.afterPropertiesSet();
+            currentReader = cursorReader;
+        }
+        currentReader.open(batchContext);
+    }
+
+    /**
+     * This is called after writing each chunk, so all the variants of the batches completed so far have been written.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.put(COMPLETED_BATCHES_KEY, new ArrayList<>(completedBatches));
+        if (currentReader != null) {
+            executionContext.put(CURRENT_BATCH_KEY, currentBatch);
+            currentReader.update(executionContext);
+        } else {
+            executionContext.remove(CURRENT_BATCH_KEY);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (currentReader != null) {
+            currentReader.close();
+            currentReader = null;
+        }
+    }
+
+    public List<Integer> getCompletedBatches() {
+        return completedBatches;
+    }
+}
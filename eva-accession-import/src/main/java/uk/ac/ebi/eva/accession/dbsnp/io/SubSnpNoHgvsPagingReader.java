@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ClassUtils;
+
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the same variants as {@link SubSnpNoHgvsReader}, but in pages instead of with a single cursor.
+ * <p>
+ * The rows of the batch are walked in order of the load_order column, and every page is a separate query that starts
+ * after the last load_order read ({@code WHERE batch_id = ? AND load_order > ? ORDER BY load_order LIMIT n}). Each
+ * query runs in its own short transaction, so the reader doesn't keep a snapshot of the database open while the whole
+ * batch is processed. The last load_order read is saved in the execution context, so that a restarted step continues
+ * exactly after the last variant written.
+ */
+public class SubSnpNoHgvsPagingReader extends ItemStreamSupport implements ItemStreamReader<SubSnpNoHgvs> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubSnpNoHgvsPagingReader.class);
+
+    public static final String LOAD_ORDER_COLUMN = "load_order";
+
+    public static final String LAST_LOAD_ORDER_KEY = "lastLoadOrder";
+
+    /**
+     * load_order is a serial column, so all the values are greater than this
+     */
+    private static final long BEFORE_FIRST_LOAD_ORDER = 0;
+
+    private final int batch;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int pageSize;
+
+    private final String sql;
+
+    private final SubSnpNoHgvsRowMapper variantRowMapper;
+
+    private List<KeyedVariant> page;
+
+    private int nextInPage;
+
+    private boolean isLastPage;
+
+    private long lastLoadOrder;
+
+    public SubSnpNoHgvsPagingReader(int batch, String assembly, DataSource dataSource, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be a positive number");
+        }
+        this.batch = batch;
+        this.pageSize = pageSize;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(pageSize);
+        this.sql = buildSql(assembly, pageSize);
+        this.variantRowMapper = new SubSnpNoHgvsRowMapper(assembly);
+        setName(ClassUtils.getShortName(SubSnpNoHgvsPagingReader.class));
+    }
+
+    private static String buildSql(String assembly, int pageSize) {
+        return "SELECT " + LOAD_ORDER_COLUMN + "," + SubSnpNoHgvsReader.buildColumnList() +
+                " FROM " + SubSnpNoHgvsReader.getTableName(assembly) +
+                " WHERE batch_id = ? AND " + LOAD_ORDER_COLUMN + " > ?" +
+                " ORDER BY " + LOAD_ORDER_COLUMN +
+                " LIMIT " + pageSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        String lastLoadOrderKey = getExecutionContextKey(LAST_LOAD_ORDER_KEY);
+        if (executionContext.containsKey(lastLoadOrderKey)) {
+            lastLoadOrder = executionContext.getLong(lastLoadOrderKey);
+            logger.info("Resuming batch {} after load_order {}", batch, lastLoadOrder);
+        } else {
+            lastLoadOrder = BEFORE_FIRST_LOAD_ORDER;
+        }
+        page = Collections.emptyList();
+        nextInPage = 0;
+        isLastPage = false;
+    }
+
+    @Override
+    public SubSnpNoHgvs read() {
+        if (nextInPage == page.size()) {
+            if (isLastPage) {
+                return null;
+            }
+            readPage();
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+        KeyedVariant keyedVariant = page.get(nextInPage++);
+        lastLoadOrder = keyedVariant.loadOrder;
+        return keyedVariant.variant;
+    }
+
+    private void readPage() {
+        page = jdbcTemplate.query(sql, (resultSet, rowNum) -> new KeyedVariant(
+                resultSet.getLong(LOAD_ORDER_COLUMN), variantRowMapper.mapRow(resultSet, rowNum)), batch, lastLoadOrder);
+        nextInPage = 0;
+        isLastPage = page.size() < pageSize;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(getExecutionContextKey(LAST_LOAD_ORDER_KEY), lastLoadOrder);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        page = Collections.emptyList();
+        nextInPage = 0;
+    }
+
+    private static class KeyedVariant {
+
+        private final long loadOrder;
+
+        private final SubSnpNoHgvs variant;
+
+        KeyedVariant(long loadOrder, SubSnpNoHgvs variant) {
+            this.loadOrder = loadOrder;
+            this.variant = variant;
+        }
+    }
+}
@@ -68,33 +68,42 @@ public class SubSnpNoHgvsReader extends JdbcCursorItemReader<SubSnpNoHgvs> {
         super.openCursor(connection);
     }
 
+    /**
+     * @return name of the table of the dbSNP mirror that contains the submitted variants of an assembly
+     */
+    public static String getTableName(String assembly) {
+        return "dbsnp_variant_load_nohgvslink_" + hash(assembly);
+    }
+
     private String buildSql(String assembly) {
-        String tableName = "dbsnp_variant_load_nohgvslink_" + hash(assembly);
+        String tableName = getTableName(assembly);
         logger.debug("querying table {} for assembly {}", tableName, assembly);
-        String sql =
-                "SELECT " +
-                        ALLELES_COLUMN +
-                        "," + BATCH_HANDLE_COLUMN +
-                        "," + BATCH_NAME_COLUMN +
-                        "," + CHROMOSOME_COLUMN +
-                        "," + CHROMOSOME_START_COLUMN +
-                        "," + CONTIG_NAME_COLUMN +
-                        "," + SUBSNP_ORIENTATION_COLUMN +
-                        "," + SNP_ORIENTATION_COLUMN +
-                        "," + CONTIG_ORIENTATION_COLUMN +
-                        "," + CONTIG_START_COLUMN +
-                        "," + FREQUENCY_EXISTS_COLUMN +
-                        "," + GENOTYPE_EXISTS_COLUMN +
-                        "," + REFERENCE_COLUMN +
-                        "," + SS_CREATE_TIME_COLUMN +
-                        "," + TAXONOMY_ID_COLUMN +
-                        " FROM " + tableName +
-                        " WHERE batch_id = ? ";
-
+        String sql = "SELECT " + buildColumnList() + " FROM " + tableName + " WHERE batch_id = ? ";
         return sql;
     }
 
-    private String hash(String string) {
+    /**
+     * @return comma-separated list of the columns read by {@link SubSnpNoHgvsRowMapper}
+     */
+    static String buildColumnList() {
+        return ALLELES_COLUMN +
+                "," + BATCH_HANDLE_COLUMN +
+                "," + BATCH_NAME_COLUMN +
+                "," + CHROMOSOME_COLUMN +
+                "," + CHROMOSOME_START_COLUMN +
+                "," + CONTIG_NAME_COLUMN +
+                "," + SUBSNP_ORIENTATION_COLUMN +
+                "," + SNP_ORIENTATION_COLUMN +
+                "," + CONTIG_ORIENTATION_COLUMN +
+                "," + CONTIG_START_COLUMN +
+                "," + FREQUENCY_EXISTS_COLUMN +
+                "," + GENOTYPE_EXISTS_COLUMN +
+                "," + REFERENCE_COLUMN +
+                "," + SS_CREATE_TIME_COLUMN +
+                "," + TAXONOMY_ID_COLUMN;
+    }
+
+    private static String hash(String string) {
         return DigestUtils.md5DigestAsHex(string.getBytes());
     }
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.steps.partitioners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import uk.ac.ebi.eva.accession.dbsnp.io.SubSnpNoHgvsReader;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits the submitted variants of an assembly by dbSNP submitter batch, so that each group of batches can be imported
+ * by a different worker step.
+ * <p>
+ * The rows of every batch are counted in the dbSNP mirror, and the batches are assigned from the biggest to the
+ * smallest to the partition with less rows so far, so that all the workers have a similar amount of work even if the
+ * sizes of the batches are very different.
+ */
+public class DbsnpBatchPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DbsnpBatchPartitioner.class);
+
+    public static final String BATCHES_KEY = "batches";
+
+    public static final String ROWS_KEY = "rows";
+
+    public static final String PARTITION_NAME_PREFIX = "partition";
+
+    private static final String BATCH_ID_COLUMN = "batch_id";
+
+    private static final String ROW_COUNT_COLUMN = "row_count";
+
+    private final String assembly;
+
+    private final DataSource dataSource;
+
+    public DbsnpBatchPartitioner(String assembly, DataSource dataSource) {
+        this.assembly = assembly;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @param gridSize maximum number of partitions. Less partitions will be created if the assembly has less batches.
+     * @return the partitions, whose names have the form {@link #PARTITION_NAME_PREFIX} + partition index
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        if (gridSize < 1) {
+            throw new IllegalArgumentException("The number of partitions must be a positive number");
+        }
+        List<BatchRows> batches = countRowsPerBatch();
+        List<Partition> partitions = groupBatches(batches, gridSize);
+
+        Map<String, ExecutionContext> contexts = new HashMap<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            Partition partition = partitions.get(i);
+            ExecutionContext context = new ExecutionContext();
+            context.put(BATCHES_KEY, partition.batches);
+            context.putLong(ROWS_KEY, partition.rows);
+            contexts.put(PARTITION_NAME_PREFIX + i, context);
+            logger.debug("Partition {} will import {} rows from batches {}", i, partition.rows, partition.batches);
+        }
+        logger.info("{} batches of assembly {} split in {} partitions", batches.size(), assembly, contexts.size());
+        return contexts;
+    }
+
+    private List<BatchRows> countRowsPerBatch() {
+        String sql = "SELECT " + BATCH_ID_COLUMN + ", COUNT(*) AS " + ROW_COUNT_COLUMN +
+                " FROM " + SubSnpNoHgvsReader.getTableName(assembly) +
+                " GROUP BY " + BATCH_ID_COLUMN;
+        return new JdbcTemplate(dataSource).query(sql, (resultSet, rowNum) -> new BatchRows(
+                resultSet.getInt(BATCH_ID_COLUMN), resultSet.getLong(ROW_COUNT_COLUMN)));
+    }
+
+    private List<Partition> groupBatches(List<BatchRows> batches, int gridSize) {
+        int numPartitions = Math.max(1, Math.min(gridSize, batches.size()));
+        List<Partition> partitions = new ArrayList<>(numPartitions);
+        PriorityQueue<Partition> partitionsByRows = new PriorityQueue<>(
+                numPartitions, Comparator.comparingLong((Partition partition) -> partition.rows)
+                                         .thenComparingInt(partition -> partition.index));
+        for (int i = 0; i < numPartitions; i++) {
+            Partition partition = new Partition(i);
+            partitions.add(partition);
+            partitionsByRows.add(partition);
+        }
+
+        batches.sort(Comparator.comparingLong((BatchRows batch) -> batch.rows).reversed()
+                               .thenComparingInt(batch -> batch.batchId));
+        for (BatchRows batch : batches) {
+            Partition smallestPartition = partitionsByRows.poll();
+            smallestPartition.batches.add(batch.batchId);
+            smallestPartition.rows += batch.rows;
+            partitionsByRows.add(smallestPartition);
+        }
+        return partitions;
+    }
+
+    private static class BatchRows {
+
+        private final int batchId;
+
+        private final long rows;
+
+        BatchRows(int batchId, long rows) {
+            this.batchId = batchId;
+            this.rows = rows;
+        }
+    }
+
+    private static class Partition {
+
+        private final int index;
+
+        private final ArrayList<Integer> batches;
+
+        private long rows;
+
+        Partition(int index) {
+            this.index = index;
+            this.batches = new ArrayList<>();
+            this.rows = 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class DbsnpDataSourceTest {
+
+    @Autowired
+    private DbsnpDataSource dbsnpDataSource;
+
+    @Test
+    public void poolIsShared() {
+        assertSame(dbsnpDataSource.getDatasource(), dbsnpDataSource.getDatasource());
+    }
+
+    @Test
+    public void poolIsBounded() throws SQLException {
+        org.apache.tomcat.jdbc.pool.DataSource pool =
+                (org.apache.tomcat.jdbc.pool.DataSource) dbsnpDataSource.getDatasource();
+        assertEquals(2, pool.getMaxActive());
+        assertTrue(pool.isTestOnBorrow());
+        assertTrue(pool.getJdbcInterceptors().contains("StatementCache"));
+    }
+
+    @Test
+    public void connectionsAreReused() throws SQLException {
+        DataSource dataSource = dbsnpDataSource.getDatasource();
+        for (int i = 0; i < 10; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals(Integer.valueOf(1), new JdbcTemplate(dataSource).queryForObject(
+                        "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS", Integer.class));
+                assertTrue(connection.isValid(1));
+            }
+        }
+        org.apache.tomcat.jdbc.pool.DataSource pool = (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
+        assertTrue(pool.getSize() <= 2);
+        assertEquals(0, pool.getActive());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014-2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.configuration.jobs;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.dbsnp.test.BatchTestConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.test.StubDbsnpVariantWriter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_PARTITION_STEP;
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.IMPORT_DBSNP_VARIANTS_STEP;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(value = {"classpath:application.properties"},
+        properties = {"parameters.assemblyName=Gallus_gallus-5.0", "parameters.partitions=2",
+                "parameters.chunkSize=1", "parameters.pageSize=10", "parameters.pagingReader=true"})
+@ContextConfiguration(classes = {BatchTestConfiguration.class})
+public class ImportDbsnpVariantsJobConfigurationTest {
+
+    private static final String BROILER_BATCH = "CHICKEN_SNPS_BROILER";
+
+    private static final String LAYER_BATCH = "CHICKEN_SNPS_LAYER";
+
+    private static final String SILKIE_BATCH = "CHICKEN_SNPS_SILKIE";
+
+    private static final String INDEL_BATCH = "CHICKEN_INDEL_DWBURT";
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private StubDbsnpVariantWriter writer;
+
+    @Test
+    @DirtiesContext
+    public void restartOnlyReadsTheUnfinishedBatches() throws Exception {
+        // the first partition has the batches 11825 (broiler, 2 variants) and 1062064 (indel), the second one
+        // 11828 (layer) and 11831 (silkie)
+        JobParameters jobParameters = new JobParametersBuilder().addString("assemblyName", "Gallus_gallus-5.0")
+                                                                .toJobParameters();
+        writer.failOnceOnBatch(INDEL_BATCH);
+        JobExecution failedExecution = jobLauncherTestUtils.launchJob(jobParameters);
+        assertEquals(BatchStatus.FAILED, failedExecution.getStatus());
+        assertEquals(Arrays.asList(BROILER_BATCH, BROILER_BATCH, LAYER_BATCH, SILKIE_BATCH),
+                     sorted(writer.getWrittenBatchNames()));
+
+        writer.clear();
+        JobExecution restartedExecution = jobLauncherTestUtils.launchJob(jobParameters);
+        assertEquals(BatchStatus.COMPLETED, restartedExecution.getStatus());
+        assertEquals(failedExecution.getJobInstance().getId(), restartedExecution.getJobInstance().getId());
+        assertEquals(Collections.singletonList(INDEL_BATCH), writer.getWrittenBatchNames());
+
+        List<String> restartedSteps = restartedExecution.getStepExecutions().stream()
+                                                        .map(StepExecution::getStepName)
+                                                        .collect(Collectors.toList());
+        assertEquals(Arrays.asList(IMPORT_DBSNP_VARIANTS_STEP, IMPORT_DBSNP_VARIANTS_PARTITION_STEP + ":partition0"),
+                     restartedSteps);
+    }
+
+    private List<String> sorted(List<String> batchNames) {
+        return batchNames.stream().sorted().collect(Collectors.toList());
+    }
+}
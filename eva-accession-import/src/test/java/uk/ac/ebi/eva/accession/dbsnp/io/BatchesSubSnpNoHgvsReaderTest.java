@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.DbsnpTestDataSource;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.TestConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class BatchesSubSnpNoHgvsReaderTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private static final String CHICKEN_ASSEMBLY = "Gallus_gallus-5.0";
+
+    @Autowired
+    private DbsnpTestDataSource dbsnpTestDataSource;
+
+    private BatchesSubSnpNoHgvsReader reader;
+
+    @After
+    public void tearDown() {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void readSeveralBatches() throws Exception {
+        reader = buildReader(Arrays.asList(11825, 11828));
+        reader.open(new ExecutionContext());
+        assertEquals(3, readAll(reader).size());
+        assertEquals(Arrays.asList(11825, 11828), reader.getCompletedBatches());
+    }
+
+    @Test
+    public void completedBatchesAreSaved() throws Exception {
+        reader = buildReader(Arrays.asList(11000, 11001));
+        reader.open(new ExecutionContext());
+        assertNull(reader.read());
+
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.update(executionContext);
+        assertEquals(Arrays.asList(11000, 11001), executionContext.get(BatchesSubSnpNoHgvsReader.COMPLETED_BATCHES_KEY));
+    }
+
+    @Test
+    public void completedBatchesAreNotReadAgain() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.put(BatchesSubSnpNoHgvsReader.COMPLETED_BATCHES_KEY, new ArrayList<>(Arrays.asList(11825)));
+
+        reader = buildReader(Arrays.asList(11825, 11828));
+        reader.open(executionContext);
+        assertEquals(1, readAll(reader).size());
+        assertEquals(Arrays.asList(11825, 11828), reader.getCompletedBatches());
+    }
+
+    @Test
+    public void pagingReaderResumesInTheMiddleOfABatch() throws Exception {
+        reader = buildPagingReader(Arrays.asList(11825, 11828));
+        reader.open(new ExecutionContext());
+        assertNotNull(reader.read());
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.update(executionContext);
+        assertEquals(11825, executionContext.get(BatchesSubSnpNoHgvsReader.CURRENT_BATCH_KEY));
+        reader.close();
+
+        reader = buildPagingReader(Arrays.asList(11825, 11828));
+        reader.open(executionContext);
+        assertEquals(2, readAll(reader).size());
+        assertEquals(Arrays.asList(11825, 11828), reader.getCompletedBatches());
+    }
+
+    @Test
+    public void allBatchesCompleted() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.put(BatchesSubSnpNoHgvsReader.COMPLETED_BATCHES_KEY,
+                             new ArrayList<>(Collections.singletonList(11825)));
+
+        reader = buildReader(Collections.singletonList(11825));
+        reader.open(executionContext);
+        assertNull(reader.read());
+    }
+
+    private BatchesSubSnpNoHgvsReader buildReader(List<Integer> batches) {
+        return new BatchesSubSnpNoHgvsReader(batches, CHICKEN_ASSEMBLY, dbsnpTestDataSource.getDatasource(),
+                                             PAGE_SIZE);
+    }
+
+    private BatchesSubSnpNoHgvsReader buildPagingReader(List<Integer> batches) {
+        return new BatchesSubSnpNoHgvsReader(batches, CHICKEN_ASSEMBLY, dbsnpTestDataSource.getDatasource(),
+                                             PAGE_SIZE, true);
+    }
+
+    private List<SubSnpNoHgvs> readAll(BatchesSubSnpNoHgvsReader reader) throws Exception {
+        List<SubSnpNoHgvs> variants = new ArrayList<>();
+        SubSnpNoHgvs variant;
+        while ((variant = reader.read()) != null) {
+            variants.add(variant);
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.io;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.DbsnpTestDataSource;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.TestConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class SubSnpNoHgvsPagingReaderTest {
+
+    private static final String CHICKEN_ASSEMBLY = "Gallus_gallus-5.0";
+
+    private static final int CHICKEN_BATCH = 11825;
+
+    @Autowired
+    private DbsnpTestDataSource dbsnpTestDataSource;
+
+    private SubSnpNoHgvsPagingReader reader;
+
+    @After
+    public void tearDown() {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void readChickenVariantsInSeveralPages() throws Exception {
+        reader = buildReader(CHICKEN_BATCH, CHICKEN_ASSEMBLY, 1);
+        reader.open(new ExecutionContext());
+        assertEquals(2, readAll(reader).size());
+    }
+
+    @Test
+    public void readChickenVariantsInOnePage() throws Exception {
+        reader = buildReader(CHICKEN_BATCH, CHICKEN_ASSEMBLY, 10);
+        reader.open(new ExecutionContext());
+        assertEquals(2, readAll(reader).size());
+    }
+
+    @Test
+    public void restartAfterLastVariantRead() throws Exception {
+        reader = buildReader(CHICKEN_BATCH, CHICKEN_ASSEMBLY, 10);
+        reader.open(new ExecutionContext());
+        SubSnpNoHgvs firstVariant = reader.read();
+        assertNotNull(firstVariant);
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.update(executionContext);
+        reader.close();
+
+        reader = buildReader(CHICKEN_BATCH, CHICKEN_ASSEMBLY, 10);
+        reader.open(executionContext);
+        List<SubSnpNoHgvs> remainingVariants = readAll(reader);
+        assertEquals(1, remainingVariants.size());
+    }
+
+    @Test
+    public void readBatchWithNoVariants() throws Exception {
+        reader = buildReader(11000, CHICKEN_ASSEMBLY, 10);
+        reader.open(new ExecutionContext());
+        assertNull(reader.read());
+    }
+
+    @Test(expected = BadSqlGrammarException.class)
+    public void readWrongAssembly() throws Exception {
+        reader = buildReader(CHICKEN_BATCH, "UNKNOWN_ASSEMBLY", 10);
+        reader.open(new ExecutionContext());
+        reader.read();
+    }
+
+    private SubSnpNoHgvsPagingReader buildReader(int batch, String assembly, int pageSize) {
+        return new SubSnpNoHgvsPagingReader(batch, assembly, dbsnpTestDataSource.getDatasource(), pageSize);
+    }
+
+    private List<SubSnpNoHgvs> readAll(SubSnpNoHgvsPagingReader reader) {
+        List<SubSnpNoHgvs> variants = new ArrayList<>();
+        SubSnpNoHgvs variant;
+        while ((variant = reader.read()) != null) {
+            variants.add(variant);
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.steps.partitioners;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.DbsnpTestDataSource;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.TestConfiguration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class DbsnpBatchPartitionerTest {
+
+    private static final String CHICKEN_ASSEMBLY = "Gallus_gallus-5.0";
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Autowired
+    private DbsnpTestDataSource dbsnpTestDataSource;
+
+    @Test
+    public void singlePartition() {
+        Map<String, ExecutionContext> partitions = buildPartitioner(CHICKEN_ASSEMBLY).partition(1);
+        assertEquals(1, partitions.size());
+        assertPartition(partitions, 0, Arrays.asList(11825, 11828, 11831, 1062064), 5);
+    }
+
+    @Test
+    public void batchesAreBalancedByNumberOfRows() {
+        Map<String, ExecutionContext> partitions = buildPartitioner(CHICKEN_ASSEMBLY).partition(2);
+        assertEquals(2, partitions.size());
+        assertPartition(partitions, 0, Arrays.asList(11825, 1062064), 3);
+        assertPartition(partitions, 1, Arrays.asList(11828, 11831), 2);
+    }
+
+    @Test
+    public void noMorePartitionsThanBatches() {
+        Map<String, ExecutionContext> partitions = buildPartitioner(CHICKEN_ASSEMBLY).partition(10);
+        assertEquals(4, partitions.size());
+        assertPartition(partitions, 0, Collections.singletonList(11825), 2);
+        assertPartition(partitions, 1, Collections.singletonList(11828), 1);
+        assertPartition(partitions, 2, Collections.singletonList(11831), 1);
+        assertPartition(partitions, 3, Collections.singletonList(1062064), 1);
+    }
+
+    @Test
+    public void unknownAssembly() {
+        thrown.expect(BadSqlGrammarException.class);
+        buildPartitioner("UNKNOWN_ASSEMBLY").partition(2);
+    }
+
+    @Test
+    public void invalidGridSize() {
+        thrown.expect(IllegalArgumentException.class);
+        buildPartitioner(CHICKEN_ASSEMBLY).partition(0);
+    }
+
+    private DbsnpBatchPartitioner buildPartitioner(String assembly) {
+        return new DbsnpBatchPartitioner(assembly, dbsnpTestDataSource.getDatasource());
+    }
+
+    private void assertPartition(Map<String, ExecutionContext> partitions, int index, List<Integer> expectedBatches,
+                                 long expectedRows) {
+        ExecutionContext partition = partitions.get(DbsnpBatchPartitioner.PARTITION_NAME_PREFIX + index);
+        assertEquals(expectedBatches, partition.get(DbsnpBatchPartitioner.BATCHES_KEY));
+        assertEquals(expectedRows, partition.getLong(DbsnpBatchPartitioner.ROWS_KEY));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014-2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.test;
+
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.dbsnp.configuration.TestConfiguration;
+import uk.ac.ebi.eva.accession.dbsnp.configuration.jobs.ImportDbsnpVariantsJobConfiguration;
+
+import static uk.ac.ebi.eva.accession.dbsnp.configuration.BeanNames.DBSNP_VARIANT_WRITER;
+
+/**
+ * The import job with a {@link StubDbsnpVariantWriter} instead of the writer of the application. Without a data source,
+ * the job repository is kept in memory, which is enough to restart a job in the same test.
+ */
+@Configuration
+@Import({ImportDbsnpVariantsJobConfiguration.class, TestConfiguration.class})
+public class BatchTestConfiguration {
+
+    @Bean
+    public JobLauncherTestUtils jobLauncherTestUtils() {
+        return new JobLauncherTestUtils();
+    }
+
+    @Bean(DBSNP_VARIANT_WRITER)
+    public StubDbsnpVariantWriter dbsnpVariantWriter() {
+        return new StubDbsnpVariantWriter();
+    }
+}
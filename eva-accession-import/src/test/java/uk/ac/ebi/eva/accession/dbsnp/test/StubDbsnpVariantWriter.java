@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014-2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.dbsnp.test;
+
+import org.springframework.batch.item.ItemWriter;
+
+import uk.ac.ebi.eva.accession.dbsnp.model.SubSnpNoHgvs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the batch names of the variants written, so that the tests can check which batches were read. It can be told
+ * to fail once when it's given a variant of a batch, to simulate a partition that fails in the middle.
+ */
+public class StubDbsnpVariantWriter implements ItemWriter<SubSnpNoHgvs> {
+
+    private final List<String> writtenBatchNames = new ArrayList<>();
+
+    private String failingBatchName;
+
+    @Override
+    public synchronized void write(List<? extends SubSnpNoHgvs> variants) throws Exception {
+        for (SubSnpNoHgvs variant : variants) {
+            if (variant.getBatchName().equals(failingBatchName)) {
+                failingBatchName = null;
+                throw new IllegalStateException("Simulated failure writing batch " + variant.getBatchName());
+            }
+        }
+        for (SubSnpNoHgvs variant : variants) {
+            writtenBatchNames.add(variant.getBatchName());
+        }
+    }
+
+    public synchronized void failOnceOnBatch(String batchName) {
+        failingBatchName = batchName;
+    }
+
+    public synchronized List<String> getWrittenBatchNames() {
+        return new ArrayList<>(writtenBatchNames);
+    }
+
+    public synchronized void clear() {
+        writtenBatchNames.clear();
+    }
+}
@@ -15,41 +15,102 @@
  */
 package uk.ac.ebi.eva.accession.pipeline.configuration;
 
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
 import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
 import uk.ac.ebi.eva.accession.pipeline.io.AccessionWriter;
+import uk.ac.ebi.eva.accession.pipeline.io.AsyncAccessionReportWriter;
 import uk.ac.ebi.eva.accession.pipeline.io.FastaSequenceReader;
 import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.ACCESSION_WRITER;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITION_ACCESSION_WRITER;
 
 
 /**
  * Configuration to inject a VcfReader as a Variant Reader bean.
  */
 @Configuration
-@Import({SubmittedVariantAccessioningConfiguration.class, InputParametersConfiguration.class})
+@Import({SubmittedVariantAccessioningConfiguration.class, InputParametersConfiguration.class,
+        MetricsConfiguration.class})
 public class AccessionWriterConfiguration {
 
+    @Autowired
+    private MetricRegistry metricRegistry;
+
     @Bean(ACCESSION_WRITER)
     public AccessionWriter accessionWriter(SubmittedVariantAccessioningService service,
                                            AccessionReportWriter accessionReportWriter) throws IOException {
-        return new AccessionWriter(service, accessionReportWriter);
+        return new AccessionWriter(service, accessionReportWriter, metricRegistry);
     }
 
     @Bean
-    AccessionReportWriter accessionReportWriter(InputParameters inputParameters) throws IOException {
-        return new AccessionReportWriter(new File(inputParameters.getOutputVcf()),
-                                         new FastaSequenceReader(Paths.get(inputParameters.getFasta())));
+    AccessionReportWriter accessionReportWriter(InputParameters inputParameters,
+                                                FastaSequenceReader fastaSequenceReader) throws IOException {
+        return createAccessionReportWriter(new File(inputParameters.getOutputVcf()), inputParameters,
+                                           fastaSequenceReader);
     }
 
+    /**
+     * Built when the context starts, so that the index and the dictionary of the FASTA are created once, before any
+     * partition starts. The contigs of the dictionary are registered in the {@link StringInterner}, so that the first
+     * variants read already share them.
+     */
+    @Bean
+    FastaSequenceReader fastaSequenceReader(InputParameters inputParameters, StringInterner stringInterner)
+            throws IOException {
+        FastaSequenceReader fastaSequenceReader = createFastaSequenceReader(inputParameters);
+        stringInterner.seed(fastaSequenceReader.getContigNames());
+        return fastaSequenceReader;
+    }
+
+    /**
+     * Each partition writes its own report, which is merged with the others when all the partitions have finished.
+     * A FASTA mapped in memory is read through the shared reader, which is thread safe in that mode. Otherwise every
+     * partition gets its own reader and block cache, as the cache is not thread safe.
+     */
+    @Bean(PARTITION_ACCESSION_WRITER)
+    @StepScope
+    public AccessionWriter partitionAccessionWriter(
+            SubmittedVariantAccessioningService service, InputParameters inputParameters,
+            FastaSequenceReader fastaSequenceReader,
+            @Value("#{stepExecutionContext['" + ContigPartitioner.OUTPUT_VCF_KEY + "']}") String partitionOutputVcf)
+            throws IOException {
+        FastaSequenceReader partitionFastaSequenceReader = inputParameters.isMemoryMappedFasta() ?
+                fastaSequenceReader : createFastaSequenceReader(inputParameters);
+        AccessionReportWriter accessionReportWriter = createAccessionReportWriter(new File(partitionOutputVcf),
+                                                                                  inputParameters,
+                                                                                  partitionFastaSequenceReader);
+        return new AccessionWriter(service, accessionReportWriter, metricRegistry);
+    }
+
+    private FastaSequenceReader createFastaSequenceReader(InputParameters inputParameters) throws IOException {
+        long maxFastaCacheBytes = inputParameters.getFastaCacheSizeMb() * 1024L * 1024L;
+        return new FastaSequenceReader(Paths.get(inputParameters.getFasta()), maxFastaCacheBytes,
+                                       inputParameters.isMemoryMappedFasta(), metricRegistry);
+    }
+
+    private AccessionReportWriter createAccessionReportWriter(File output, InputParameters inputParameters,
+                                                              FastaSequenceReader fastaSequenceReader)
+            throws IOException {
+        if (inputParameters.isAsyncReportWriter()) {
+            return new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        } else {
+            return new AccessionReportWriter(output, fastaSequenceReader);
+        }
+    }
 }
@@ -20,15 +20,29 @@ public class BeanNames {
 
     public static final String VARIANT_READER = "VARIANT_READER";
 
+    public static final String PARTITION_VARIANT_READER = "PARTITION_VARIANT_READER";
+
+    public static final String PIPELINED_VARIANT_READER = "PIPELINED_VARIANT_READER";
+
     public static final String REPORT_READER = "REPORT_READER";
 
     public static final String VARIANT_PROCESSOR = "VARIANT_PROCESSOR";
 
     public static final String ACCESSION_WRITER = "ACCESSION_WRITER";
 
+    public static final String PARTITION_ACCESSION_WRITER = "PARTITION_ACCESSION_WRITER";
+
     public static final String CREATE_SUBSNP_ACCESSION_STEP = "CREATE_SUBSNP_ACCESSION_STEP";
     
+    public static final String PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP = "PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP";
+
+    public static final String CREATE_SUBSNP_ACCESSION_PARTITION_STEP = "CREATE_SUBSNP_ACCESSION_PARTITION_STEP";
+
+    public static final String MERGE_ACCESSION_REPORTS_STEP = "MERGE_ACCESSION_REPORTS_STEP";
+
     public static final String CHECK_SUBSNP_ACCESSION_STEP = "CHECK_SUBSNP_ACCESSION_STEP";
 
+    public static final String BULK_LOAD_SUBSNP_ACCESSION_STEP = "BULK_LOAD_SUBSNP_ACCESSION_STEP";
+
     public static final String CREATE_SUBSNP_ACCESSION_JOB = "CREATE_SUBSNP_ACCESSION_JOB";
 }
@@ -18,18 +18,29 @@
 package uk.ac.ebi.eva.accession.pipeline.configuration;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.policies.AdaptiveChunkSizeCompletionPolicy;
 
+/**
+ * The chunk size is fixed to parameters.chunkSize, unless parameters.adaptiveChunkSize is enabled: then it starts
+ * there and is adjusted between parameters.minChunkSize and parameters.maxChunkSize.
+ */
 @Configuration
 public class ChunkSizeCompletionPolicyConfiguration {
 
     @Bean
     @StepScope
-    public SimpleCompletionPolicy chunkSizecompletionPolicy(InputParameters inputParameters) {
-        return new SimpleCompletionPolicy(inputParameters.getChunkSize());
+    public AdaptiveChunkSizeCompletionPolicy chunkSizecompletionPolicy(InputParameters inputParameters) {
+        int chunkSize = inputParameters.getChunkSize();
+        if (!inputParameters.isAdaptiveChunkSize()) {
+            return new AdaptiveChunkSizeCompletionPolicy(chunkSize, chunkSize, chunkSize,
+                                                         inputParameters.getTargetChunkMillis());
+        }
+        return new AdaptiveChunkSizeCompletionPolicy(chunkSize, inputParameters.getMinChunkSize(),
+                                                     inputParameters.getMaxChunkSize(),
+                                                     inputParameters.getTargetChunkMillis());
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import com.codahale.metrics.CsvReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.listeners.StepMetricsListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of the timers and counters of the accessioning job. If a metrics directory is provided, they are written
+ * there periodically as CSV files (one per metric, one row per report), and once more when the application finishes.
+ */
+@Configuration
+@Import(InputParametersConfiguration.class)
+public class MetricsConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsConfiguration.class);
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    private ScheduledReporter reporter;
+
+    @Bean
+    public MetricRegistry metricRegistry() {
+        return new MetricRegistry();
+    }
+
+    @Bean
+    public StepMetricsListener stepMetricsListener() {
+        return new StepMetricsListener(metricRegistry());
+    }
+
+    @PostConstruct
+    public void startReporter() {
+        String metricsDirectory = inputParameters.getMetricsDirectory();
+        if (metricsDirectory == null || metricsDirectory.isEmpty()) {
+            return;
+        }
+        File directory = new File(metricsDirectory);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Could not create the metrics directory " + metricsDirectory);
+        }
+        logger.info("Writing the metrics to {} every {} seconds", directory,
+                    inputParameters.getMetricsReportPeriodSeconds());
+        reporter = CsvReporter.forRegistry(metricRegistry())
+                              .formatFor(Locale.US)
+                              .convertRatesTo(TimeUnit.SECONDS)
+                              .convertDurationsTo(TimeUnit.MILLISECONDS)
+                              .build(directory);
+        reporter.start(inputParameters.getMetricsReportPeriodSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stopReporter() {
+        if (reporter != null) {
+            reporter.report();
+            reporter.stop();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
 import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
 import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
 
@@ -17,11 +18,11 @@ public class VariantProcessorConfiguration {
 
     @Bean(VARIANT_PROCESSOR)
     @StepScope
-    public VariantProcessor variantProcessor(InputParameters inputParameters) {
+    public VariantProcessor variantProcessor(InputParameters inputParameters, StringInterner stringInterner) {
         String assemblyAccession = inputParameters.getAssemblyAccession();
         int taxonomyAccession = inputParameters.getTaxonomyAccession();
         String projectAccession = inputParameters.getProjectAccession();
 
-        return new VariantProcessor(assemblyAccession, taxonomyAccession, projectAccession);
+        return new VariantProcessor(assemblyAccession, taxonomyAccession, projectAccession, stringInterner);
     }
 }
@@ -17,21 +17,34 @@ package uk.ac.ebi.eva.accession.pipeline.configuration;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.LineMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+import uk.ac.ebi.eva.accession.pipeline.io.ContigsVcfReader;
+import uk.ac.ebi.eva.accession.pipeline.io.PipelinedItemStreamReader;
 import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
+import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
+import uk.ac.ebi.eva.commons.batch.io.AggregatedVcfLineMapper;
 import uk.ac.ebi.eva.commons.batch.io.UnwindingItemStreamReader;
 import uk.ac.ebi.eva.commons.core.models.Aggregation;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 import uk.ac.ebi.eva.commons.batch.io.AggregatedVcfReader;
+import uk.ac.ebi.eva.commons.batch.io.VcfLineMapper;
 import uk.ac.ebi.eva.commons.batch.io.VcfReader;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITION_VARIANT_READER;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PIPELINED_VARIANT_READER;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_READER;
 
 /**
@@ -44,12 +57,29 @@ public class VcfReaderConfiguration {
     @Autowired
     private InputParameters inputParameters;
 
+    @Autowired
+    private StringInterner stringInterner;
+
     @Bean(VARIANT_READER)
     @StepScope
     public ItemStreamReader<Variant> unwindingReader(VcfReader vcfReader) {
         return new UnwindingItemStreamReader<>(vcfReader);
     }
 
+    /**
+     * Reader that parses and converts the variants in a background thread. The VCF reader and the processor are
+     * created here instead of injected, because the step-scoped proxies can't be used outside the step thread.
+     */
+    @Bean(PIPELINED_VARIANT_READER)
+    @StepScope
+    public ItemStreamReader<ISubmittedVariant> pipelinedVariantReader() throws IOException {
+        VariantProcessor variantProcessor = new VariantProcessor(inputParameters.getAssemblyAccession(),
+                                                                 inputParameters.getTaxonomyAccession(),
+                                                                 inputParameters.getProjectAccession(),
+                                                                 stringInterner);
+        return new PipelinedItemStreamReader<>(new UnwindingItemStreamReader<>(createVcfReader()), variantProcessor);
+    }
+
     /**
      * The aggregation type is passed so that spring won't cache the instance of VcfReader if it is already built
      * with other aggregation type.
@@ -60,6 +90,10 @@ public class VcfReaderConfiguration {
     @Bean
     @StepScope
     public VcfReader vcfReader() throws IOException {
+        return createVcfReader();
+    }
+
+    private VcfReader createVcfReader() throws IOException {
         String fileId = inputParameters.getProjectAccession();
         String studyId = inputParameters.getProjectAccession();
         File vcfFile = new File(inputParameters.getVcf());
@@ -73,4 +107,29 @@ public class VcfReaderConfiguration {
         }
     }
 
+    /**
+     * Reader for a partition of the VCF, as created by {@link ContigPartitioner}. The tabix index is used if present.
+     */
+    @Bean(PARTITION_VARIANT_READER)
+    @StepScope
+    public ItemStreamReader<Variant> partitionVariantReader(
+            @Value("#{stepExecutionContext['" + ContigPartitioner.CONTIGS_KEY + "']}") List<String> contigs) {
+        File vcfFile = new File(inputParameters.getVcf());
+        File tabixIndex = ContigPartitioner.getTabixIndex(vcfFile);
+        ContigsVcfReader contigsVcfReader = new ContigsVcfReader(vcfFile, tabixIndex.exists() ? tabixIndex : null,
+                                                                 contigs, vcfLineMapper());
+        return new UnwindingItemStreamReader<>(contigsVcfReader);
+    }
+
+    private LineMapper<List<Variant>> vcfLineMapper() {
+        String fileId = inputParameters.getProjectAccession();
+        String studyId = inputParameters.getProjectAccession();
+        Aggregation vcfAggregation = inputParameters.getVcfAggregation();
+        if (Aggregation.NONE.equals(vcfAggregation)) {
+            return new VcfLineMapper(fileId, studyId);
+        } else {
+            return new AggregatedVcfLineMapper(fileId, studyId, vcfAggregation,
+                                               inputParameters.getAggregatedMappingFile());
+        }
+    }
 }
@@ -16,39 +16,81 @@
  */
 package uk.ac.ebi.eva.accession.pipeline.configuration.jobs;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.job.builder.FlowJobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.BULK_LOAD_SUBSNP_ACCESSION_STEP;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CHECK_SUBSNP_ACCESSION_STEP;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_JOB;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.MERGE_ACCESSION_REPORTS_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP;
 
 @Configuration
 @EnableBatchProcessing
 public class CreateSubsnpAccessionsJobConfiguration {
 
+    private static final Logger logger = LoggerFactory.getLogger(CreateSubsnpAccessionsJobConfiguration.class);
+
     @Autowired
     @Qualifier(CREATE_SUBSNP_ACCESSION_STEP)
     private Step createSubsnpAccessionStep;
 
+    @Autowired
+    @Qualifier(PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP)
+    private Step partitionedCreateSubsnpAccessionStep;
+
+    @Autowired
+    @Qualifier(MERGE_ACCESSION_REPORTS_STEP)
+    private Step mergeAccessionReportsStep;
+
     @Autowired
     @Qualifier(CHECK_SUBSNP_ACCESSION_STEP)
     private Step checkSubsnpAccessionStep;
 
+    @Autowired
+    @Qualifier(BULK_LOAD_SUBSNP_ACCESSION_STEP)
+    private Step bulkLoadSubsnpAccessionStep;
+
     @Bean(CREATE_SUBSNP_ACCESSION_JOB)
-    public Job createSubsnpAccessionJob(JobBuilderFactory jobBuilderFactory) {
-        return jobBuilderFactory.get(CREATE_SUBSNP_ACCESSION_JOB)
-                                .incrementer(new RunIdIncrementer())
-                                .flow(createSubsnpAccessionStep)
-                                .next(checkSubsnpAccessionStep)
-                                .end()
-                                .build();
+    public Job createSubsnpAccessionJob(JobBuilderFactory jobBuilderFactory, InputParameters inputParameters) {
+        FlowJobBuilder jobBuilder;
+        if (inputParameters.isBulkLoad()) {
+            jobBuilder = jobBuilderFactory.get(CREATE_SUBSNP_ACCESSION_JOB)
+                                          .incrementer(new RunIdIncrementer())
+                                          .flow(bulkLoadSubsnpAccessionStep)
+                                          .next(checkSubsnpAccessionStep)
+                                          .end();
+        } else if (inputParameters.isPartitioned()) {
+            if (inputParameters.isPipelinedReader()) {
+                logger.warn("The pipelined reader is not used when the VCF is accessioned in {} partitions, every " +
+                                    "partition reads its contigs in its own thread", inputParameters.getPartitions());
+            }
+            jobBuilder = jobBuilderFactory.get(CREATE_SUBSNP_ACCESSION_JOB)
+                                          .incrementer(new RunIdIncrementer())
+                                          .flow(partitionedCreateSubsnpAccessionStep)
+                                          .next(mergeAccessionReportsStep)
+                                          .next(checkSubsnpAccessionStep)
+                                          .end();
+        } else {
+            jobBuilder = jobBuilderFactory.get(CREATE_SUBSNP_ACCESSION_JOB)
+                                          .incrementer(new RunIdIncrementer())
+                                          .flow(createSubsnpAccessionStep)
+                                          .next(checkSubsnpAccessionStep)
+                                          .end();
+        }
+        return jobBuilder.build();
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.bulkLoad.BulkLoadSubsnpAccessionsTasklet;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.BULK_LOAD_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_READER;
+
+@Configuration
+@EnableBatchProcessing
+public class BulkLoadSubsnpAccessionsStepConfiguration {
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    @Autowired
+    private StringInterner stringInterner;
+
+    @Autowired
+    @Qualifier(VARIANT_READER)
+    private ItemStreamReader<Variant> inputReader;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    @Autowired
+    private AccessionReportWriter accessionReportWriter;
+
+    @Bean(BULK_LOAD_SUBSNP_ACCESSION_STEP)
+    public Step bulkLoadSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory) {
+        File tempDirectory = new File(inputParameters.getOutputVcf()).getAbsoluteFile().getParentFile();
+        VariantProcessor variantProcessor = new VariantProcessor(inputParameters.getAssemblyAccession(),
+                                                                 inputParameters.getTaxonomyAccession(),
+                                                                 inputParameters.getProjectAccession(),
+                                                                 stringInterner);
+        BulkLoadSubsnpAccessionsTasklet tasklet = new BulkLoadSubsnpAccessionsTasklet(
+                inputReader, variantProcessor, repository, accessionGenerator, accessionReportWriter,
+                inputParameters.getBulkLoadBatchSize(), inputParameters.getBulkLoadMaxVariantsInMemory(),
+                tempDirectory);
+        TaskletStep step = stepBuilderFactory.get(BULK_LOAD_SUBSNP_ACCESSION_STEP)
+                                             .tasklet(tasklet)
+                                             .build();
+        return step;
+    }
+}
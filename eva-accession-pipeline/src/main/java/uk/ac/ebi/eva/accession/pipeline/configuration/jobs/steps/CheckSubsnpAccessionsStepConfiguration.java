@@ -19,6 +19,7 @@ package uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.core.step.tasklet.TaskletStep;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,6 +30,7 @@ import org.springframework.context.annotation.Configuration;
 import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
 import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.CoordinatesVcfLineMapper;
 import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.ReportCheckTasklet;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.SortMergeReportCheckTasklet;
 import uk.ac.ebi.eva.commons.batch.io.UnwindingItemStreamReader;
 import uk.ac.ebi.eva.commons.batch.io.VcfReader;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
@@ -58,10 +60,21 @@ public class CheckSubsnpAccessionsStepConfiguration {
         return new UnwindingItemStreamReader<>(vcfReader);
     }
 
+    /**
+     * The report of a bulk load is sorted by contig name instead of following the original VCF, so it's always
+     * checked with the sort-merge tasklet, which doesn't depend on both VCFs having a similar order.
+     */
     @Bean(CHECK_SUBSNP_ACCESSION_STEP)
     public Step checkSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory) throws IOException {
-        ReportCheckTasklet tasklet = new ReportCheckTasklet(inputReader, reportReader(),
-                                                            inputParameters.getChunkSize() * 2);
+        Tasklet tasklet;
+        if (inputParameters.isSortMergeReportCheck() || inputParameters.isBulkLoad()) {
+            File tempDirectory = new File(inputParameters.getOutputVcf()).getAbsoluteFile().getParentFile();
+            tasklet = new SortMergeReportCheckTasklet(inputReader, reportReader(),
+                                                      inputParameters.getSortMergeMaxVariantsInMemory(),
+                                                      tempDirectory);
+        } else {
+            tasklet = new ReportCheckTasklet(inputReader, reportReader(), inputParameters.getChunkSize() * 2);
+        }
         TaskletStep step = stepBuilderFactory.get(CHECK_SUBSNP_ACCESSION_STEP)
                                              .tasklet(tasklet)
                                              .build();
@@ -21,7 +21,7 @@ import org.springframework.batch.core.configuration.annotation.EnableBatchProces
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.batch.core.step.tasklet.TaskletStep;
 import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -29,13 +29,18 @@ import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.pipeline.io.AccessionWriter;
+import uk.ac.ebi.eva.accession.pipeline.io.PipelinedItemStreamReader;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.policies.AdaptiveChunkSizeCompletionPolicy;
 import uk.ac.ebi.eva.accession.pipeline.policies.InvalidVariantSkipPolicy;
+import uk.ac.ebi.eva.accession.pipeline.steps.listeners.StepMetricsListener;
 import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.ACCESSION_WRITER;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PIPELINED_VARIANT_READER;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_PROCESSOR;
 import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_READER;
 
@@ -43,6 +48,9 @@ import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_R
 @EnableBatchProcessing
 public class CreateSubsnpAccessionsStepConfiguration {
 
+    @Autowired
+    private InputParameters inputParameters;
+
     @Autowired
     @Qualifier(VARIANT_READER)
     private ItemReader<Variant> variantReader;
@@ -55,12 +63,22 @@ public class CreateSubsnpAccessionsStepConfiguration {
     @Qualifier(ACCESSION_WRITER)
     private AccessionWriter accessionWriter;
 
+    @Autowired
+    @Qualifier(PIPELINED_VARIANT_READER)
+    private ItemStreamReader<ISubmittedVariant> pipelinedVariantReader;
+
     @Autowired
     private InvalidVariantSkipPolicy invalidVariantSkipPolicy;
 
+    @Autowired
+    private StepMetricsListener stepMetricsListener;
+
     @Bean(CREATE_SUBSNP_ACCESSION_STEP)
     public Step createSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory,
-                                          SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+                                          AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
+        if (inputParameters.isPipelinedReader()) {
+            return createPipelinedStep(stepBuilderFactory, chunkSizeCompletionPolicy);
+        }
         TaskletStep step = stepBuilderFactory.get(CREATE_SUBSNP_ACCESSION_STEP)
                 .<IVariant, ISubmittedVariant>chunk(chunkSizeCompletionPolicy)
                 .reader(variantReader)
@@ -68,7 +86,26 @@ public class CreateSubsnpAccessionsStepConfiguration {
                 .writer(accessionWriter)
                 .faultTolerant()
                 .skipPolicy(invalidVariantSkipPolicy)
+                .listener(stepMetricsListener)
+                .listener(chunkSizeCompletionPolicy)
                 .build();
         return step;
     }
+
+    /**
+     * The variants are read and converted by a {@link PipelinedItemStreamReader}, so the step only accessions and
+     * writes them.
+     */
+    private Step createPipelinedStep(StepBuilderFactory stepBuilderFactory,
+                                     AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
+        return stepBuilderFactory.get(CREATE_SUBSNP_ACCESSION_STEP)
+                .<ISubmittedVariant, ISubmittedVariant>chunk(chunkSizeCompletionPolicy)
+                .reader(pipelinedVariantReader)
+                .writer(accessionWriter)
+                .faultTolerant()
+                .skipPolicy(invalidVariantSkipPolicy)
+                .listener(stepMetricsListener)
+                .listener(chunkSizeCompletionPolicy)
+                .build();
+    }
 }
\ No newline at end of file
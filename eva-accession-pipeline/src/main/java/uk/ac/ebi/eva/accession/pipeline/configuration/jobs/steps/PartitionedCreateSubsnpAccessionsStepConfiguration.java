@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.generators.ConcurrentMonotonicAccessionGenerator;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionWriter;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.policies.AdaptiveChunkSizeCompletionPolicy;
+import uk.ac.ebi.eva.accession.pipeline.policies.InvalidVariantSkipPolicy;
+import uk.ac.ebi.eva.accession.pipeline.steps.listeners.ReleaseUnusedAccessionsListener;
+import uk.ac.ebi.eva.accession.pipeline.steps.listeners.StepMetricsListener;
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
+import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportMerge.MergeAccessionReportsTasklet;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_PARTITION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.MERGE_ACCESSION_REPORTS_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITION_ACCESSION_WRITER;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITION_VARIANT_READER;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VARIANT_PROCESSOR;
+
+/**
+ * Multi-threaded alternative to {@link CreateSubsnpAccessionsStepConfiguration}: the VCF is split by contig with a
+ * {@link ContigPartitioner} and each partition is accessioned in its own thread, writing its own report. The reports
+ * are then merged into the output VCF by the {@link MergeAccessionReportsTasklet}.
+ * <p>
+ * All the partitions share the same accessioning service, so the accessions are still taken from the same blocks.
+ * If the accession generator hands out sub-blocks to each thread, the accessions left in them are released when all
+ * the partitions have finished.
+ */
+@Configuration
+@EnableBatchProcessing
+public class PartitionedCreateSubsnpAccessionsStepConfiguration {
+
+    private static final String PARTITION_THREAD_NAME_PREFIX = "accessioning-partition-";
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    @Autowired
+    @Qualifier(PARTITION_VARIANT_READER)
+    private ItemReader<Variant> partitionVariantReader;
+
+    @Autowired
+    @Qualifier(VARIANT_PROCESSOR)
+    private VariantProcessor variantProcessor;
+
+    @Autowired
+    @Qualifier(PARTITION_ACCESSION_WRITER)
+    private AccessionWriter partitionAccessionWriter;
+
+    @Autowired
+    private InvalidVariantSkipPolicy invalidVariantSkipPolicy;
+
+    @Autowired
+    private StepMetricsListener stepMetricsListener;
+
+    @Autowired
+    private MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    @Bean(PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP)
+    public Step partitionedCreateSubsnpAccessionStep(StepBuilderFactory stepBuilderFactory,
+                                                     AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(PARTITION_THREAD_NAME_PREFIX);
+        taskExecutor.setConcurrencyLimit(getMaxPartitions());
+
+        ContigPartitioner partitioner = new ContigPartitioner(new File(inputParameters.getVcf()),
+                                                              inputParameters.getOutputVcf());
+        PartitionStepBuilder stepBuilder = stepBuilderFactory.get(PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP)
+                .partitioner(CREATE_SUBSNP_ACCESSION_PARTITION_STEP, partitioner)
+                .step(createSubsnpAccessionPartitionStep(stepBuilderFactory, chunkSizeCompletionPolicy))
+                .gridSize(getMaxPartitions())
+                .taskExecutor(taskExecutor);
+        if (accessionGenerator instanceof ConcurrentMonotonicAccessionGenerator) {
+            stepBuilder.listener(new ReleaseUnusedAccessionsListener(
+                    (ConcurrentMonotonicAccessionGenerator<?>) accessionGenerator));
+        }
+        return stepBuilder.build();
+    }
+
+    @Bean(CREATE_SUBSNP_ACCESSION_PARTITION_STEP)
+    public Step createSubsnpAccessionPartitionStep(StepBuilderFactory stepBuilderFactory,
+                                                   AdaptiveChunkSizeCompletionPolicy chunkSizeCompletionPolicy) {
+        TaskletStep step = stepBuilderFactory.get(CREATE_SUBSNP_ACCESSION_PARTITION_STEP)
+                .<IVariant, ISubmittedVariant>chunk(chunkSizeCompletionPolicy)
+                .reader(partitionVariantReader)
+                .processor(variantProcessor)
+                .writer(partitionAccessionWriter)
+                .faultTolerant()
+                .skipPolicy(invalidVariantSkipPolicy)
+                .listener(stepMetricsListener)
+                .listener(chunkSizeCompletionPolicy)
+                .build();
+        return step;
+    }
+
+    @Bean(MERGE_ACCESSION_REPORTS_STEP)
+    public Step mergeAccessionReportsStep(StepBuilderFactory stepBuilderFactory) {
+        MergeAccessionReportsTasklet tasklet = new MergeAccessionReportsTasklet(inputParameters.getOutputVcf(),
+                                                                                getMaxPartitions());
+        return stepBuilderFactory.get(MERGE_ACCESSION_REPORTS_STEP)
+                                 .tasklet(tasklet)
+                                 .build();
+    }
+
+    private int getMaxPartitions() {
+        return Math.max(1, inputParameters.getPartitions());
+    }
+}
@@ -37,9 +37,12 @@ public class AccessionReportWriter implements ItemStreamWriter<AccessionWrapper<
 
     private static final String VCF_MISSING_VALUE = ".";
 
-    private static final String IS_HEADER_WRITTEN_KEY = "AccessionReportWriter_isHeaderWritten";
+    protected static final String IS_HEADER_WRITTEN_KEY = "AccessionReportWriter_isHeaderWritten";
 
-    private static final String IS_HEADER_WRITTEN_VALUE = "true";   // use string because ExecutionContext doesn't support boolean
+    protected static final String IS_HEADER_WRITTEN_VALUE = "true";   // use string because ExecutionContext doesn't support boolean
+
+    protected static final String[] HEADER_LINES = {"##fileformat=VCFv4.2",
+                                                    "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO"};
 
     private static final Logger logger = LoggerFactory.getLogger(AccessionReportWriter.class);
 
@@ -57,6 +60,10 @@ public class AccessionReportWriter implements ItemStreamWriter<AccessionWrapper<
         this.accessionPrefix = ACCESSION_PREFIX;
     }
 
+    protected File getOutput() {
+        return output;
+    }
+
     public String getAccessionPrefix() {
         return accessionPrefix;
     }
@@ -87,10 +94,10 @@ public class AccessionReportWriter implements ItemStreamWriter<AccessionWrapper<
     }
 
     private void writeHeader() throws IOException {
-        fileWriter.write("##fileformat=VCFv4.2");
-        fileWriter.newLine();
-        fileWriter.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
-        fileWriter.newLine();
+        for (String headerLine : HEADER_LINES) {
+            fileWriter.write(headerLine);
+            fileWriter.newLine();
+        }
     }
 
     @Override
@@ -126,7 +133,7 @@ public class AccessionReportWriter implements ItemStreamWriter<AccessionWrapper<
         fileWriter.newLine();
     }
 
-    private ISubmittedVariant denormalizeVariant(ISubmittedVariant normalizedVariant) {
+    protected ISubmittedVariant denormalizeVariant(ISubmittedVariant normalizedVariant) {
         if (normalizedVariant.getReferenceAllele().isEmpty() || normalizedVariant.getAlternateAllele().isEmpty()) {
             if (fastaSequenceReader.doesContigExist(normalizedVariant.getContig())) {
                 return createVariantWithContextBase(normalizedVariant);
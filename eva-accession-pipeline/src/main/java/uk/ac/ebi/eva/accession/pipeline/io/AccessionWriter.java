@@ -15,6 +15,8 @@
  */
 package uk.ac.ebi.eva.accession.pipeline.io;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ExecutionContext;
@@ -35,20 +37,56 @@ public class AccessionWriter implements ItemStreamWriter<ISubmittedVariant> {
 
     private static final Logger logger = LoggerFactory.getLogger(AccessionWriter.class);
 
+    public static final String GET_OR_CREATE_TIMER = "accessioning.getOrCreate";
+
+    public static final String SORT_TIMER = "report.sort";
+
+    public static final String REPORT_WRITE_TIMER = "report.write";
+
+    public static final String REPORT_FLUSH_TIMER = "report.flush";
+
     private SubmittedVariantAccessioningService service;
 
     private AccessionReportWriter accessionReportWriter;
 
+    private final Timer getOrCreateTimer;
+
+    private final Timer sortTimer;
+
+    private final Timer reportWriteTimer;
+
+    private final Timer reportFlushTimer;
+
     public AccessionWriter(SubmittedVariantAccessioningService service, AccessionReportWriter accessionReportWriter) {
+        this(service, accessionReportWriter, new MetricRegistry());
+    }
+
+    /**
+     * @param metricRegistry where the time spent accessioning, sorting and writing the report of every chunk is
+     * recorded
+     */
+    public AccessionWriter(SubmittedVariantAccessioningService service, AccessionReportWriter accessionReportWriter,
+                           MetricRegistry metricRegistry) {
         this.service = service;
         this.accessionReportWriter = accessionReportWriter;
+        this.getOrCreateTimer = metricRegistry.timer(GET_OR_CREATE_TIMER);
+        this.sortTimer = metricRegistry.timer(SORT_TIMER);
+        this.reportWriteTimer = metricRegistry.timer(REPORT_WRITE_TIMER);
+        this.reportFlushTimer = metricRegistry.timer(REPORT_FLUSH_TIMER);
     }
 
     @Override
     public void write(List<? extends ISubmittedVariant> variants) throws Exception {
-        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions = service.getOrCreate(variants);
-        accessions.sort(new AccessionWrapperComparator(variants));
-        accessionReportWriter.write(accessions);
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessions;
+        try (Timer.Context ignored = getOrCreateTimer.time()) {
+            accessions = service.getOrCreate(variants);
+        }
+        try (Timer.Context ignored = sortTimer.time()) {
+            accessions.sort(new AccessionWrapperComparator(variants));
+        }
+        try (Timer.Context ignored = reportWriteTimer.time()) {
+            accessionReportWriter.write(accessions);
+        }
         checkCountsMatch(variants, accessions);
     }
 
@@ -88,7 +126,9 @@ public class AccessionWriter implements ItemStreamWriter<ISubmittedVariant> {
 
     @Override
     public void update(ExecutionContext executionContext) throws ItemStreamException {
-        accessionReportWriter.update(executionContext);
+        try (Timer.Context ignored = reportFlushTimer.time()) {
+            accessionReportWriter.update(executionContext);
+        }
     }
 
     @Override
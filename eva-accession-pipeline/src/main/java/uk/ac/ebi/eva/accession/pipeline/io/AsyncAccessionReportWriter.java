@@ -0,0 +1,307 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Accession report writer that formats the variants in the batch thread, but leaves the actual I/O to a background
+ * thread, so that the time to write a chunk is not added to the time spent accessioning it.
+ * <p>
+ * The formatted chunks are passed to the I/O thread through a bounded queue, and it copies them into a direct buffer
+ * that is written to a {@link FileChannel} when it gets full or when there are no more chunks waiting.
+ * <p>
+ * {@link #update(ExecutionContext)}, which Spring Batch calls before committing each chunk, waits for the I/O thread
+ * to write the queued chunks and sync them to disk, and saves in the execution context the offset at the end of them.
+ * That is one sync per commit, while the chunks in between are written without waiting. A restarted job truncates the
+ * report to the last committed offset instead of appending to whatever was written after it, and fails if the report
+ * is shorter than that offset, as the lines of committed chunks would be missing.
+ */
+public class AsyncAccessionReportWriter extends AccessionReportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncAccessionReportWriter.class);
+
+    static final String WRITTEN_BYTES_KEY = "AccessionReportWriter_writtenBytes";
+
+    private static final String IO_THREAD_NAME = "accession-report-writer";
+
+    private static final int DIRECT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final int queueCapacity;
+
+    private FileChannel channel;
+
+    private BlockingQueue<WriteRequest> queue;
+
+    private Thread ioThread;
+
+    private volatile IOException ioThreadException;
+
+    public AsyncAccessionReportWriter(File output, FastaSequenceReader fastaSequenceReader) throws IOException {
+        this(output, fastaSequenceReader, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param queueCapacity maximum number of formatted chunks waiting to be written. When the queue is full, {@link
+     * #write} blocks until the I/O thread catches up.
+     */
+    public AsyncAccessionReportWriter(File output, FastaSequenceReader fastaSequenceReader, int queueCapacity)
+            throws IOException {
+        super(output, fastaSequenceReader);
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("The queue capacity must be a positive number");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        File output = getOutput();
+        boolean isHeaderAlreadyWritten = IS_HEADER_WRITTEN_VALUE.equals(executionContext.get(IS_HEADER_WRITTEN_KEY));
+        try {
+            channel = FileChannel.open(output.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (executionContext.containsKey(WRITTEN_BYTES_KEY)) {
+                long committedBytes = executionContext.getLong(WRITTEN_BYTES_KEY);
+                if (channel.size() > committedBytes) {
+                    logger.info("Discarding {} bytes written to {} after the last committed chunk",
+                                channel.size() - committedBytes, output);
+                    channel.truncate(committedBytes);
+                } else if (channel.size() < committedBytes) {
+                    long size = channel.size();
+                    channel.close();
+                    throw new ItemStreamException(
+                            "The accession report " + output + " has " + size + " bytes, but the " +
+                                    "committed chunks ended at byte " + committedBytes + ". The file was modified " +
+                                    "after the previous execution stopped, and the lines of some committed chunks " +
+                                    "are missing.");
+                }
+                channel.position(channel.size());
+            } else {
+                if (channel.size() > 0 && !isHeaderAlreadyWritten) {
+                    logger.warn("According to the job's execution context, the accession report should not exist, " +
+                                        "but it does exist. The AsyncAccessionReportWriter will append to the file, " +
+                                        "but it's possible that there will be 2 non-contiguous header sections in " +
+                                        "the report VCF.");
+                }
+                channel.position(channel.size());
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        }
+
+        BlockingQueue<WriteRequest> requests = new ArrayBlockingQueue<>(queueCapacity);
+        queue = requests;
+        ioThreadException = null;
+        ioThread = new Thread(() -> writeQueuedRequests(requests), IO_THREAD_NAME);
+        ioThread.setDaemon(true);
+        ioThread.start();
+
+        if (!isHeaderAlreadyWritten) {
+            StringBuilder header = new StringBuilder();
+            for (String headerLine : HEADER_LINES) {
+                header.append(headerLine).append(LINE_SEPARATOR);
+            }
+            try {
+                enqueue(new WriteRequest(header.toString().getBytes(StandardCharsets.UTF_8), null));
+            } catch (IOException e) {
+                throw new ItemStreamException(e);
+            }
+            executionContext.put(IS_HEADER_WRITTEN_KEY, IS_HEADER_WRITTEN_VALUE);
+        }
+    }
+
+    @Override
+    public void write(List<? extends AccessionWrapper<ISubmittedVariant, String, Long>> accessions)
+            throws IOException {
+        if (queue == null) {
+            throw new IOException("The file " + getOutput() + " was not opened properly. Hint: Check that the code " +
+                                          "called AccessionReportWriter::open");
+        }
+        throwIfIoThreadFailed();
+        StringBuilder lines = new StringBuilder();
+        for (AccessionWrapper<ISubmittedVariant, String, Long> variant : accessions) {
+            ISubmittedVariant denormalizedVariant = denormalizeVariant(variant.getData());
+            lines.append(variantToVcfLine(variant.getAccession(), denormalizedVariant)).append(LINE_SEPARATOR);
+        }
+        enqueue(new WriteRequest(lines.toString().getBytes(StandardCharsets.UTF_8), null));
+    }
+
+    /**
+     * Waits for the chunks written so far to be synced to disk, and saves the offset at the end of them.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (queue == null) {
+            return;
+        }
+        try {
+            executionContext.putLong(WRITTEN_BYTES_KEY, sync());
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (queue == null) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            throw new ItemStreamException(e);
+        } finally {
+            ioThread.interrupt();
+            queue = null;
+            try {
+                ioThread.join();
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ItemStreamException(e);
+            }
+        }
+    }
+
+    private long sync() throws IOException {
+        CompletableFuture<Long> synced = new CompletableFuture<>();
+        enqueue(new WriteRequest(null, synced));
+        try {
+            return synced.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the accession report to be written", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not write the accession report " + getOutput(), e.getCause());
+        }
+    }
+
+    private void enqueue(WriteRequest request) throws IOException {
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to write into the accession report", e);
+        }
+    }
+
+    private void throwIfIoThreadFailed() throws IOException {
+        IOException exception = ioThreadException;
+        if (exception != null) {
+            throw new IOException("Could not write the accession report " + getOutput(), exception);
+        }
+    }
+
+    /**
+     * Body of the I/O thread. After a failure, the remaining requests are still consumed so that the batch thread is
+     * never blocked on a full queue, and the error is reported on the next write or sync.
+     */
+    private void writeQueuedRequests(BlockingQueue<WriteRequest> requests) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        try {
+            while (true) {
+                WriteRequest request = requests.take();
+                if (request.bytes != null) {
+                    if (ioThreadException == null) {
+                        try {
+                            copyToChannel(request.bytes, buffer);
+                            if (requests.isEmpty()) {
+                                flushBuffer(buffer);
+                            }
+                        } catch (IOException e) {
+                            ioThreadException = e;
+                        }
+                    }
+                } else {
+                    syncChannel(buffer, request.synced);
+                }
+            }
+        } catch (InterruptedException e) {
+            // close() has already synced everything, so there is nothing left to write
+        }
+    }
+
+    private void copyToChannel(byte[] bytes, ByteBuffer buffer) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer(buffer);
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void flushBuffer(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void syncChannel(ByteBuffer buffer, CompletableFuture<Long> synced) {
+        if (ioThreadException != null) {
+            synced.completeExceptionally(ioThreadException);
+            return;
+        }
+        try {
+            flushBuffer(buffer);
+            channel.force(false);
+            synced.complete(channel.position());
+        } catch (IOException e) {
+            ioThreadException = e;
+            synced.completeExceptionally(e);
+        }
+    }
+
+    private static class WriteRequest {
+
+        private final byte[] bytes;
+
+        private final CompletableFuture<Long> synced;
+
+        WriteRequest(byte[] bytes, CompletableFuture<Long> synced) {
+            this.bytes = bytes;
+            this.synced = synced;
+        }
+    }
+}
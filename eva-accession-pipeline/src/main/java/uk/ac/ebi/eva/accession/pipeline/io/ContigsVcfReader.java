@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import htsjdk.tribble.readers.TabixReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.util.ClassUtils;
+
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.utils.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads only the variants of some contigs from a VCF.
+ * <p>
+ * If a tabix index is provided, the reader will seek to each contig, so that the variants of other contigs are not
+ * even decompressed. Otherwise the whole VCF is read, but only the lines of the requested contigs are parsed.
+ * <p>
+ * Restarts are supported by counting the read items, as in {@link org.springframework.batch.item.file.FlatFileItemReader}.
+ */
+public class ContigsVcfReader extends AbstractItemCountingItemStreamItemReader<List<Variant>> {
+
+    private final File vcf;
+
+    private final File tabixIndex;
+
+    private final List<String> contigs;
+
+    private final Set<String> contigsSet;
+
+    private final LineMapper<List<Variant>> lineMapper;
+
+    private int lineCount;
+
+    private BufferedReader vcfReader;
+
+    private TabixReader tabixReader;
+
+    private Iterator<String> remainingContigs;
+
+    private TabixReader.Iterator contigIterator;
+
+    /**
+     * @param tabixIndex can be null, in that case the whole VCF will be read
+     */
+    public ContigsVcfReader(File vcf, File tabixIndex, List<String> contigs, LineMapper<List<Variant>> lineMapper) {
+        this.vcf = vcf;
+        this.tabixIndex = tabixIndex;
+        this.contigs = new ArrayList<>(contigs);
+        this.contigsSet = new HashSet<>(contigs);
+        this.lineMapper = lineMapper;
+        setName(ClassUtils.getShortName(ContigsVcfReader.class));
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        lineCount = 0;
+        if (tabixIndex != null) {
+            tabixReader = new TabixReader(vcf.getPath(), tabixIndex.getPath());
+            remainingContigs = contigs.iterator();
+        } else {
+            InputStream inputStream = new FileInputStream(vcf);
+            if (FileUtils.isGzip(vcf)) {
+                inputStream = new GZIPInputStream(inputStream);
+            }
+            vcfReader = new BufferedReader(new InputStreamReader(inputStream));
+        }
+    }
+
+    @Override
+    protected List<Variant> doRead() throws Exception {
+        String line = tabixReader != null ? readNextIndexedLine() : readNextLineOfContigs();
+        if (line == null) {
+            return null;
+        }
+        try {
+            return lineMapper.mapLine(line, lineCount);
+        } catch (Exception e) {
+            throw new FlatFileParseException("Parsing error at line: " + lineCount + " in VCF " + vcf + ", input=["
+                                                     + line + "]", e, line, lineCount);
+        }
+    }
+
+    private String readNextIndexedLine() throws IOException {
+        while (true) {
+            if (contigIterator == null) {
+                if (!remainingContigs.hasNext()) {
+                    return null;
+                }
+                String contig = remainingContigs.next();
+                int contigId = tabixReader.chr2tid(contig);
+                if (contigId == -1) {
+                    continue;
+                }
+                contigIterator = tabixReader.query(contigId, 0, Integer.MAX_VALUE);
+            }
+            String line = contigIterator.next();
+            if (line != null) {
+                lineCount++;
+                return line;
+            }
+            contigIterator = null;
+        }
+    }
+
+    private String readNextLineOfContigs() throws IOException {
+        String line;
+        while ((line = vcfReader.readLine()) != null) {
+            lineCount++;
+            if (!line.startsWith("#") && contigsSet.contains(getContig(line))) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private String getContig(String line) {
+        int endOfContig = line.indexOf('\t');
+        return endOfContig == -1 ? line : line.substring(0, endOfContig);
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (tabixReader != null) {
+            tabixReader.close();
+            tabixReader = null;
+        }
+        if (vcfReader != null) {
+            vcfReader.close();
+            vcfReader = null;
+        }
+        contigIterator = null;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts an arbitrary number of items keeping at most a fixed number of them in memory.
+ * <p>
+ * The items are accumulated in memory and, every time the limit is reached, they are sorted and written to a spill
+ * file with the given {@link Codec}. When all the items have been added, the spill files are merged and the sorted
+ * items can be iterated. If there are too many spill files to be opened at once, they are merged in several passes.
+ */
+public class ExternalSorter<T extends Comparable<? super T>> implements Closeable {
+
+    private static final String SPILL_FILE_SUFFIX = ".spill";
+
+    private static final int MAX_MERGED_FILES = 128;
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final File tempDirectory;
+
+    private final int maxItemsInMemory;
+
+    private final String spillFilePrefix;
+
+    private final Codec<T> codec;
+
+    private final List<T> buffer;
+
+    private final List<File> spillFiles;
+
+    private final List<Closeable> openIterators;
+
+    private long maxBufferSize;
+
+    private long sortedRuns;
+
+    /**
+     * @param tempDirectory where the spill files will be written, or null to use the default temporary directory
+     * @param spillFilePrefix prefix of the names of the spill files, at least 3 characters long
+     */
+    public ExternalSorter(File tempDirectory, int maxItemsInMemory, String spillFilePrefix, Codec<T> codec) {
+        if (maxItemsInMemory < 1) {
+            throw new IllegalArgumentException("The number of items in memory must be a positive number");
+        }
+        this.tempDirectory = tempDirectory;
+        this.maxItemsInMemory = maxItemsInMemory;
+        this.spillFilePrefix = spillFilePrefix;
+        this.codec = codec;
+        this.buffer = new ArrayList<>();
+        this.spillFiles = new ArrayList<>();
+        this.openIterators = new ArrayList<>();
+        this.maxBufferSize = 0;
+        this.sortedRuns = 0;
+    }
+
+    public void add(T item) throws IOException {
+        buffer.add(item);
+        maxBufferSize = Math.max(maxBufferSize, buffer.size());
+        if (buffer.size() >= maxItemsInMemory) {
+            spillBuffer();
+        }
+    }
+
+    /**
+     * @return iterator over all the added items, in order. Repeated items are returned as many times as they were
+     * added.
+     */
+    public SortedIterator<T> sort() throws IOException {
+        if (spillFiles.isEmpty()) {
+            Collections.sort(buffer);
+            sortedRuns++;
+            return new BufferIterator<>(new ArrayList<>(buffer));
+        }
+        if (!buffer.isEmpty()) {
+            spillBuffer();
+        }
+        while (spillFiles.size() > MAX_MERGED_FILES) {
+            mergeSpillFiles();
+        }
+        List<SortedIterator<T>> iterators = new ArrayList<>();
+        for (File spillFile : spillFiles) {
+            iterators.add(openSpillFile(spillFile));
+        }
+        return new MergingIterator<>(iterators);
+    }
+
+    public long getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    /**
+     * @return number of times a group of items was sorted in memory
+     */
+    public long getSortedRuns() {
+        return sortedRuns;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear();
+        for (Closeable iterator : openIterators) {
+            iterator.close();
+        }
+        openIterators.clear();
+        for (File spillFile : spillFiles) {
+            Files.deleteIfExists(spillFile.toPath());
+        }
+        spillFiles.clear();
+    }
+
+    private void spillBuffer() throws IOException {
+        Collections.sort(buffer);
+        sortedRuns++;
+        spillFiles.add(writeSpillFile(new BufferIterator<>(buffer), buffer.size()));
+        buffer.clear();
+    }
+
+    private File writeSpillFile(SortedIterator<T> items, long count) throws IOException {
+        File spillFile = File.createTempFile(spillFilePrefix, SPILL_FILE_SUFFIX, tempDirectory);
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(spillFile), IO_BUFFER_SIZE))) {
+            output.writeLong(count);
+            T item;
+            while ((item = items.next()) != null) {
+                codec.write(item, output);
+            }
+        }
+        return spillFile;
+    }
+
+    private void mergeSpillFiles() throws IOException {
+        List<File> filesToMerge = new ArrayList<>(spillFiles.subList(0, MAX_MERGED_FILES));
+        List<SortedIterator<T>> iterators = new ArrayList<>();
+        long count = 0;
+        for (File spillFile : filesToMerge) {
+            SpillFileIterator<T> iterator = openSpillFile(spillFile);
+            count += iterator.remaining;
+            iterators.add(iterator);
+        }
+        File mergedFile;
+        try (MergingIterator<T> mergingIterator = new MergingIterator<>(iterators)) {
+            mergedFile = writeSpillFile(mergingIterator, count);
+        }
+        openIterators.removeAll(iterators);
+        for (File spillFile : filesToMerge) {
+            Files.delete(spillFile.toPath());
+        }
+        spillFiles.removeAll(filesToMerge);
+        spillFiles.add(mergedFile);
+    }
+
+    private SpillFileIterator<T> openSpillFile(File spillFile) throws IOException {
+        SpillFileIterator<T> iterator = new SpillFileIterator<>(spillFile, codec);
+        openIterators.add(iterator);
+        return iterator;
+    }
+
+    /**
+     * Binary representation of the items in the spill files.
+     */
+    public interface Codec<T> {
+
+        void write(T item, DataOutput output) throws IOException;
+
+        T read(DataInput input) throws IOException;
+
+        /**
+         * Writes the UTF-8 bytes of the string preceded by their number. Unlike {@link DataOutput#writeUTF(String)},
+         * it's not limited to 64KB, which some alleles exceed.
+         */
+        static void writeString(String value, DataOutput output) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        /**
+         * Reads a string written by {@link #writeString(String, DataOutput)}.
+         */
+        static String readString(DataInput input) throws IOException {
+            byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    public interface SortedIterator<T> extends Closeable {
+
+        /**
+         * @return the next item, or null if there are no more items
+         */
+        T next() throws IOException;
+    }
+
+    private static class BufferIterator<T> implements SortedIterator<T> {
+
+        private final Iterator<T> iterator;
+
+        BufferIterator(List<T> sortedItems) {
+            this.iterator = sortedItems.iterator();
+        }
+
+        @Override
+        public T next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class SpillFileIterator<T> implements SortedIterator<T> {
+
+        private final DataInputStream input;
+
+        private final Codec<T> codec;
+
+        private long remaining;
+
+        SpillFileIterator(File spillFile, Codec<T> codec) throws IOException {
+            this.input = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(spillFile), IO_BUFFER_SIZE));
+            this.codec = codec;
+            this.remaining = input.readLong();
+        }
+
+        @Override
+        public T next() throws IOException {
+            if (remaining == 0) {
+                return null;
+            }
+            remaining--;
+            return codec.read(input);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private static class MergingIterator<T extends Comparable<? super T>> implements SortedIterator<T> {
+
+        private final List<SortedIterator<T>> iterators;
+
+        private final PriorityQueue<Head<T>> heads;
+
+        MergingIterator(List<SortedIterator<T>> iterators) throws IOException {
+            this.iterators = iterators;
+            this.heads = new PriorityQueue<>(Math.max(1, iterators.size()));
+            for (SortedIterator<T> iterator : iterators) {
+                T first = iterator.next();
+                if (first != null) {
+                    heads.add(new Head<>(first, iterator));
+                }
+            }
+        }
+
+        @Override
+        public T next() throws IOException {
+            Head<T> head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+            T next = head.iterator.next();
+            if (next != null) {
+                heads.add(new Head<>(next, head.iterator));
+            }
+            return head.item;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (SortedIterator<T> iterator : iterators) {
+                iterator.close();
+            }
+        }
+    }
+
+    private static class Head<T extends Comparable<? super T>> implements Comparable<Head<T>> {
+
+        private final T item;
+
+        private final SortedIterator<T> iterator;
+
+        Head(T item, SortedIterator<T> iterator) {
+            this.item = item;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public int compareTo(Head<T> other) {
+            return item.compareTo(other.item);
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package uk.ac.ebi.eva.accession.pipeline.io;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.FastaSequenceIndexCreator;
@@ -27,25 +29,94 @@ import org.slf4j.LoggerFactory;
 import uk.ac.ebi.eva.commons.core.utils.FileUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Reads regions from a given FASTA file, and also creates the associated index and dictionary files if they do not
  * exist.
+ * <p>
+ * Most requests are for a single context base, so the FASTA is read in blocks of {@link #CACHE_BLOCK_SIZE} bases
+ * that are kept in memory with a least-recently-used eviction policy, up to a configurable amount of memory.
+ * Sequences longer than a block are read directly from the file.
+ * <p>
+ * Alternatively, the FASTA can be mapped in memory (see {@link MappedFastaSequenceFile}), in which case the blocks
+ * are not cached because the bases are read directly from the mapped pages.
+ * <p>
+ * This class is only thread safe if the FASTA is mapped in memory.
  */
 public class FastaSequenceReader {
 
     private static final Logger logger = LoggerFactory.getLogger(FastaSequenceReader.class);
 
+    public static final int CACHE_BLOCK_SIZE = 64 * 1024;
+
+    public static final long DEFAULT_MAX_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static final String FASTA_INDEX_EXTENSION = ".fai";
+
+    public static final String GET_SEQUENCE_TIMER = "fasta.getSequence";
+
     private ReferenceSequenceFile fastaSequenceFile;
 
     private SAMSequenceDictionary sequenceDictionary;
 
+    private MappedFastaSequenceFile mappedFastaSequenceFile;
+
+    private final Map<BlockKey, byte[]> blockCache;
+
+    private final int maxCachedBlocks;
+
+    private long cacheHits;
+
+    private long cacheMisses;
+
+    private final Timer getSequenceTimer;
+
     public FastaSequenceReader(Path fastaPath) throws IOException {
+        this(fastaPath, DEFAULT_MAX_CACHE_BYTES);
+    }
+
+    /**
+     * @param maxCacheBytes maximum memory used by the cached blocks. If it's smaller than a block, the cache is
+     * disabled and every sequence is read from the file.
+     */
+    public FastaSequenceReader(Path fastaPath, long maxCacheBytes) throws IOException {
+        this(fastaPath, maxCacheBytes, false);
+    }
+
+    /**
+     * @param maxCacheBytes maximum memory used by the cached blocks, ignored if the FASTA is mapped in memory
+     * @param memoryMapped whether to map the FASTA in memory instead of reading it through htsjdk
+     */
+    public FastaSequenceReader(Path fastaPath, long maxCacheBytes, boolean memoryMapped) throws IOException {
+        this(fastaPath, maxCacheBytes, memoryMapped, null);
+    }
+
+    /**
+     * @param metricRegistry where the time spent in {@link #getSequence} is recorded, or null to not publish it
+     */
+    public FastaSequenceReader(Path fastaPath, long maxCacheBytes, boolean memoryMapped,
+                               MetricRegistry metricRegistry) throws IOException {
+        getSequenceTimer = (metricRegistry != null ? metricRegistry : new MetricRegistry()).timer(GET_SEQUENCE_TIMER);
+        if (maxCacheBytes < 0) {
+            throw new IllegalArgumentException("The maximum size of the FASTA cache can't be negative");
+        }
+        maxCachedBlocks = memoryMapped ? 0 : (int) Math.min(Integer.MAX_VALUE, maxCacheBytes / CACHE_BLOCK_SIZE);
+        blockCache = new LinkedHashMap<BlockKey, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlockKey, byte[]> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        };
+
         checkFastaIsUncompressed(fastaPath);
         fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
         sequenceDictionary = fastaSequenceFile.getSequenceDictionary();
@@ -59,6 +130,10 @@ public class FastaSequenceReader {
             FastaSequenceIndexCreator.create(fastaPath, true);
             fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
         }
+        if (memoryMapped) {
+            Path indexPath = fastaPath.resolveSibling(fastaPath.getFileName() + FASTA_INDEX_EXTENSION);
+            mappedFastaSequenceFile = new MappedFastaSequenceFile(fastaPath, indexPath);
+        }
     }
 
     /**
@@ -105,9 +180,68 @@ public class FastaSequenceReader {
      * @throws IllegalArgumentException If the coordinates are not correct
      */
     public String getSequence(String contig, long start, long end) throws IllegalArgumentException {
+        try (Timer.Context ignored = getSequenceTimer.time()) {
+            return readSequence(contig, start, end);
+        }
+    }
+
+    private String readSequence(String contig, long start, long end) {
         checkArguments(contig, start, end);
 
-        return fastaSequenceFile.getSubsequenceAt(contig, start, end).getBaseString();
+        if (mappedFastaSequenceFile != null) {
+            return mappedFastaSequenceFile.getSubsequenceAt(contig, start, end);
+        }
+        if (maxCachedBlocks == 0 || end - start + 1 > CACHE_BLOCK_SIZE) {
+            return fastaSequenceFile.getSubsequenceAt(contig, start, end).getBaseString();
+        }
+        return getCachedSequence(contig, start, end);
+    }
+
+    /**
+     * The requested sequence can span at most 2 blocks, because it's not longer than a block.
+     */
+    private String getCachedSequence(String contig, long start, long end) {
+        long startBlock = (start - 1) / CACHE_BLOCK_SIZE;
+        long endBlock = (end - 1) / CACHE_BLOCK_SIZE;
+        byte[] block = getBlock(contig, startBlock);
+        int offset = (int) ((start - 1) % CACHE_BLOCK_SIZE);
+        if (startBlock == endBlock) {
+            return new String(block, offset, (int) (end - start + 1), StandardCharsets.US_ASCII);
+        }
+        byte[] nextBlock = getBlock(contig, endBlock);
+        int lengthInNextBlock = (int) ((end - 1) % CACHE_BLOCK_SIZE) + 1;
+        return new String(block, offset, block.length - offset, StandardCharsets.US_ASCII)
+                + new String(nextBlock, 0, lengthInNextBlock, StandardCharsets.US_ASCII);
+    }
+
+    private byte[] getBlock(String contig, long blockIndex) {
+        BlockKey key = new BlockKey(contig, blockIndex);
+        byte[] block = blockCache.get(key);
+        if (block != null) {
+            cacheHits++;
+            return block;
+        }
+        cacheMisses++;
+        long blockStart = blockIndex * CACHE_BLOCK_SIZE + 1;
+        long contigLength = sequenceDictionary.getSequence(contig).getSequenceLength();
+        long blockEnd = Math.min(blockStart + CACHE_BLOCK_SIZE - 1, contigLength);
+        block = fastaSequenceFile.getSubsequenceAt(contig, blockStart, blockEnd).getBases();
+        blockCache.put(key, block);
+        return block;
+    }
+
+    /**
+     * @return number of sequences (or parts of a sequence spanning 2 blocks) read from the cached blocks
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return number of blocks read from the FASTA file
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
     }
 
     private void checkArguments(String contig, long start, long end) throws IllegalArgumentException {
@@ -131,11 +265,53 @@ public class FastaSequenceReader {
         return sequenceDictionary.getSequence(contig) != null;
     }
 
+    /**
+     * @return the names of the contigs in the sequence dictionary, in the same order
+     */
+    public List<String> getContigNames() {
+        List<String> contigs = new ArrayList<>();
+        for (SAMSequenceRecord sequence : sequenceDictionary.getSequences()) {
+            contigs.add(sequence.getSequenceName());
+        }
+        return contigs;
+    }
+
     /**
      * Close the underlying FASTA file
      * @throws Exception If the file cannot be closed
      */
     public void close() throws Exception {
+        if (maxCachedBlocks > 0) {
+            logger.debug("FASTA block cache hits: {}; misses: {}", cacheHits, cacheMisses);
+        }
+        blockCache.clear();
+        mappedFastaSequenceFile = null;
         fastaSequenceFile.close();
     }
+
+    private static class BlockKey {
+
+        private final String contig;
+
+        private final long blockIndex;
+
+        BlockKey(String contig, long blockIndex) {
+            this.contig = contig;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            BlockKey blockKey = (BlockKey) o;
+            return blockIndex == blockKey.blockIndex && contig.equals(blockKey.contig);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(contig, blockIndex);
+        }
+    }
 }
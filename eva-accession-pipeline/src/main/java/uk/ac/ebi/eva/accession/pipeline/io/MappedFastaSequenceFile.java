@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads sequences from a FASTA file mapped in memory, using the offsets and line layout of its index (.fai) to
+ * compute the position of each base.
+ * <p>
+ * Files larger than what a single {@link MappedByteBuffer} can address are mapped in several segments. The buffers
+ * are only accessed with absolute reads, which don't modify their state, so this class is thread safe.
+ */
+class MappedFastaSequenceFile {
+
+    private static final int SEGMENT_SIZE_BITS = 30;
+
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SIZE_BITS;
+
+    private static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private final Map<String, IndexEntry> index;
+
+    private final MappedByteBuffer[] segments;
+
+    MappedFastaSequenceFile(Path fastaPath, Path indexPath) throws IOException {
+        this.index = readIndex(indexPath);
+        try (FileChannel channel = FileChannel.open(fastaPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int numSegments = (int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long segmentStart = i * SEGMENT_SIZE;
+                long segmentSize = Math.min(SEGMENT_SIZE, fileSize - segmentStart);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentSize);
+            }
+        }
+    }
+
+    /**
+     * @param start 1-based position of the first base, which must be inside the contig
+     * @param end 1-based position of the last base, which must be inside the contig
+     */
+    String getSubsequenceAt(String contig, long start, long end) {
+        IndexEntry entry = index.get(contig);
+        int basesPerLine = entry.basesPerLine;
+        int bytesPerLine = entry.bytesPerLine;
+        byte[] bases = new byte[(int) (end - start + 1)];
+        int copied = 0;
+        long position = start - 1;
+        while (copied < bases.length) {
+            long line = position / basesPerLine;
+            int column = (int) (position % basesPerLine);
+            int basesInThisLine = Math.min(basesPerLine - column, bases.length - copied);
+            long offset = entry.location + line * bytesPerLine + column;
+            for (int i = 0; i < basesInThisLine; i++) {
+                bases[copied++] = getByte(offset + i);
+            }
+            position += basesInThisLine;
+        }
+        return new String(bases, StandardCharsets.US_ASCII);
+    }
+
+    private byte getByte(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SIZE_BITS)].get((int) (offset & SEGMENT_OFFSET_MASK));
+    }
+
+    /**
+     * Reads the .fai columns: contig name, length, offset of the first base, bases per line and bytes per line.
+     * The htsjdk index entries are not public, so they can't be reused.
+     */
+    private static Map<String, IndexEntry> readIndex(Path indexPath) throws IOException {
+        Map<String, IndexEntry> index = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length < 5) {
+                    throw new IOException("Malformed line in FASTA index " + indexPath + ": " + line);
+                }
+                index.put(columns[0], new IndexEntry(Long.parseLong(columns[2]), Integer.parseInt(columns[3]),
+                                                     Integer.parseInt(columns[4])));
+            }
+        }
+        return index;
+    }
+
+    private static class IndexEntry {
+
+        private final long location;
+
+        private final int basesPerLine;
+
+        private final int bytesPerLine;
+
+        IndexEntry(long location, int basesPerLine, int bytesPerLine) {
+            this.location = location;
+            this.basesPerLine = basesPerLine;
+            this.bytesPerLine = bytesPerLine;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reader that reads and processes the items in a background thread, so that parsing the input overlaps with the
+ * writing of the previous chunks (usually waiting for the database) in the step thread.
+ * <p>
+ * The items are handed over in blocks through a bounded queue, so the background thread stops when it gets too far
+ * ahead. Any exception thrown while reading or processing an item is rethrown by {@link #read()} at the same position,
+ * so that the skip policy of the step sees the same errors as with a plain reader and processor.
+ * <p>
+ * The delegate reader runs ahead of the chunks committed by the step, so its state can't be used to restart. Instead,
+ * the number of items handed over to the step is saved in {@link #update(ExecutionContext)}, which Spring Batch calls
+ * before committing each chunk, and on restart that many items are read again and discarded.
+ * <p>
+ * The delegate reader and processor are only used from the background thread once the reader is opened, so they
+ * must not be step-scoped proxies.
+ */
+public class PipelinedItemStreamReader<I, O> implements ItemStreamReader<O> {
+
+    private static final String CONSUMED_ITEMS_KEY = "PipelinedItemStreamReader_consumedItems";
+
+    private static final String THREAD_NAME = "pipelined-reader";
+
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private final ItemStreamReader<I> delegate;
+
+    private final ItemProcessor<? super I, ? extends O> processor;
+
+    private final int blockSize;
+
+    private final int queueCapacity;
+
+    private BlockingQueue<List<Result<O>>> queue;
+
+    private Thread readerThread;
+
+    private List<Result<O>> currentBlock;
+
+    private int positionInBlock;
+
+    private long consumedItems;
+
+    public PipelinedItemStreamReader(ItemStreamReader<I> delegate, ItemProcessor<? super I, ? extends O> processor) {
+        this(delegate, processor, DEFAULT_BLOCK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param blockSize number of items handed over to the step thread at once
+     * @param queueCapacity maximum number of blocks waiting to be read by the step thread
+     */
+    public PipelinedItemStreamReader(ItemStreamReader<I> delegate, ItemProcessor<? super I, ? extends O> processor,
+                                     int blockSize, int queueCapacity) {
+        if (blockSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The block size and queue capacity must be positive numbers");
+        }
+        this.delegate = delegate;
+        this.processor = processor;
+        this.blockSize = blockSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        long itemsToSkip = executionContext.containsKey(CONSUMED_ITEMS_KEY) ?
+                executionContext.getLong(CONSUMED_ITEMS_KEY) : 0;
+        delegate.open(new ExecutionContext());
+        consumedItems = 0;
+        currentBlock = Collections.emptyList();
+        positionInBlock = 0;
+
+        BlockingQueue<List<Result<O>>> blocks = new ArrayBlockingQueue<>(queueCapacity);
+        queue = blocks;
+        readerThread = new Thread(() -> readBlocks(blocks, itemsToSkip), THREAD_NAME);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * @return the next processed item, or null if there are no more items. Items filtered by the processor are not
+     * returned.
+     */
+    @Override
+    public O read() throws Exception {
+        if (queue == null) {
+            throw new IllegalStateException("The reader must be opened before reading");
+        }
+        while (true) {
+            if (positionInBlock == currentBlock.size()) {
+                currentBlock = queue.take();
+                positionInBlock = 0;
+                if (currentBlock.isEmpty()) {
+                    // end of the input, keep returning null if read() is called again
+                    queue.put(currentBlock);
+                    return null;
+                }
+            }
+            Result<O> result = currentBlock.get(positionInBlock++);
+            consumedItems++;
+            if (result.exception != null) {
+                throw result.exception;
+            }
+            if (result.item != null) {
+                return result.item;
+            }
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(CONSUMED_ITEMS_KEY, consumedItems);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (queue == null) {
+            return;
+        }
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ItemStreamException("Interrupted while waiting for the reader thread to finish", e);
+        } finally {
+            queue = null;
+            currentBlock = Collections.emptyList();
+            delegate.close();
+        }
+    }
+
+    /**
+     * Body of the background thread. The end of the input is signalled with an empty block. If the delegate fails in
+     * a way that can't be skipped, the step will fail when it reads the exception, and this thread just stops.
+     */
+    private void readBlocks(BlockingQueue<List<Result<O>>> blocks, long itemsToSkip) {
+        try {
+            for (long skipped = 0; skipped < itemsToSkip; skipped++) {
+                if (readAndProcess().isEndOfInput()) {
+                    break;
+                }
+            }
+            List<Result<O>> block = new ArrayList<>(blockSize);
+            while (true) {
+                Result<O> result = readAndProcess();
+                if (result.isEndOfInput()) {
+                    break;
+                }
+                block.add(result);
+                if (block.size() == blockSize) {
+                    blocks.put(block);
+                    block = new ArrayList<>(blockSize);
+                }
+            }
+            if (!block.isEmpty()) {
+                blocks.put(block);
+            }
+            blocks.put(Collections.emptyList());
+        } catch (InterruptedException e) {
+            // the reader was closed before reaching the end of the input
+        } catch (Throwable throwable) {
+            // unexpected error, report it to the step instead of leaving it waiting forever
+            Exception exception = new IllegalStateException("The reader thread failed", throwable);
+            try {
+                blocks.put(Collections.singletonList(new Result<>(null, exception)));
+            } catch (InterruptedException e) {
+                // the reader was closed, nobody is waiting for more items
+            }
+        }
+    }
+
+    private Result<O> readAndProcess() {
+        try {
+            I item = delegate.read();
+            if (item == null) {
+                return Result.endOfInput();
+            }
+            return new Result<>(processor.process(item), null);
+        } catch (Exception e) {
+            return new Result<>(null, e);
+        }
+    }
+
+    private static class Result<O> {
+
+        private static final Result<?> END_OF_INPUT = new Result<>(null, null);
+
+        private final O item;
+
+        private final Exception exception;
+
+        Result(O item, Exception exception) {
+            this.item = item;
+            this.exception = exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <O> Result<O> endOfInput() {
+            return (Result<O>) END_OF_INPUT;
+        }
+
+        boolean isEndOfInput() {
+            return this == END_OF_INPUT;
+        }
+    }
+}
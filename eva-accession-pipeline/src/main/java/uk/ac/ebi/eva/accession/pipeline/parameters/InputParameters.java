@@ -40,8 +40,40 @@ public class InputParameters {
 
     private int chunkSize;
 
+    private boolean adaptiveChunkSize;
+
+    private int minChunkSize = 1;
+
+    private int maxChunkSize = 10000;
+
+    private long targetChunkMillis = 1000;
+
+    private int partitions;
+
+    private boolean asyncReportWriter;
+
+    private boolean pipelinedReader;
+
+    private boolean sortMergeReportCheck;
+
+    private int sortMergeMaxVariantsInMemory = 500000;
+
+    private boolean bulkLoad;
+
+    private int bulkLoadBatchSize = 10000;
+
+    private int bulkLoadMaxVariantsInMemory = 500000;
+
+    private int fastaCacheSizeMb;
+
+    private boolean memoryMappedFasta;
+
     private boolean forceRestart;
 
+    private String metricsDirectory;
+
+    private int metricsReportPeriodSeconds;
+
     public String getVcf() {
         return vcf;
     }
@@ -114,6 +146,138 @@ public class InputParameters {
         this.chunkSize = chunkSize;
     }
 
+    public boolean isAdaptiveChunkSize() {
+        return adaptiveChunkSize;
+    }
+
+    public void setAdaptiveChunkSize(boolean adaptiveChunkSize) {
+        this.adaptiveChunkSize = adaptiveChunkSize;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public void setMinChunkSize(int minChunkSize) {
+        this.minChunkSize = minChunkSize;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public void setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public long getTargetChunkMillis() {
+        return targetChunkMillis;
+    }
+
+    public void setTargetChunkMillis(long targetChunkMillis) {
+        this.targetChunkMillis = targetChunkMillis;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public boolean isPartitioned() {
+        return partitions > 1;
+    }
+
+    public boolean isAsyncReportWriter() {
+        return asyncReportWriter;
+    }
+
+    public void setAsyncReportWriter(boolean asyncReportWriter) {
+        this.asyncReportWriter = asyncReportWriter;
+    }
+
+    public boolean isPipelinedReader() {
+        return pipelinedReader;
+    }
+
+    public void setPipelinedReader(boolean pipelinedReader) {
+        this.pipelinedReader = pipelinedReader;
+    }
+
+    public boolean isSortMergeReportCheck() {
+        return sortMergeReportCheck;
+    }
+
+    public void setSortMergeReportCheck(boolean sortMergeReportCheck) {
+        this.sortMergeReportCheck = sortMergeReportCheck;
+    }
+
+    public int getSortMergeMaxVariantsInMemory() {
+        return sortMergeMaxVariantsInMemory;
+    }
+
+    public void setSortMergeMaxVariantsInMemory(int sortMergeMaxVariantsInMemory) {
+        this.sortMergeMaxVariantsInMemory = sortMergeMaxVariantsInMemory;
+    }
+
+    public boolean isBulkLoad() {
+        return bulkLoad;
+    }
+
+    public void setBulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+
+    public int getBulkLoadBatchSize() {
+        return bulkLoadBatchSize;
+    }
+
+    public void setBulkLoadBatchSize(int bulkLoadBatchSize) {
+        this.bulkLoadBatchSize = bulkLoadBatchSize;
+    }
+
+    public int getBulkLoadMaxVariantsInMemory() {
+        return bulkLoadMaxVariantsInMemory;
+    }
+
+    public void setBulkLoadMaxVariantsInMemory(int bulkLoadMaxVariantsInMemory) {
+        this.bulkLoadMaxVariantsInMemory = bulkLoadMaxVariantsInMemory;
+    }
+
+    public int getFastaCacheSizeMb() {
+        return fastaCacheSizeMb;
+    }
+
+    public void setFastaCacheSizeMb(int fastaCacheSizeMb) {
+        this.fastaCacheSizeMb = fastaCacheSizeMb;
+    }
+
+    public boolean isMemoryMappedFasta() {
+        return memoryMappedFasta;
+    }
+
+    public void setMemoryMappedFasta(boolean memoryMappedFasta) {
+        this.memoryMappedFasta = memoryMappedFasta;
+    }
+
+    public String getMetricsDirectory() {
+        return metricsDirectory;
+    }
+
+    public void setMetricsDirectory(String metricsDirectory) {
+        this.metricsDirectory = metricsDirectory;
+    }
+
+    public int getMetricsReportPeriodSeconds() {
+        return metricsReportPeriodSeconds;
+    }
+
+    public void setMetricsReportPeriodSeconds(int metricsReportPeriodSeconds) {
+        this.metricsReportPeriodSeconds = metricsReportPeriodSeconds;
+    }
+
     public JobParameters toJobParameters() {
         return new JobParametersBuilder()
                 .addString("vcf", vcf)
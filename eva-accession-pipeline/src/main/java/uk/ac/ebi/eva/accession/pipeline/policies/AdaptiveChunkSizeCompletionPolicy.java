@@ -0,0 +1,133 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.policies;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.annotation.AfterChunk;
+import org.springframework.batch.core.annotation.AfterChunkError;
+import org.springframework.batch.core.annotation.BeforeWrite;
+import org.springframework.batch.core.annotation.OnWriteError;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completion policy that grows or shrinks the chunk size, within the given bounds, so that writing and committing a
+ * chunk takes about the target time. It has to be registered as a listener of the step as well, to measure the time
+ * from the start of the write to the end of the chunk, commit included.
+ * <p>
+ * Each adjustment scales the size by the ratio between the target and the observed latency, limited to halving or
+ * doubling it, and is skipped while the latency is within {@link #TOLERANCE} of the target. Chunks that failed are
+ * not measured. If both bounds are equal the size never changes, as in a {@link SimpleCompletionPolicy}.
+ * <p>
+ * An instance must not be shared between steps running at the same time, so it should be step scoped.
+ */
+public class AdaptiveChunkSizeCompletionPolicy extends SimpleCompletionPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveChunkSizeCompletionPolicy.class);
+
+    static final double TOLERANCE = 0.2;
+
+    private static final double MAX_SCALE = 2.0;
+
+    private static final double MIN_SCALE = 0.5;
+
+    private final int minChunkSize;
+
+    private final int maxChunkSize;
+
+    private final long targetLatencyNanos;
+
+    private long writeStart;
+
+    private int writtenItems;
+
+    public AdaptiveChunkSizeCompletionPolicy(int initialChunkSize, int minChunkSize, int maxChunkSize,
+                                             long targetLatencyMillis) {
+        if (minChunkSize < 1 || maxChunkSize < minChunkSize) {
+            throw new IllegalArgumentException(
+                    "The chunk size bounds must be positive and the minimum can't be greater than the maximum");
+        }
+        if (targetLatencyMillis <= 0) {
+            throw new IllegalArgumentException("The target chunk latency must be positive");
+        }
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        setChunkSize(clamp(initialChunkSize));
+    }
+
+    @BeforeWrite
+    public void beforeWrite(List<?> items) {
+        writeStart = System.nanoTime();
+        writtenItems = items.size();
+    }
+
+    @OnWriteError
+    public void onWriteError(Exception exception, List<?> items) {
+        writtenItems = 0;
+    }
+
+    @AfterChunkError
+    public void afterChunkError(ChunkContext context) {
+        writtenItems = 0;
+    }
+
+    @AfterChunk
+    public void afterChunk(ChunkContext context) {
+        if (writtenItems > 0) {
+            adjust(writtenItems, System.nanoTime() - writeStart);
+        }
+        writtenItems = 0;
+    }
+
+    /**
+     * Updates the chunk size after writing and committing the given number of items took the given time.
+     */
+    void adjust(int items, long latencyNanos) {
+        if (minChunkSize == maxChunkSize) {
+            return;
+        }
+        if (Math.abs(latencyNanos - targetLatencyNanos) <= targetLatencyNanos * TOLERANCE) {
+            return;
+        }
+        int chunkSize = getChunkSize();
+        boolean tooFast = latencyNanos < targetLatencyNanos;
+        if (tooFast && items < chunkSize) {
+            // a short chunk (e.g. the last one) being fast doesn't mean that a full one would be
+            return;
+        }
+        double scale = (double) targetLatencyNanos / Math.max(latencyNanos, 1);
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+        int newChunkSize = clamp((int) Math.round(Math.min(items, chunkSize) * scale));
+        if (tooFast ? newChunkSize <= chunkSize : newChunkSize >= chunkSize) {
+            return;
+        }
+        logger.info("Chunk of {} items written in {} ms (target {} ms), changing the chunk size from {} to {}", items,
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos), TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos),
+                    chunkSize, newChunkSize);
+        setChunkSize(newChunkSize);
+    }
+
+    private int clamp(int chunkSize) {
+        return Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+    }
+}
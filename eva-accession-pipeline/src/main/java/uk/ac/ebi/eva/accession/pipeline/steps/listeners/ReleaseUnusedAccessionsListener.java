@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.listeners;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import uk.ac.ebi.eva.accession.core.generators.ConcurrentMonotonicAccessionGenerator;
+
+/**
+ * Gives back the accessions that the threads of a partitioned step reserved in their sub-blocks but didn't use, once
+ * all the partitions have finished, so that they are not left unused until the next run recovers them.
+ */
+public class ReleaseUnusedAccessionsListener implements StepExecutionListener {
+
+    private final ConcurrentMonotonicAccessionGenerator<?> accessionGenerator;
+
+    public ReleaseUnusedAccessionsListener(ConcurrentMonotonicAccessionGenerator<?> accessionGenerator) {
+        this.accessionGenerator = accessionGenerator;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        accessionGenerator.releaseUnusedAccessions();
+        return null;
+    }
+}
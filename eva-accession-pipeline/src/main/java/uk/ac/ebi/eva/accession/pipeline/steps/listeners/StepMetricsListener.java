@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.listeners;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.springframework.batch.core.annotation.AfterProcess;
+import org.springframework.batch.core.annotation.AfterRead;
+import org.springframework.batch.core.annotation.AfterWrite;
+import org.springframework.batch.core.annotation.BeforeProcess;
+import org.springframework.batch.core.annotation.BeforeRead;
+import org.springframework.batch.core.annotation.BeforeWrite;
+import org.springframework.batch.core.annotation.OnProcessError;
+import org.springframework.batch.core.annotation.OnReadError;
+import org.springframework.batch.core.annotation.OnSkipInProcess;
+import org.springframework.batch.core.annotation.OnSkipInRead;
+import org.springframework.batch.core.annotation.OnSkipInWrite;
+import org.springframework.batch.core.annotation.OnWriteError;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long every chunk of a step spends reading, processing and writing, and counts the items read, written
+ * and skipped.
+ * <p>
+ * The time spent reading and processing the items of a chunk is accumulated and recorded once per chunk, just before
+ * writing it, so that the timers are comparable with the write timer. The accumulated times are kept per thread, so
+ * the same listener can be used by the partitions of a step.
+ */
+public class StepMetricsListener {
+
+    public static final String READ_TIMER = "chunk.read";
+
+    public static final String PROCESS_TIMER = "chunk.process";
+
+    public static final String WRITE_TIMER = "chunk.write";
+
+    public static final String READ_COUNTER = "items.read";
+
+    public static final String WRITE_COUNTER = "items.written";
+
+    public static final String READ_SKIP_COUNTER = "items.skipped.read";
+
+    public static final String PROCESS_SKIP_COUNTER = "items.skipped.process";
+
+    public static final String WRITE_SKIP_COUNTER = "items.skipped.write";
+
+    private final Timer readTimer;
+
+    private final Timer processTimer;
+
+    private final Timer writeTimer;
+
+    private final Counter readCounter;
+
+    private final Counter writeCounter;
+
+    private final Counter readSkipCounter;
+
+    private final Counter processSkipCounter;
+
+    private final Counter writeSkipCounter;
+
+    private final ThreadLocal<ChunkTimes> chunkTimes;
+
+    public StepMetricsListener(MetricRegistry metricRegistry) {
+        readTimer = metricRegistry.timer(READ_TIMER);
+        processTimer = metricRegistry.timer(PROCESS_TIMER);
+        writeTimer = metricRegistry.timer(WRITE_TIMER);
+        readCounter = metricRegistry.counter(READ_COUNTER);
+        writeCounter = metricRegistry.counter(WRITE_COUNTER);
+        readSkipCounter = metricRegistry.counter(READ_SKIP_COUNTER);
+        processSkipCounter = metricRegistry.counter(PROCESS_SKIP_COUNTER);
+        writeSkipCounter = metricRegistry.counter(WRITE_SKIP_COUNTER);
+        chunkTimes = ThreadLocal.withInitial(ChunkTimes::new);
+    }
+
+    @BeforeRead
+    public void beforeRead() {
+        chunkTimes.get().readStart = System.nanoTime();
+    }
+
+    @AfterRead
+    public void afterRead(Object item) {
+        chunkTimes.get().addReadTime();
+        readCounter.inc();
+    }
+
+    @OnReadError
+    public void onReadError(Exception exception) {
+        chunkTimes.get().addReadTime();
+    }
+
+    @BeforeProcess
+    public void beforeProcess(Object item) {
+        chunkTimes.get().processStart = System.nanoTime();
+    }
+
+    @AfterProcess
+    public void afterProcess(Object item, Object result) {
+        chunkTimes.get().addProcessTime();
+    }
+
+    @OnProcessError
+    public void onProcessError(Object item, Exception exception) {
+        chunkTimes.get().addProcessTime();
+    }
+
+    @BeforeWrite
+    public void beforeWrite(List<?> items) {
+        ChunkTimes times = chunkTimes.get();
+        if (times.readNanos > 0) {
+            readTimer.update(times.readNanos, TimeUnit.NANOSECONDS);
+        }
+        if (times.processNanos > 0) {
+            processTimer.update(times.processNanos, TimeUnit.NANOSECONDS);
+        }
+        times.readNanos = 0;
+        times.processNanos = 0;
+        times.writeStart = System.nanoTime();
+    }
+
+    @AfterWrite
+    public void afterWrite(List<?> items) {
+        writeTimer.update(System.nanoTime() - chunkTimes.get().writeStart, TimeUnit.NANOSECONDS);
+        writeCounter.inc(items.size());
+    }
+
+    @OnWriteError
+    public void onWriteError(Exception exception, List<?> items) {
+        writeTimer.update(System.nanoTime() - chunkTimes.get().writeStart, TimeUnit.NANOSECONDS);
+    }
+
+    @OnSkipInRead
+    public void onSkipInRead(Throwable throwable) {
+        readSkipCounter.inc();
+    }
+
+    @OnSkipInProcess
+    public void onSkipInProcess(Object item, Throwable throwable) {
+        processSkipCounter.inc();
+    }
+
+    @OnSkipInWrite
+    public void onSkipInWrite(Object item, Throwable throwable) {
+        writeSkipCounter.inc();
+    }
+
+    private static class ChunkTimes {
+
+        private long readStart;
+
+        private long readNanos;
+
+        private long processStart;
+
+        private long processNanos;
+
+        private long writeStart;
+
+        void addReadTime() {
+            readNanos += System.nanoTime() - readStart;
+        }
+
+        void addProcessTime() {
+            processNanos += System.nanoTime() - processStart;
+        }
+    }
+}
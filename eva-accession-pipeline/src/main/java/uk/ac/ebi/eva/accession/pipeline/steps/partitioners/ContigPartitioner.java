@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.partitioners;
+
+import htsjdk.samtools.util.Block;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.tribble.index.tabix.TabixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import uk.ac.ebi.eva.commons.core.utils.FileUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Splits a VCF into groups of contigs, so that each group can be accessioned by a different worker step.
+ * <p>
+ * All the variants of a contig go to the same partition, which guarantees that two identical variants are never
+ * accessioned concurrently by different workers. If the VCF is bgzipped and has a tabix index, the contigs and their
+ * sizes are taken from the index and the workers will seek directly to their contigs. Otherwise the VCF is scanned
+ * once to count the variants per contig. Either way, all partitions get a similar number of variants.
+ * <p>
+ * The records of every contig are expected to be contiguous in the VCF, as they always are in a tabix-indexed one. If
+ * the scan finds a contig interleaved with others, the whole VCF is accessioned in a single partition, because the
+ * merged report would otherwise be grouped by contig instead of following the input order.
+ */
+public class ContigPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContigPartitioner.class);
+
+    public static final String CONTIGS_KEY = "contigs";
+
+    public static final String OUTPUT_VCF_KEY = "outputVcf";
+
+    public static final String PARTITION_NAME_PREFIX = "partition";
+
+    public static final String TABIX_INDEX_EXTENSION = ".tbi";
+
+    private final File vcf;
+
+    private final String outputVcf;
+
+    private boolean contigsInterleaved;
+
+    public ContigPartitioner(File vcf, String outputVcf) {
+        this.vcf = vcf;
+        this.outputVcf = outputVcf;
+    }
+
+    /**
+     * @param gridSize maximum number of partitions. Less partitions will be created if the VCF has less contigs.
+     * @return the partitions, whose names have the form {@link #PARTITION_NAME_PREFIX} + partition index
+     */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        if (gridSize < 1) {
+            throw new IllegalArgumentException("The number of partitions must be a positive number");
+        }
+        Map<String, Long> variantsPerContig;
+        try {
+            variantsPerContig = countVariantsPerContig();
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not read the contigs of the VCF " + vcf, e);
+        }
+
+        if (contigsInterleaved && gridSize > 1) {
+            logger.warn("The records of some contigs are not contiguous in the VCF {}, it will be accessioned in a " +
+                                "single partition to keep the order of the variants in the report", vcf);
+            gridSize = 1;
+        }
+        List<List<String>> contigGroups = groupContigs(variantsPerContig, gridSize);
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        for (int i = 0; i < contigGroups.size(); i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.put(CONTIGS_KEY, new ArrayList<>(contigGroups.get(i)));
+            context.putString(OUTPUT_VCF_KEY, getPartitionOutputVcf(outputVcf, i));
+            partitions.put(PARTITION_NAME_PREFIX + i, context);
+            logger.debug("Partition {} will accession contigs {}", i, contigGroups.get(i));
+        }
+        logger.info("VCF {} split in {} partitions", vcf, partitions.size());
+        return partitions;
+    }
+
+    public static String getPartitionOutputVcf(String outputVcf, int partitionIndex) {
+        return outputVcf + "." + PARTITION_NAME_PREFIX + partitionIndex;
+    }
+
+    public static File getTabixIndex(File vcf) {
+        return new File(vcf.getPath() + TABIX_INDEX_EXTENSION);
+    }
+
+    private Map<String, Long> countVariantsPerContig() throws IOException {
+        contigsInterleaved = false;
+        File tabixIndex = getTabixIndex(vcf);
+        if (tabixIndex.exists()) {
+            return estimateVariantsPerContig(tabixIndex);
+        }
+        Map<String, Long> variantsPerContig = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openVcf()))) {
+            String line;
+            String previousContig = null;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("#")) {
+                    int endOfContig = line.indexOf('\t');
+                    String contig = endOfContig == -1 ? line : line.substring(0, endOfContig);
+                    if (!contig.equals(previousContig) && variantsPerContig.containsKey(contig)) {
+                        contigsInterleaved = true;
+                    }
+                    variantsPerContig.merge(contig, 1L, Long::sum);
+                    previousContig = contig;
+                }
+            }
+        }
+        return variantsPerContig;
+    }
+
+    /**
+     * The index doesn't say how many variants each contig has, but it does say where they are in the bgzipped file,
+     * so every contig is weighted by the number of compressed bytes between its first and its last chunk. Contigs that
+     * fit in the same BGZF block (64KB uncompressed) get a similar weight, which is fine because they are all small.
+     */
+    private Map<String, Long> estimateVariantsPerContig(File tabixIndex) throws IOException {
+        TabixIndex index = new TabixIndex(tabixIndex);
+        Map<String, Long> compressedBytesPerContig = new LinkedHashMap<>();
+        for (String contig : index.getSequenceNames()) {
+            long firstOffset = Long.MAX_VALUE;
+            long lastOffset = Long.MIN_VALUE;
+            for (Block block : index.getBlocks(contig, 1, Integer.MAX_VALUE)) {
+                firstOffset = Math.min(firstOffset, block.getStartPosition());
+                lastOffset = Math.max(lastOffset, block.getEndPosition());
+            }
+            long compressedBytes = 0;
+            if (firstOffset <= lastOffset) {
+                compressedBytes = BlockCompressedFilePointerUtil.getBlockAddress(lastOffset)
+                        - BlockCompressedFilePointerUtil.getBlockAddress(firstOffset);
+            }
+            compressedBytesPerContig.put(contig, compressedBytes + 1);
+        }
+        return compressedBytesPerContig;
+    }
+
+    private InputStream openVcf() throws IOException {
+        InputStream inputStream = new FileInputStream(vcf);
+        if (FileUtils.isGzip(vcf)) {
+            inputStream = new GZIPInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
+    /**
+     * The contigs are split in consecutive runs, so that concatenating the reports of every partition in order keeps
+     * the variants of a VCF whose contigs are contiguous in the same order as the input. Each run is closed when it
+     * reaches its share of the variants not yet assigned.
+     */
+    private List<List<String>> groupContigs(Map<String, Long> variantsPerContig, int gridSize) {
+        int numPartitions = Math.min(gridSize, variantsPerContig.size());
+        long unassignedVariants = variantsPerContig.values().stream().mapToLong(Long::longValue).sum();
+        int unassignedContigs = variantsPerContig.size();
+
+        List<List<String>> contigGroups = new ArrayList<>();
+        List<String> currentGroup = new ArrayList<>();
+        long currentGroupSize = 0;
+        for (Map.Entry<String, Long> contigCount : variantsPerContig.entrySet()) {
+            int pendingPartitions = numPartitions - contigGroups.size();
+            long currentGroupShare = (unassignedVariants + currentGroupSize) / pendingPartitions;
+
+            currentGroup.add(contigCount.getKey());
+            currentGroupSize += contigCount.getValue();
+            unassignedVariants -= contigCount.getValue();
+            unassignedContigs--;
+
+            boolean isLastPartition = pendingPartitions == 1;
+            boolean isGroupFull = currentGroupSize >= currentGroupShare;
+            boolean areContigsNeededForNextPartitions = unassignedContigs < pendingPartitions;
+            if (!isLastPartition && (isGroupFull || areContigsNeededForNextPartitions)) {
+                contigGroups.add(currentGroup);
+                currentGroup = new ArrayList<>();
+                currentGroupSize = 0;
+            }
+        }
+        if (!currentGroup.isEmpty() || contigGroups.isEmpty()) {
+            // a VCF without variants still gets one partition, so that its report is written with the header
+            contigGroups.add(currentGroup);
+        }
+        return contigGroups;
+    }
+}
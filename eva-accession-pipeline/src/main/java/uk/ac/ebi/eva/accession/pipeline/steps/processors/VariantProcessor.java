@@ -21,8 +21,13 @@ import org.springframework.batch.item.ItemProcessor;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 
+/**
+ * The assembly, project and contig of the submitted variants are interned with the given {@link StringInterner}, as
+ * the same few values are repeated in every variant of a job.
+ */
 public class VariantProcessor implements ItemProcessor<IVariant, ISubmittedVariant> {
 
     private String assemblyAccession;
@@ -31,15 +36,20 @@ public class VariantProcessor implements ItemProcessor<IVariant, ISubmittedVaria
 
     private String projectAccession;
 
-    public VariantProcessor(String assemblyAccession, int taxonomyAccession, String projectAccession) {
-        this.assemblyAccession = assemblyAccession;
+    private StringInterner interner;
+
+    public VariantProcessor(String assemblyAccession, int taxonomyAccession, String projectAccession,
+                            StringInterner interner) {
+        this.assemblyAccession = interner.intern(assemblyAccession);
         this.taxonomyAccession = taxonomyAccession;
-        this.projectAccession = projectAccession;
+        this.projectAccession = interner.intern(projectAccession);
+        this.interner = interner;
     }
 
     @Override
     public ISubmittedVariant process(final IVariant variant) throws Exception {
-        return new SubmittedVariant(assemblyAccession, taxonomyAccession, projectAccession, variant.getChromosome(),
-                                    variant.getStart(), variant.getReference(), variant.getAlternate(), true);
+        return new SubmittedVariant(assemblyAccession, taxonomyAccession, projectAccession,
+                                    interner.intern(variant.getChromosome()), variant.getStart(),
+                                    variant.getReference(), variant.getAlternate(), true);
     }
 }
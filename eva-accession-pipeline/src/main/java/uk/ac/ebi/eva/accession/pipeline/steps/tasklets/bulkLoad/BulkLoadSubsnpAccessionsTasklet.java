@@ -0,0 +1,274 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.bulkLoad;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.repeat.RepeatStatus;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+import uk.ac.ebi.eva.accession.core.persistence.BulkInsertResult;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter.SortedIterator;
+import uk.ac.ebi.eva.accession.pipeline.policies.InvalidVariantSkipPolicy;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Accessions the variants of a project that is not in the database yet, without looking up any of their hashes.
+ * <p>
+ * The whole VCF is read first: every variant is hashed and added to an {@link ExternalSorter}, which keeps at most a
+ * fixed number of them in memory and writes the rest to spill files. Then the variants are traversed in coordinates
+ * order, skipping the repeated ones, and every batch gets a range of accessions from the generator, is inserted in
+ * the database in one bulk operation and is written to the accession report.
+ * <p>
+ * If the collection is empty when the step starts, its secondary indexes are dropped during the load and built once
+ * at the end, instead of being updated for every document.
+ * <p>
+ * The step fails if any of the variants is already in the database, as the project is not new and should be
+ * accessioned normally. The variants of the first batch are looked up before inserting anything, which detects a
+ * project that was already accessioned, even partially by a previous bulk load. If only later variants are found,
+ * the step fails after inserting the previous batches, and the rest of the project has to be accessioned normally.
+ */
+public class BulkLoadSubsnpAccessionsTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoadSubsnpAccessionsTasklet.class);
+
+    private static final String SPILL_FILE_PREFIX = "bulk-load-";
+
+    private final ItemStreamReader<Variant> inputReader;
+
+    private final ItemProcessor<IVariant, ISubmittedVariant> variantProcessor;
+
+    private final SubmittedVariantAccessioningRepository repository;
+
+    private final MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    private final AccessionReportWriter accessionReportWriter;
+
+    private final int batchSize;
+
+    private final int maxVariantsInMemory;
+
+    private final File tempDirectory;
+
+    private final SkipPolicy skipPolicy;
+
+    private final Function<ISubmittedVariant, String> hashingFunction;
+
+    private long skippedVariants;
+
+    private long duplicatedVariants;
+
+    private long insertedVariants;
+
+    /**
+     * @param batchSize number of variants accessioned and inserted at once
+     * @param maxVariantsInMemory maximum number of variants that will be sorted in memory at once
+     * @param tempDirectory where the spill files will be written, or null to use the default temporary directory
+     */
+    public BulkLoadSubsnpAccessionsTasklet(ItemStreamReader<Variant> inputReader,
+                                           ItemProcessor<IVariant, ISubmittedVariant> variantProcessor,
+                                           SubmittedVariantAccessioningRepository repository,
+                                           MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator,
+                                           AccessionReportWriter accessionReportWriter, int batchSize,
+                                           int maxVariantsInMemory, File tempDirectory) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The bulk load batch size must be a positive number");
+        }
+        this.inputReader = inputReader;
+        this.variantProcessor = variantProcessor;
+        this.repository = repository;
+        this.accessionGenerator = accessionGenerator;
+        this.accessionReportWriter = accessionReportWriter;
+        this.batchSize = batchSize;
+        this.maxVariantsInMemory = maxVariantsInMemory;
+        this.tempDirectory = tempDirectory;
+        this.skipPolicy = new InvalidVariantSkipPolicy();
+        this.hashingFunction = new SubmittedVariantSummaryHashingFunction();
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution stepContribution, ChunkContext chunkContext) throws Exception {
+        skippedVariants = 0;
+        duplicatedVariants = 0;
+        insertedVariants = 0;
+        try (ExternalSorter<SpilledSubmittedVariant> sorter = new ExternalSorter<>(tempDirectory, maxVariantsInMemory,
+                                                                                   SPILL_FILE_PREFIX,
+                                                                                   SpilledSubmittedVariant.CODEC)) {
+            readAll(sorter);
+            logger.info("Read and hashed the variants in {} sorted runs", sorter.getSortedRuns());
+
+            boolean rebuildIndexes = repository.count() == 0;
+            if (rebuildIndexes) {
+                logger.info("Dropping the indexes of the empty submitted variants collection during the bulk load");
+                repository.dropSecondaryIndexes();
+            }
+            try (SortedIterator<SpilledSubmittedVariant> sortedVariants = sorter.sort()) {
+                loadAll(sortedVariants);
+            } finally {
+                if (rebuildIndexes) {
+                    logger.info("Building the indexes of the submitted variants collection");
+                    repository.createIndexes();
+                }
+            }
+        }
+        stepContribution.incrementWriteCount((int) insertedVariants);
+        logStatus();
+        return RepeatStatus.FINISHED;
+    }
+
+    private void readAll(ExternalSorter<SpilledSubmittedVariant> sorter) throws Exception {
+        inputReader.open(new ExecutionContext());
+        try {
+            while (true) {
+                try {
+                    Variant variant = inputReader.read();
+                    if (variant == null) {
+                        break;
+                    }
+                    ISubmittedVariant submittedVariant = variantProcessor.process(variant);
+                    sorter.add(new SpilledSubmittedVariant(hashingFunction.apply(submittedVariant),
+                                                           submittedVariant));
+                } catch (Exception e) {
+                    if (skipPolicy.shouldSkip(e, skippedVariants)) {
+                        skippedVariants++;
+                    } else {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            inputReader.close();
+        }
+    }
+
+    private void loadAll(SortedIterator<SpilledSubmittedVariant> sortedVariants) throws Exception {
+        accessionReportWriter.open(new ExecutionContext());
+        try {
+            List<SpilledSubmittedVariant> batch = new ArrayList<>(batchSize);
+            SpilledSubmittedVariant previous = null;
+            SpilledSubmittedVariant variant;
+            while ((variant = sortedVariants.next()) != null) {
+                if (previous != null && previous.getHash().equals(variant.getHash())) {
+                    duplicatedVariants++;
+                    continue;
+                }
+                previous = variant;
+                batch.add(variant);
+                if (batch.size() == batchSize) {
+                    load(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                load(batch);
+            }
+        } finally {
+            accessionReportWriter.close();
+        }
+    }
+
+    private void checkNotInDatabase(List<SpilledSubmittedVariant> batch) {
+        List<String> hashes = new ArrayList<>(batch.size());
+        for (SpilledSubmittedVariant variant : batch) {
+            hashes.add(variant.getHash());
+        }
+        long variantsInDatabase = 0;
+        String example = null;
+        for (SubmittedVariantEntity entity : repository.findAll(hashes)) {
+            variantsInDatabase++;
+            example = entity.getHashedMessage();
+        }
+        if (variantsInDatabase > 0) {
+            throw new IllegalStateException(
+                    variantsInDatabase + " of the first " + batch.size() + " variants, like " + example + ", are " +
+                            "already in the database. The bulk load is only valid for new projects, please " +
+                            "accession this one without it");
+        }
+    }
+
+    private void load(List<SpilledSubmittedVariant> batch) throws Exception {
+        if (insertedVariants == 0) {
+            checkNotInDatabase(batch);
+        }
+        long[] accessions = accessionGenerator.generateAccessions(batch.size());
+        List<SubmittedVariantEntity> entities = new ArrayList<>(batch.size());
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> accessionedVariants = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            SpilledSubmittedVariant variant = batch.get(i);
+            entities.add(new SubmittedVariantEntity(accessions[i], variant.getHash(), variant.getVariant()));
+            accessionedVariants.add(new AccessionWrapper<>(accessions[i], variant.getHash(), variant.getVariant()));
+        }
+
+        BulkInsertResult<SubmittedVariantEntity> result = repository.bulkInsert(entities, null);
+        if (result.hasDuplicates()) {
+            // the accessions are neither committed nor released: some of them were inserted, and the next run will
+            // find them in the database when it recovers the uncompleted blocks
+            throw new IllegalStateException(
+                    result.getDuplicatedDocuments().size() + " variants, like " +
+                            result.getDuplicatedDocuments().get(0).getHashedMessage() +
+                            ", are already in the database. The variants inserted so far are kept, please accession " +
+                            "the rest of this project without the bulk load");
+        }
+        accessionGenerator.commit(accessions);
+        insertedVariants += result.getInsertedCount();
+
+        accessionReportWriter.write(accessionedVariants);
+    }
+
+    private void logStatus() {
+        logger.info("{} variants were accessioned and inserted in bulk", insertedVariants);
+        if (skippedVariants > 0) {
+            logger.warn("{} lines in the original VCF were skipped. The most likely reason is that they were " +
+                                "non-variants, but a high number could be symptom of a problem.", skippedVariants);
+        }
+        if (duplicatedVariants > 0) {
+            logger.warn("{} duplicated variants were found in the original VCF. Each set of duplicates got only one " +
+                                "accession.", duplicatedVariants);
+        }
+    }
+
+    public long getSkippedVariants() {
+        return skippedVariants;
+    }
+
+    public long getDuplicatedVariants() {
+        return duplicatedVariants;
+    }
+
+    public long getInsertedVariants() {
+        return insertedVariants;
+    }
+}
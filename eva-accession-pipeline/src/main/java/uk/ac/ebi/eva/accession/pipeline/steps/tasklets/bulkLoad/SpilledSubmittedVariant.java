@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.bulkLoad;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter.Codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A submitted variant and its hash, as written to the spill files of the bulk load. They are ordered by contig,
+ * start, reference, alternate and hash, so that repeated variants are next to each other and the documents and the
+ * report are written in coordinates order.
+ */
+class SpilledSubmittedVariant implements Comparable<SpilledSubmittedVariant> {
+
+    static final Codec<SpilledSubmittedVariant> CODEC = new Codec<SpilledSubmittedVariant>() {
+        @Override
+        public void write(SpilledSubmittedVariant variant, DataOutput output) throws IOException {
+            variant.write(output);
+        }
+
+        @Override
+        public SpilledSubmittedVariant read(DataInput input) throws IOException {
+            return SpilledSubmittedVariant.read(input);
+        }
+    };
+
+    private final String hash;
+
+    private final ISubmittedVariant variant;
+
+    SpilledSubmittedVariant(String hash, ISubmittedVariant variant) {
+        this.hash = hash;
+        this.variant = variant;
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    ISubmittedVariant getVariant() {
+        return variant;
+    }
+
+    static SpilledSubmittedVariant read(DataInput input) throws IOException {
+        String hash = Codec.readString(input);
+        String assemblyAccession = Codec.readString(input);
+        int taxonomyAccession = input.readInt();
+        String projectAccession = Codec.readString(input);
+        String contig = Codec.readString(input);
+        long start = input.readLong();
+        String referenceAllele = Codec.readString(input);
+        String alternateAllele = Codec.readString(input);
+        boolean supportedByEvidence = input.readBoolean();
+        return new SpilledSubmittedVariant(hash, new SubmittedVariant(assemblyAccession, taxonomyAccession,
+                                                                      projectAccession, contig, start,
+                                                                      referenceAllele, alternateAllele,
+                                                                      supportedByEvidence));
+    }
+
+    void write(DataOutput output) throws IOException {
+        Codec.writeString(hash, output);
+        Codec.writeString(variant.getAssemblyAccession(), output);
+        output.writeInt(variant.getTaxonomyAccession());
+        Codec.writeString(variant.getProjectAccession(), output);
+        Codec.writeString(variant.getContig(), output);
+        output.writeLong(variant.getStart());
+        Codec.writeString(variant.getReferenceAllele(), output);
+        Codec.writeString(variant.getAlternateAllele(), output);
+        output.writeBoolean(variant.isSupportedByEvidence());
+    }
+
+    @Override
+    public int compareTo(SpilledSubmittedVariant other) {
+        int comparison = variant.getContig().compareTo(other.variant.getContig());
+        if (comparison == 0) {
+            comparison = Long.compare(variant.getStart(), other.variant.getStart());
+        }
+        if (comparison == 0) {
+            comparison = variant.getReferenceAllele().compareTo(other.variant.getReferenceAllele());
+        }
+        if (comparison == 0) {
+            comparison = variant.getAlternateAllele().compareTo(other.variant.getAlternateAllele());
+        }
+        if (comparison == 0) {
+            comparison = hash.compareTo(other.hash);
+        }
+        return comparison;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return compareTo((SpilledSubmittedVariant) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hash + ":" + variant;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set of variants that only keeps the compact keys generated by a {@link CompactVariantKeyEncoder}. The packed keys
+ * are stored in a {@link LongOpenHashSet}, and the few variants that can't be packed are stored as byte arrays.
+ */
+class CompactVariantBuffer {
+
+    private final CompactVariantKeyEncoder encoder;
+
+    private final LongOpenHashSet packedKeys;
+
+    private final Set<UnpackedKey> unpackedKeys;
+
+    /**
+     * @param encoder must be the same for all the buffers whose variants will be compared
+     */
+    CompactVariantBuffer(CompactVariantKeyEncoder encoder) {
+        this.encoder = encoder;
+        this.packedKeys = new LongOpenHashSet();
+        this.unpackedKeys = new HashSet<>();
+    }
+
+    /**
+     * @return true if the variant was not already in the buffer
+     */
+    boolean add(IVariant variant) {
+        long packedKey = encoder.encodePacked(variant);
+        if (packedKey != CompactVariantKeyEncoder.NOT_PACKED) {
+            return packedKeys.add(packedKey);
+        }
+        return unpackedKeys.add(new UnpackedKey(encoder.encodeUnpacked(variant)));
+    }
+
+    /**
+     * Removes from both buffers the variants present in both of them.
+     *
+     * @return number of variants removed from each buffer
+     */
+    int removeMatching(CompactVariantBuffer other) {
+        int matched = 0;
+        for (long packedKey : other.packedKeys.toArray()) {
+            if (packedKeys.isEmpty()) {
+                break;
+            }
+            if (packedKeys.remove(packedKey)) {
+                other.packedKeys.remove(packedKey);
+                matched++;
+            }
+        }
+        if (!unpackedKeys.isEmpty()) {
+            List<UnpackedKey> matchedUnpackedKeys = new ArrayList<>();
+            for (UnpackedKey unpackedKey : other.unpackedKeys) {
+                if (unpackedKeys.remove(unpackedKey)) {
+                    matchedUnpackedKeys.add(unpackedKey);
+                }
+            }
+            other.unpackedKeys.removeAll(matchedUnpackedKeys);
+            matched += matchedUnpackedKeys.size();
+        }
+        return matched;
+    }
+
+    int size() {
+        return packedKeys.size() + unpackedKeys.size();
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public String toString() {
+        List<String> variants = new ArrayList<>(size());
+        packedKeys.forEach(packedKey -> variants.add(encoder.decodePacked(packedKey)));
+        for (UnpackedKey unpackedKey : unpackedKeys) {
+            variants.add(encoder.decodeUnpacked(unpackedKey.bytes));
+        }
+        return variants.toString();
+    }
+
+    private static class UnpackedKey {
+
+        private final byte[] bytes;
+
+        private final int hashCode;
+
+        UnpackedKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(bytes, ((UnpackedKey) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
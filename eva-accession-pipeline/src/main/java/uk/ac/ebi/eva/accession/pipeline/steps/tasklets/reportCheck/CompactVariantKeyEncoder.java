@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the coordinates and alleles of a variant into a compact key, so that the buffers of the
+ * {@link ReportCheckTasklet} don't need to keep whole {@link uk.ac.ebi.eva.commons.core.models.pipeline.Variant}
+ * objects. Two variants get the same key if and only if they have the same contig, start, end, reference and
+ * alternate, which is the same criteria used by the Variant equality.
+ * <p>
+ * Most variants fit in a non-negative long, with this layout (from most to least significant bits):
+ * <ul>
+ *     <li>1 bit: always 0</li>
+ *     <li>15 bits: index of the contig in the dictionary of this encoder</li>
+ *     <li>32 bits: start</li>
+ *     <li>8 bits: reference allele, as 2 bits of length (0 to 3) and 2 bits per nucleotide</li>
+ *     <li>8 bits: alternate allele, with the same encoding</li>
+ * </ul>
+ * The end is not stored, so the variants are only packed if their end is the one implied by the start and alleles.
+ * The variants that can't be packed (long alleles, other symbols than ACGT, too many contigs...) are encoded as a
+ * small byte array instead.
+ * <p>
+ * The contig dictionary is shared by all the keys created by the same encoder, so keys from different encoders must
+ * not be compared.
+ */
+class CompactVariantKeyEncoder {
+
+    static final long NOT_PACKED = -1;
+
+    private static final int CONTIG_BITS = 15;
+
+    private static final int START_BITS = 32;
+
+    private static final int ALLELE_BITS = 8;
+
+    private static final int MAX_PACKED_ALLELE_LENGTH = 3;
+
+    private static final int NUCLEOTIDE_BITS = 2;
+
+    private static final String NUCLEOTIDES = "ACGT";
+
+    private static final int MAX_PACKED_CONTIGS = 1 << CONTIG_BITS;
+
+    private static final long MAX_PACKED_START = (1L << START_BITS) - 1;
+
+    private final Map<String, Integer> contigIndices;
+
+    private final List<String> contigs;
+
+    CompactVariantKeyEncoder() {
+        this.contigIndices = new HashMap<>();
+        this.contigs = new ArrayList<>();
+    }
+
+    /**
+     * @return the packed key, or {@link #NOT_PACKED} if the variant has to be encoded with {@link #encodeUnpacked}
+     */
+    long encodePacked(IVariant variant) {
+        int contigIndex = getContigIndex(variant.getChromosome());
+        long start = variant.getStart();
+        String reference = variant.getReference();
+        String alternate = variant.getAlternate();
+        if (contigIndex >= MAX_PACKED_CONTIGS || start < 0 || start > MAX_PACKED_START
+                || variant.getEnd() != impliedEnd(start, reference, alternate)) {
+            return NOT_PACKED;
+        }
+        int packedReference = packAllele(reference);
+        int packedAlternate = packAllele(alternate);
+        if (packedReference < 0 || packedAlternate < 0) {
+            return NOT_PACKED;
+        }
+        return ((long) contigIndex << (START_BITS + 2 * ALLELE_BITS))
+                | (start << (2 * ALLELE_BITS))
+                | ((long) packedReference << ALLELE_BITS)
+                | packedAlternate;
+    }
+
+    byte[] encodeUnpacked(IVariant variant) {
+        byte[] reference = variant.getReference().getBytes(StandardCharsets.UTF_8);
+        byte[] alternate = variant.getAlternate().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer key = ByteBuffer.allocate(4 + 8 + 8 + 4 + reference.length + alternate.length);
+        key.putInt(getContigIndex(variant.getChromosome()));
+        key.putLong(variant.getStart());
+        key.putLong(variant.getEnd());
+        key.putInt(reference.length);
+        key.put(reference);
+        key.put(alternate);
+        return key.array();
+    }
+
+    String decodePacked(long key) {
+        int contigIndex = (int) (key >>> (START_BITS + 2 * ALLELE_BITS));
+        long start = (key >>> (2 * ALLELE_BITS)) & MAX_PACKED_START;
+        String reference = unpackAllele((int) (key >>> ALLELE_BITS) & 0xFF);
+        String alternate = unpackAllele((int) key & 0xFF);
+        return format(contigs.get(contigIndex), start, reference, alternate);
+    }
+
+    String decodeUnpacked(byte[] key) {
+        ByteBuffer buffer = ByteBuffer.wrap(key);
+        String contig = contigs.get(buffer.getInt());
+        long start = buffer.getLong();
+        buffer.getLong();
+        int referenceLength = buffer.getInt();
+        String reference = new String(key, buffer.position(), referenceLength, StandardCharsets.UTF_8);
+        int alternateOffset = buffer.position() + referenceLength;
+        String alternate = new String(key, alternateOffset, key.length - alternateOffset, StandardCharsets.UTF_8);
+        return format(contig, start, reference, alternate);
+    }
+
+    private int getContigIndex(String contig) {
+        Integer index = contigIndices.get(contig);
+        if (index == null) {
+            index = contigs.size();
+            contigIndices.put(contig, index);
+            contigs.add(contig);
+        }
+        return index;
+    }
+
+    private static long impliedEnd(long start, String reference, String alternate) {
+        return start + Math.max(reference.length(), alternate.length()) - 1;
+    }
+
+    /**
+     * @return the packed allele, or -1 if it can't be packed
+     */
+    private static int packAllele(String allele) {
+        int length = allele.length();
+        if (length > MAX_PACKED_ALLELE_LENGTH) {
+            return -1;
+        }
+        int packed = length;
+        for (int i = 0; i < length; i++) {
+            int nucleotide = NUCLEOTIDES.indexOf(allele.charAt(i));
+            if (nucleotide < 0) {
+                return -1;
+            }
+            packed |= nucleotide << (NUCLEOTIDE_BITS * (i + 1));
+        }
+        return packed;
+    }
+
+    private static String unpackAllele(int packed) {
+        int length = packed & ((1 << NUCLEOTIDE_BITS) - 1);
+        StringBuilder allele = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            allele.append(NUCLEOTIDES.charAt((packed >>> (NUCLEOTIDE_BITS * (i + 1))) & ((1 << NUCLEOTIDE_BITS) - 1)));
+        }
+        return allele.toString();
+    }
+
+    private static String format(String contig, long start, String reference, String alternate) {
+        return contig + ":" + start + ":" + reference + ":" + alternate;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Sorts the coordinates of an arbitrary number of variants keeping at most a fixed number of them in memory (see
+ * {@link ExternalSorter}). Each sorter interns the contigs of its keys in its own registry.
+ */
+class ExternalVariantSorter extends ExternalSorter<VariantKey> {
+
+    private static final String SPILL_FILE_PREFIX = "report-check-";
+
+    private final StringInterner contigs;
+
+    /**
+     * @param tempDirectory where the spill files will be written, or null to use the default temporary directory
+     */
+    ExternalVariantSorter(File tempDirectory, int maxVariantsInMemory) {
+        this(tempDirectory, maxVariantsInMemory, new StringInterner(StringInterner.DEFAULT_MAX_SIZE));
+    }
+
+    private ExternalVariantSorter(File tempDirectory, int maxVariantsInMemory, StringInterner contigs) {
+        super(tempDirectory, maxVariantsInMemory, SPILL_FILE_PREFIX, new Codec<VariantKey>() {
+            @Override
+            public void write(VariantKey variant, DataOutput output) throws IOException {
+                variant.write(output);
+            }
+
+            @Override
+            public VariantKey read(DataInput input) throws IOException {
+                return VariantKey.read(input, contigs);
+            }
+        });
+        this.contigs = contigs;
+    }
+
+    void add(IVariant variant) throws IOException {
+        add(new VariantKey(contigs.intern(variant.getChromosome()), variant.getStart(), variant.getEnd(),
+                           variant.getReference(), variant.getAlternate()));
+    }
+
+    @Override
+    public SortedVariantIterator sort() throws IOException {
+        SortedIterator<VariantKey> iterator = super.sort();
+        return new SortedVariantIterator() {
+            @Override
+            public VariantKey next() throws IOException {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                iterator.close();
+            }
+        };
+    }
+
+    interface SortedVariantIterator extends SortedIterator<VariantKey> {
+
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs using open addressing with linear probing, so that each element takes a slot in a
+ * {@code long[]} instead of a boxed Long plus a hash map entry.
+ * <p>
+ * The value 0 marks the free slots of the table, so it is tracked separately.
+ */
+class LongOpenHashSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private static final long FREE = 0;
+
+    private long[] table;
+
+    private int mask;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    private boolean containsFree;
+
+    LongOpenHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongOpenHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @return true if the value was not already in the set
+     */
+    boolean add(long value) {
+        if (value == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value);
+        while (table[slot] != FREE) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        if (size > resizeThreshold) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        return find(value) >= 0;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    boolean remove(long value) {
+        if (value == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        shiftEntriesBack(slot);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(LongConsumer consumer) {
+        if (containsFree) {
+            consumer.accept(FREE);
+        }
+        for (long value : table) {
+            if (value != FREE) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the elements, which can be iterated while the set is modified
+     */
+    long[] toArray() {
+        long[] values = new long[size];
+        int[] index = {0};
+        forEach(value -> values[index[0]++] = value);
+        return values;
+    }
+
+    private int find(long value) {
+        int slot = slot(value);
+        while (table[slot] != FREE) {
+            if (table[slot] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removing an element from a linear probing table can't just free its slot, because that would break the probe
+     * sequence of the elements placed after it. Instead, the following elements of the same run are moved back when
+     * their preferred slot is not between the freed slot and their current one.
+     */
+    private void shiftEntriesBack(int freedSlot) {
+        int slot = freedSlot;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long value = table[slot];
+            if (value == FREE) {
+                break;
+            }
+            int preferredSlot = slot(value);
+            boolean canMove = freedSlot <= slot ? (preferredSlot <= freedSlot || preferredSlot > slot)
+                                                : (preferredSlot <= freedSlot && preferredSlot > slot);
+            if (canMove) {
+                table[freedSlot] = value;
+                freedSlot = slot;
+            }
+        }
+        table[freedSlot] = FREE;
+    }
+
+    private int slot(long value) {
+        // finalization step of MurmurHash3, to spread the packed fields over the low bits
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = table;
+        allocate(newCapacity);
+        for (long value : oldTable) {
+            if (value != FREE) {
+                int slot = slot(value);
+                while (table[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
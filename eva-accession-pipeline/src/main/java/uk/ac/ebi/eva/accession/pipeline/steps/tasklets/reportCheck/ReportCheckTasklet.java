@@ -29,9 +29,6 @@ import org.springframework.batch.repeat.RepeatStatus;
 import uk.ac.ebi.eva.accession.pipeline.policies.InvalidVariantSkipPolicy;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * Compares the the original VCF and accession report VCF, and logs the differences.
  * <p>
@@ -47,6 +44,9 @@ import java.util.Set;
  * having the VCFs completely loaded in memory, a buffer size can be configured for both buffers. However, to guarantee
  * correct behaviour in worst-ordering scenario, the buffers need to be able to grow indefinitely.
  * <p>
+ * To keep the memory usage low when the buffers grow, they don't store the variants but compact keys of their
+ * coordinates and alleles (see {@link CompactVariantKeyEncoder}).
+ * <p>
  * To perform some self-checks, this tasklet provides the maximum size of the buffers during the execution, and
  * also provides the number of iterations needed.
  */
@@ -70,8 +70,9 @@ public class ReportCheckTasklet implements Tasklet {
 
     public ReportCheckTasklet(ItemStreamReader<Variant> inputReader, ItemStreamReader<Variant> reportReader,
                               long initialBufferSize) {
-        this.inputBufferHelper = new BufferHelper(inputReader);
-        this.reportBufferHelper = new BufferHelper(reportReader);
+        CompactVariantKeyEncoder encoder = new CompactVariantKeyEncoder();
+        this.inputBufferHelper = new BufferHelper(inputReader, encoder);
+        this.reportBufferHelper = new BufferHelper(reportReader, encoder);
         this.initialBufferSize = initialBufferSize;
         this.maxBufferSize = 0;
         this.iterations = 0;
@@ -107,7 +108,7 @@ public class ReportCheckTasklet implements Tasklet {
      */
     private boolean fillBuffer(BufferHelper bufferHelper) throws Exception {
         Variant variantRead = null;
-        Set<Variant> buffer = bufferHelper.getBuffer();
+        CompactVariantBuffer buffer = bufferHelper.getBuffer();
         boolean bufferWasFull = buffer.size() >= initialBufferSize;
 
         while (buffer.size() < initialBufferSize && (variantRead = readVcfIgnoringNonVariants(bufferHelper)) != null) {
@@ -139,19 +140,8 @@ public class ReportCheckTasklet implements Tasklet {
         return variant;
     }
 
-    private int removeMatchingVariants(Set<Variant> variantBuffer, Set<Variant> accessionBuffer) {
-        Set<Variant> matchedAccessions = new HashSet<>();
-        for (Variant unmatchedAccession : accessionBuffer) {
-            boolean removed = variantBuffer.remove(unmatchedAccession);
-            if (removed) {
-                matchedAccessions.add(unmatchedAccession);
-            }
-            if (variantBuffer.isEmpty()) {
-                break;
-            }
-        }
-        accessionBuffer.removeAll(matchedAccessions);
-        return matchedAccessions.size();
+    private int removeMatchingVariants(CompactVariantBuffer variantBuffer, CompactVariantBuffer accessionBuffer) {
+        return variantBuffer.removeMatching(accessionBuffer);
     }
 
     /**
@@ -257,15 +247,15 @@ public class ReportCheckTasklet implements Tasklet {
 
         private ItemStreamReader<Variant> reader;
 
-        private Set<Variant> buffer;
+        private CompactVariantBuffer buffer;
 
         private Long duplicatedVariants;
 
         private Long skippedVariants;
 
-        BufferHelper(ItemStreamReader<Variant> reportReader) {
+        BufferHelper(ItemStreamReader<Variant> reportReader, CompactVariantKeyEncoder encoder) {
             this.reader = reportReader;
-            this.buffer = new HashSet<>();
+            this.buffer = new CompactVariantBuffer(encoder);
             this.duplicatedVariants = 0L;
             this.skippedVariants = 0L;
         }
@@ -278,11 +268,11 @@ public class ReportCheckTasklet implements Tasklet {
             this.reader = reader;
         }
 
-        public Set<Variant> getBuffer() {
+        public CompactVariantBuffer getBuffer() {
             return buffer;
         }
 
-        public void setBuffer(Set<Variant> buffer) {
+        public void setBuffer(CompactVariantBuffer buffer) {
             this.buffer = buffer;
         }
 
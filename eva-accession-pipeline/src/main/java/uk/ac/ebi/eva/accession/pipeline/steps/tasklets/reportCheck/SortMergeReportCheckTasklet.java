@@ -0,0 +1,306 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.skip.SkipPolicy;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import uk.ac.ebi.eva.accession.pipeline.policies.InvalidVariantSkipPolicy;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.ExternalVariantSorter.SortedVariantIterator;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the original VCF and accession report VCF like {@link ReportCheckTasklet}, but using bounded memory
+ * regardless of how unordered the report is.
+ * <p>
+ * Both VCFs are sorted by coordinates with an {@link ExternalVariantSorter}, which keeps at most a fixed number of
+ * variants in memory and writes the rest to spill files. Then both sorted streams are traversed at the same time,
+ * like in a merge join, counting the repeated, matched and unmatched variants.
+ * <p>
+ * The statistics have the same meaning as in {@link ReportCheckTasklet}, except for the buffering ones: the maximum
+ * buffer size is the maximum number of variants held in memory while sorting, and the iterations are the number of
+ * groups of variants sorted in memory.
+ */
+public class SortMergeReportCheckTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(SortMergeReportCheckTasklet.class);
+
+    private static final int MAX_LOGGED_UNMATCHED_VARIANTS = 1000;
+
+    private final ItemStreamReader<Variant> inputReader;
+
+    private final ItemStreamReader<Variant> reportReader;
+
+    private final int maxVariantsInMemory;
+
+    private final File tempDirectory;
+
+    private final SkipPolicy skipPolicy;
+
+    private long maxBufferSize;
+
+    private long iterations;
+
+    private long duplicatedVariantsInInputVcf;
+
+    private long duplicatedVariantsInReportVcf;
+
+    private long skippedVariantsInInputVcf;
+
+    private long skippedVariantsInReportVcf;
+
+    private long unmatchedVariantsInInputVcf;
+
+    private long unmatchedVariantsInReportVcf;
+
+    private List<VariantKey> unmatchedInputSample;
+
+    private List<VariantKey> unmatchedReportSample;
+
+    /**
+     * @param maxVariantsInMemory maximum number of variants of each VCF that will be sorted in memory at once
+     * @param tempDirectory where the spill files will be written, or null to use the default temporary directory
+     */
+    public SortMergeReportCheckTasklet(ItemStreamReader<Variant> inputReader, ItemStreamReader<Variant> reportReader,
+                                       int maxVariantsInMemory, File tempDirectory) {
+        this.inputReader = inputReader;
+        this.reportReader = reportReader;
+        this.maxVariantsInMemory = maxVariantsInMemory;
+        this.tempDirectory = tempDirectory;
+        this.skipPolicy = new InvalidVariantSkipPolicy();
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution stepContribution, ChunkContext chunkContext) throws Exception {
+        unmatchedInputSample = new ArrayList<>();
+        unmatchedReportSample = new ArrayList<>();
+        try (ExternalVariantSorter inputSorter = new ExternalVariantSorter(tempDirectory, maxVariantsInMemory);
+             ExternalVariantSorter reportSorter = new ExternalVariantSorter(tempDirectory, maxVariantsInMemory)) {
+            skippedVariantsInInputVcf = readAll(inputReader, inputSorter);
+            skippedVariantsInReportVcf = readAll(reportReader, reportSorter);
+            maxBufferSize = Math.max(inputSorter.getMaxBufferSize(), reportSorter.getMaxBufferSize());
+
+            try (SortedVariantIterator sortedInput = inputSorter.sort();
+                 SortedVariantIterator sortedReport = reportSorter.sort()) {
+                iterations = inputSorter.getSortedRuns() + reportSorter.getSortedRuns();
+                mergeJoin(new RepeatedVariantIterator(sortedInput), new RepeatedVariantIterator(sortedReport));
+            }
+        }
+
+        logStatus(stepContribution);
+
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * @return number of skipped variants
+     */
+    private long readAll(ItemStreamReader<Variant> reader, ExternalVariantSorter sorter) throws Exception {
+        long skippedVariants = 0;
+        reader.open(new ExecutionContext());
+        try {
+            while (true) {
+                try {
+                    Variant variant = reader.read();
+                    if (variant == null) {
+                        break;
+                    }
+                    sorter.add(variant);
+                } catch (Exception exception) {
+                    if (skipPolicy.shouldSkip(exception, 0)) {
+                        // this was likely a non-variant, we must read the next line
+                        skippedVariants++;
+                    } else {
+                        throw exception;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return skippedVariants;
+    }
+
+    private void mergeJoin(RepeatedVariantIterator input, RepeatedVariantIterator report) throws IOException {
+        VariantKey inputVariant = input.next();
+        VariantKey reportVariant = report.next();
+        while (inputVariant != null || reportVariant != null) {
+            int comparison;
+            if (inputVariant == null) {
+                comparison = 1;
+            } else if (reportVariant == null) {
+                comparison = -1;
+            } else {
+                comparison = inputVariant.compareTo(reportVariant);
+            }
+
+            if (comparison <= 0) {
+                duplicatedVariantsInInputVcf += input.getRepetitions() - 1;
+            }
+            if (comparison >= 0) {
+                duplicatedVariantsInReportVcf += report.getRepetitions() - 1;
+            }
+            if (comparison < 0) {
+                unmatchedVariantsInInputVcf++;
+                addToSample(unmatchedInputSample, inputVariant);
+            } else if (comparison > 0) {
+                unmatchedVariantsInReportVcf++;
+                addToSample(unmatchedReportSample, reportVariant);
+            }
+
+            if (comparison <= 0) {
+                inputVariant = input.next();
+            }
+            if (comparison >= 0) {
+                reportVariant = report.next();
+            }
+        }
+    }
+
+    private void addToSample(List<VariantKey> sample, VariantKey variant) {
+        if (sample.size() < MAX_LOGGED_UNMATCHED_VARIANTS) {
+            sample.add(variant);
+        }
+    }
+
+    private void logStatus(StepContribution stepContribution) {
+        logger.debug("Max variants held in memory: {}; sorted runs: {}", maxBufferSize, iterations);
+
+        if (skippedVariantsInInputVcf > 0) {
+            logger.warn("{} lines in the original VCF were skipped. The most likely reason is that they were " +
+                                "non-variants, but a high number could be symptom of a problem.",
+                        skippedVariantsInInputVcf);
+        }
+
+        if (skippedVariantsInReportVcf > 0) {
+            logger.error("{} variants in the accession report were skipped. This is very likely a bug because the " +
+                                 "report should not contain non-variants nor malformed lines.",
+                         skippedVariantsInReportVcf);
+        }
+
+        if (duplicatedVariantsInInputVcf > 0) {
+            logger.warn("{} duplicated variants were found in the original VCF. This means that it's expected for the" +
+                                " report to have less variants than the original VCF, as each set of duplicates got " +
+                                "only one accession.",
+                        duplicatedVariantsInInputVcf);
+        }
+        if (duplicatedVariantsInReportVcf > 0) {
+            logger.warn("{} duplicated variants were found in the accession report. This means that in the original " +
+                                "VCF there were duplicates and they got different accessions, and now there are " +
+                                "redundant accessions that should be eventually deprecated. This redundant " +
+                                "accessions will be avoided when alignment against the reference is done.",
+                        duplicatedVariantsInReportVcf);
+        }
+
+        stepContribution.setExitStatus(ExitStatus.COMPLETED);
+        if (unmatchedVariantsInReportVcf > 0) {
+            stepContribution.setExitStatus(ExitStatus.FAILED);
+            logger.error("{} variants were found in the accession report that were not found in the original VCF.",
+                         unmatchedVariantsInReportVcf);
+            logger.info("These are the first {} variants that were not found in the original VCF: {}",
+                        unmatchedReportSample.size(), unmatchedReportSample);
+        }
+
+        if (unmatchedVariantsInInputVcf > 0) {
+            stepContribution.setExitStatus(ExitStatus.FAILED);
+            logger.error("{} variants were not found in the accession report. Given that {} of those are duplicates, " +
+                                 "only {} - {} = {} unaccessioned variants need to be checked.",
+                         unmatchedVariantsInInputVcf, duplicatedVariantsInReportVcf,
+                         unmatchedVariantsInInputVcf, duplicatedVariantsInReportVcf,
+                         unmatchedVariantsInInputVcf - duplicatedVariantsInReportVcf);
+            logger.info("These are the first {} variants that were not found in the accession report: {}",
+                        unmatchedInputSample.size(), unmatchedInputSample);
+        }
+    }
+
+    public long getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public long getDuplicatedVariantsInInputVcf() {
+        return duplicatedVariantsInInputVcf;
+    }
+
+    public long getDuplicatedVariantsInReportVcf() {
+        return duplicatedVariantsInReportVcf;
+    }
+
+    public long getSkippedVariantsInInputVcf() {
+        return skippedVariantsInInputVcf;
+    }
+
+    public long getSkippedVariantsInReportVcf() {
+        return skippedVariantsInReportVcf;
+    }
+
+    public long getUnmatchedVariantsInInputVcf() {
+        return unmatchedVariantsInInputVcf;
+    }
+
+    public long getUnmatchedVariantsInReportVcf() {
+        return unmatchedVariantsInReportVcf;
+    }
+
+    /**
+     * Returns each distinct variant of a sorted stream once, remembering how many times it appeared.
+     */
+    private static class RepeatedVariantIterator {
+
+        private final SortedVariantIterator iterator;
+
+        private VariantKey lookAhead;
+
+        private long repetitions;
+
+        RepeatedVariantIterator(SortedVariantIterator iterator) throws IOException {
+            this.iterator = iterator;
+            this.lookAhead = iterator.next();
+        }
+
+        VariantKey next() throws IOException {
+            VariantKey current = lookAhead;
+            repetitions = 0;
+            if (current != null) {
+                do {
+                    repetitions++;
+                    lookAhead = iterator.next();
+                } while (current.equals(lookAhead));
+            }
+            return current;
+        }
+
+        long getRepetitions() {
+            return repetitions;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter.Codec;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Coordinates that identify a variant when comparing the original VCF and the accession report, ordered by contig,
+ * start, end, reference and alternate. They can be written to and read from the spill files of an
+ * {@link ExternalVariantSorter}, which interns the contigs, as the same few contigs are repeated in every key read
+ * from the VCFs and the spill files.
+ */
+class VariantKey implements Comparable<VariantKey> {
+
+    private final String contig;
+
+    private final long start;
+
+    private final long end;
+
+    private final String reference;
+
+    private final String alternate;
+
+    VariantKey(IVariant variant) {
+        this(variant.getChromosome(), variant.getStart(), variant.getEnd(), variant.getReference(),
+             variant.getAlternate());
+    }
+
+    VariantKey(String contig, long start, long end, String reference, String alternate) {
+        this.contig = contig;
+        this.start = start;
+        this.end = end;
+        this.reference = reference;
+        this.alternate = alternate;
+    }
+
+    static VariantKey read(DataInput input, StringInterner contigs) throws IOException {
+        String contig = contigs.intern(Codec.readString(input));
+        long start = input.readLong();
+        long end = input.readLong();
+        String reference = Codec.readString(input);
+        String alternate = Codec.readString(input);
+        return new VariantKey(contig, start, end, reference, alternate);
+    }
+
+    void write(DataOutput output) throws IOException {
+        Codec.writeString(contig, output);
+        output.writeLong(start);
+        output.writeLong(end);
+        Codec.writeString(reference, output);
+        Codec.writeString(alternate, output);
+    }
+
+    @Override
+    public int compareTo(VariantKey other) {
+        int comparison = contig.compareTo(other.contig);
+        if (comparison == 0) {
+            comparison = Long.compare(start, other.start);
+        }
+        if (comparison == 0) {
+            comparison = Long.compare(end, other.end);
+        }
+        if (comparison == 0) {
+            comparison = reference.compareTo(other.reference);
+        }
+        if (comparison == 0) {
+            comparison = alternate.compareTo(other.alternate);
+        }
+        return comparison;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return compareTo((VariantKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = contig.hashCode();
+        result = 31 * result + Long.hashCode(start);
+        result = 31 * result + Long.hashCode(end);
+        result = 31 * result + reference.hashCode();
+        result = 31 * result + alternate.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return contig + ":" + start + ":" + reference + ">" + alternate;
+    }
+}
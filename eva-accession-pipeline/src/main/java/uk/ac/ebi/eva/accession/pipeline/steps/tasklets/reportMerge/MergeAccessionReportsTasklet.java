@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportMerge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Concatenates the accession reports written by each partition of the accessioning step into a single report.
+ * <p>
+ * The header is taken from the first partition report. The tasklet runs in two transactions: the first one writes
+ * the merged report and records the merged partition reports in the step execution context, and only the second one
+ * removes them. If the merge fails, the merged report is written again from the beginning when the job is restarted,
+ * with all the partition reports still in place. If the removal fails, the restarted step finds the merge recorded and
+ * only removes the partition reports left.
+ */
+public class MergeAccessionReportsTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergeAccessionReportsTasklet.class);
+
+    private static final String HEADER_PREFIX = "#";
+
+    static final String MERGED_REPORTS_KEY = "MergeAccessionReportsTasklet_mergedReports";
+
+    private final String outputVcf;
+
+    private final int maxPartitions;
+
+    public MergeAccessionReportsTasklet(String outputVcf, int maxPartitions) {
+        this.outputVcf = outputVcf;
+        this.maxPartitions = maxPartitions;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext executionContext = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        if (!executionContext.containsKey(MERGED_REPORTS_KEY)) {
+            executionContext.put(MERGED_REPORTS_KEY, merge());
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> mergedReports = (List<String>) executionContext.get(MERGED_REPORTS_KEY);
+        for (String partitionReport : mergedReports) {
+            Files.deleteIfExists(Paths.get(partitionReport));
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * @return the paths of the merged partition reports
+     */
+    private ArrayList<String> merge() throws IOException {
+        List<File> partitionReports = getPartitionReports();
+        if (partitionReports.isEmpty()) {
+            throw new IllegalStateException("No partition reports were found to be merged into " + outputVcf);
+        }
+
+        long variantsMerged = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputVcf))) {
+            boolean isHeaderWritten = false;
+            for (File partitionReport : partitionReports) {
+                variantsMerged += copyReport(partitionReport, writer, !isHeaderWritten);
+                isHeaderWritten = true;
+            }
+        }
+        logger.info("Merged {} variants from {} partition reports into {}", variantsMerged, partitionReports.size(),
+                    outputVcf);
+
+        ArrayList<String> mergedReports = new ArrayList<>(partitionReports.size());
+        for (File partitionReport : partitionReports) {
+            mergedReports.add(partitionReport.getPath());
+        }
+        return mergedReports;
+    }
+
+    private List<File> getPartitionReports() {
+        List<File> partitionReports = new ArrayList<>();
+        for (int i = 0; i < maxPartitions; i++) {
+            File partitionReport = new File(ContigPartitioner.getPartitionOutputVcf(outputVcf, i));
+            if (partitionReport.exists()) {
+                partitionReports.add(partitionReport);
+            }
+        }
+        return partitionReports;
+    }
+
+    private long copyReport(File partitionReport, BufferedWriter writer, boolean copyHeader) throws IOException {
+        long variantsCopied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(partitionReport.toPath())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                boolean isHeader = line.startsWith(HEADER_PREFIX);
+                if (!isHeader) {
+                    variantsCopied++;
+                }
+                if (!isHeader || copyHeader) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+        }
+        return variantsCopied;
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.ebi.eva.accession.pipeline.configuration.jobs;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
+import uk.ac.ebi.eva.accession.pipeline.test.BatchTestConfiguration;
+import uk.ac.ebi.eva.accession.pipeline.test.MongoTestConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CHECK_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_PARTITION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.MERGE_ACCESSION_REPORTS_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {BatchTestConfiguration.class, SubmittedVariantAccessioningConfiguration.class,
+        MongoTestConfiguration.class})
+@TestPropertySource(value = "classpath:accession-pipeline-test.properties",
+        properties = {"parameters.partitions=2", "parameters.chunkSize=5",
+                "parameters.vcf=src/test/resources/input-files/vcf/multiple_contigs.genotyped.vcf.gz"})
+public class PartitionedCreateSubsnpAccessionsJobConfigurationTest {
+
+    private static final int EXPECTED_VARIANTS = 21;
+
+    private static final int EXPECTED_PARTITIONS = 2;
+
+    private static final String ACCESSION_PREFIX = "ss";
+
+    private static final int ACCESSION_COLUMN = 2;
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    @After
+    public void tearDown() throws Exception {
+        new File(inputParameters.getOutputVcf()).delete();
+        for (int i = 0; i < EXPECTED_PARTITIONS; i++) {
+            new File(ContigPartitioner.getPartitionOutputVcf(inputParameters.getOutputVcf(), i)).delete();
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void executeJob() throws Exception {
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertStepNames(new ArrayList<>(jobExecution.getStepExecutions()));
+
+        Set<Long> accessionsInDatabase = new HashSet<>();
+        SubmittedVariantSummaryHashingFunction hashingFunction = new SubmittedVariantSummaryHashingFunction();
+        for (SubmittedVariantEntity variant : repository.findAll()) {
+            assertEquals(hashingFunction.apply(variant), variant.getHashedMessage());
+            assertEquals(inputParameters.getProjectAccession(), variant.getProjectAccession());
+            accessionsInDatabase.add(variant.getAccession());
+        }
+        assertEquals(EXPECTED_VARIANTS, repository.count());
+        assertEquals(EXPECTED_VARIANTS, accessionsInDatabase.size());
+        assertEquals(accessionsInDatabase, new HashSet<>(getAccessionsInReport()));
+
+        assertEquals(getCoordinates(readInputVcf()), getCoordinates(readReport()));
+        for (int i = 0; i < EXPECTED_PARTITIONS; i++) {
+            assertFalse(new File(ContigPartitioner.getPartitionOutputVcf(inputParameters.getOutputVcf(), i))
+                                .exists());
+        }
+    }
+
+    private List<String> readReport() throws IOException {
+        return Files.lines(new File(inputParameters.getOutputVcf()).toPath())
+                    .filter(line -> !line.startsWith("#"))
+                    .collect(Collectors.toList());
+    }
+
+    private List<String> readInputVcf() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(new File(inputParameters.getVcf()).toPath()))))) {
+            return reader.lines().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+        }
+    }
+
+    private List<String> getCoordinates(List<String> vcfLines) {
+        return vcfLines.stream().map(line -> {
+            String[] fields = line.split("\t");
+            return fields[0] + ":" + fields[1];
+        }).collect(Collectors.toList());
+    }
+
+    private List<Long> getAccessionsInReport() throws IOException {
+        return readReport().stream()
+                           .map(line -> line.split("\t")[ACCESSION_COLUMN].substring(ACCESSION_PREFIX.length()))
+                           .map(Long::parseLong)
+                           .collect(Collectors.toList());
+    }
+
+    private void assertStepNames(List<StepExecution> stepExecutions) {
+        assertEquals(EXPECTED_PARTITIONS + 3, stepExecutions.size());
+        assertEquals(PARTITIONED_CREATE_SUBSNP_ACCESSION_STEP, stepExecutions.get(0).getStepName());
+        for (StepExecution partitionExecution : stepExecutions.subList(1, EXPECTED_PARTITIONS + 1)) {
+            assertTrue(partitionExecution.getStepName().startsWith(CREATE_SUBSNP_ACCESSION_PARTITION_STEP + ":"));
+            assertEquals(BatchStatus.COMPLETED, partitionExecution.getStatus());
+        }
+        assertEquals(MERGE_ACCESSION_REPORTS_STEP, stepExecutions.get(EXPECTED_PARTITIONS + 1).getStepName());
+        assertEquals(CHECK_SUBSNP_ACCESSION_STEP, stepExecutions.get(EXPECTED_PARTITIONS + 2).getStepName());
+    }
+}
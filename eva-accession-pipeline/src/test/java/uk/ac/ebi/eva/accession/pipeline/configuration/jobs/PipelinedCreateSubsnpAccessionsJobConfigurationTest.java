@@ -0,0 +1,105 @@
+package uk.ac.ebi.eva.accession.pipeline.configuration.jobs;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.test.BatchTestConfiguration;
+import uk.ac.ebi.eva.accession.pipeline.test.MongoTestConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CHECK_SUBSNP_ACCESSION_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBSNP_ACCESSION_STEP;
+
+/**
+ * Same job as {@link CreateSubsnpAccessionsJobConfigurationTest}, but reading the VCF with the pipelined reader. The
+ * documents and the report must be the same as when the variants are read and processed in the step.
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {BatchTestConfiguration.class, SubmittedVariantAccessioningConfiguration.class,
+        MongoTestConfiguration.class})
+@TestPropertySource(value = "classpath:accession-pipeline-test.properties",
+        properties = {"parameters.pipelinedReader=true"})
+public class PipelinedCreateSubsnpAccessionsJobConfigurationTest {
+
+    private static final int EXPECTED_VARIANTS = 299;
+
+    private static final String ACCESSION_PREFIX = "ss";
+
+    private static final int ACCESSION_COLUMN = 2;
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private InputParameters inputParameters;
+
+    @After
+    public void tearDown() throws Exception {
+        new File(inputParameters.getOutputVcf()).delete();
+    }
+
+    @Test
+    @DirtiesContext
+    public void executeJob() throws Exception {
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        assertStepNames(jobExecution.getStepExecutions());
+
+        Set<Long> accessionsInDatabase = new HashSet<>();
+        SubmittedVariantSummaryHashingFunction hashingFunction = new SubmittedVariantSummaryHashingFunction();
+        for (SubmittedVariantEntity variant : repository.findAll()) {
+            assertEquals(hashingFunction.apply(variant), variant.getHashedMessage());
+            assertEquals(inputParameters.getProjectAccession(), variant.getProjectAccession());
+            accessionsInDatabase.add(variant.getAccession());
+        }
+        assertEquals(EXPECTED_VARIANTS, repository.count());
+        assertEquals(EXPECTED_VARIANTS, accessionsInDatabase.size());
+
+        List<Long> accessionsInReport = getAccessionsInReport();
+        assertEquals(EXPECTED_VARIANTS, accessionsInReport.size());
+        assertEquals(accessionsInDatabase, new HashSet<>(accessionsInReport));
+    }
+
+    private List<Long> getAccessionsInReport() throws IOException {
+        return Files.lines(new File(inputParameters.getOutputVcf()).toPath())
+                    .filter(line -> !line.startsWith("#"))
+                    .map(line -> line.split("\t")[ACCESSION_COLUMN].substring(ACCESSION_PREFIX.length()))
+                    .map(Long::parseLong)
+                    .collect(Collectors.toList());
+    }
+
+    private void assertStepNames(Collection<StepExecution> stepExecutions) {
+        assertEquals(2, stepExecutions.size());
+        Iterator<StepExecution> iterator = stepExecutions.iterator();
+        assertEquals(CREATE_SUBSNP_ACCESSION_STEP, iterator.next().getStepName());
+        assertEquals(CHECK_SUBSNP_ACCESSION_STEP, iterator.next().getStepName());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class AsyncAccessionReportWriterTest {
+
+    private static final String CONTIG = "contig_1";
+
+    private static final int TAXONOMY = 3880;
+
+    private File output;
+
+    private FastaSequenceReader fastaSequenceReader;
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        output = temporaryFolderRule.newFile();
+        Path fastaPath = Paths.get(AsyncAccessionReportWriterTest.class.getResource("/input-files/fasta/mock.fa")
+                                                                       .toURI());
+        fastaSequenceReader = new FastaSequenceReader(fastaPath);
+    }
+
+    @Test
+    public void sameReportAsSynchronousWriter() throws Exception {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> variants = createVariants(0, 50);
+        File synchronousOutput = temporaryFolderRule.newFile();
+        AccessionReportWriter synchronousWriter = new AccessionReportWriter(synchronousOutput, fastaSequenceReader);
+        synchronousWriter.open(new ExecutionContext());
+        synchronousWriter.write(variants.subList(0, 20));
+        synchronousWriter.write(variants.subList(20, 50));
+        synchronousWriter.close();
+
+        AsyncAccessionReportWriter asyncWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader, 1);
+        ExecutionContext executionContext = new ExecutionContext();
+        asyncWriter.open(executionContext);
+        asyncWriter.write(variants.subList(0, 20));
+        asyncWriter.update(executionContext);
+        asyncWriter.write(variants.subList(20, 50));
+        asyncWriter.close();
+
+        assertEquals(Files.readAllLines(synchronousOutput.toPath()), Files.readAllLines(output.toPath()));
+    }
+
+    @Test
+    public void updateSavesTheOffsetOfAllWrittenChunks() throws Exception {
+        AsyncAccessionReportWriter asyncWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        ExecutionContext executionContext = new ExecutionContext();
+        asyncWriter.open(executionContext);
+        asyncWriter.write(createVariants(0, 10));
+        asyncWriter.write(createVariants(10, 20));
+        asyncWriter.update(executionContext);
+        asyncWriter.close();
+
+        assertEquals(20, countVariantLines());
+        assertEquals(output.length(), executionContext.getLong(AsyncAccessionReportWriter.WRITTEN_BYTES_KEY));
+    }
+
+    @Test
+    public void updateWaitsForTheChunksToReachTheFile() throws Exception {
+        AsyncAccessionReportWriter asyncWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        ExecutionContext executionContext = new ExecutionContext();
+        asyncWriter.open(executionContext);
+        asyncWriter.write(createVariants(0, 10));
+        asyncWriter.write(createVariants(10, 20));
+        asyncWriter.update(executionContext);
+
+        assertEquals(20, countVariantLines());
+        assertEquals(output.length(), executionContext.getLong(AsyncAccessionReportWriter.WRITTEN_BYTES_KEY));
+        asyncWriter.close();
+    }
+
+    @Test(expected = ItemStreamException.class)
+    public void restartFailsIfCommittedChunksAreMissing() throws Exception {
+        AsyncAccessionReportWriter asyncWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        ExecutionContext executionContext = new ExecutionContext();
+        asyncWriter.open(executionContext);
+        asyncWriter.write(createVariants(0, 10));
+        asyncWriter.update(executionContext);
+        asyncWriter.close();
+        executionContext.putLong(AsyncAccessionReportWriter.WRITTEN_BYTES_KEY, output.length() + 100);
+
+        new AsyncAccessionReportWriter(output, fastaSequenceReader).open(executionContext);
+    }
+
+    @Test
+    public void restartDiscardsUncommittedChunks() throws Exception {
+        AsyncAccessionReportWriter asyncWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        ExecutionContext executionContext = new ExecutionContext();
+        asyncWriter.open(executionContext);
+        asyncWriter.write(createVariants(0, 10));
+        asyncWriter.update(executionContext);
+        ExecutionContext committedContext = new ExecutionContext(executionContext);
+        asyncWriter.write(createVariants(10, 20));
+        asyncWriter.update(executionContext);
+        asyncWriter.close();
+        assertEquals(20, countVariantLines());
+
+        AsyncAccessionReportWriter restartedWriter = new AsyncAccessionReportWriter(output, fastaSequenceReader);
+        restartedWriter.open(committedContext);
+        restartedWriter.write(createVariants(10, 15));
+        restartedWriter.close();
+
+        List<String> lines = Files.readAllLines(output.toPath());
+        assertEquals(AccessionReportWriter.HEADER_LINES.length, lines.stream().filter(l -> l.startsWith("#")).count());
+        assertEquals(15, countVariantLines());
+    }
+
+    private List<AccessionWrapper<ISubmittedVariant, String, Long>> createVariants(int from, int to) {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> variants = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            SubmittedVariant variant = new SubmittedVariant("assembly", TAXONOMY, "project", CONTIG, 2 + i % 10, "T",
+                                                            i % 2 == 0 ? "A" : "", false);
+            variants.add(new AccessionWrapper<>((long) i, "hash" + i, variant));
+        }
+        return variants;
+    }
+
+    private long countVariantLines() throws IOException {
+        return Files.readAllLines(output.toPath()).stream().filter(line -> !line.startsWith("#")).count();
+    }
+}
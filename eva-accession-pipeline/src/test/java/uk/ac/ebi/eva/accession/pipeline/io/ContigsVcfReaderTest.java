@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.LineMapper;
+
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContigsVcfReaderTest {
+
+    private File vcf;
+
+    private List<String> mappedContigs;
+
+    private LineMapper<List<Variant>> lineMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        vcf = new File(ContigsVcfReaderTest.class.getResource("/input-files/vcf/multiple_contigs.vcf.gz").toURI());
+        mappedContigs = new ArrayList<>();
+        lineMapper = (line, lineNumber) -> {
+            String[] fields = line.split("\t");
+            mappedContigs.add(fields[0]);
+            long start = Long.parseLong(fields[1]);
+            return Collections.singletonList(new Variant(fields[0], start, start, fields[3], fields[4]));
+        };
+    }
+
+    @Test
+    public void readOnlyRequestedContigs() throws Exception {
+        ContigsVcfReader reader = new ContigsVcfReader(vcf, null, Arrays.asList("2", "4"), lineMapper);
+        assertEquals(3, readAll(reader, new ExecutionContext()));
+        assertEquals(Arrays.asList("2", "4", "4"), mappedContigs);
+    }
+
+    @Test
+    public void unknownContigsAreIgnored() throws Exception {
+        ContigsVcfReader reader = new ContigsVcfReader(vcf, null, Arrays.asList("3", "Y"), lineMapper);
+        assertEquals(1, readAll(reader, new ExecutionContext()));
+        assertEquals(Collections.singletonList("3"), mappedContigs);
+    }
+
+    @Test
+    public void restartFromSavedState() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        ContigsVcfReader reader = new ContigsVcfReader(vcf, null, Collections.singletonList("1"), lineMapper);
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        ContigsVcfReader restartedReader = new ContigsVcfReader(vcf, null, Collections.singletonList("1"),
+                                                                lineMapper);
+        assertEquals(2, readAll(restartedReader, executionContext));
+    }
+
+    private int readAll(ContigsVcfReader reader, ExecutionContext executionContext) throws Exception {
+        reader.open(executionContext);
+        int count = 0;
+        while (reader.read() != null) {
+            count++;
+        }
+        reader.close();
+        return count;
+    }
+}
@@ -29,8 +29,15 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class FastaSequenceReaderTest {
 
@@ -94,6 +101,108 @@ public class FastaSequenceReaderTest {
         reader.getSequence("23", 1, 1);
     }
 
+    @Test
+    public void getSequenceSpanningTwoCacheBlocks() throws Exception {
+        FastaSequenceReader uncachedReader = new FastaSequenceReader(Paths.get(
+                FastaSequenceReaderTest.class.getResource("/input-files/fasta/Gallus_gallus-5.0.test.fa").toURI()), 0);
+        long blockEnd = FastaSequenceReader.CACHE_BLOCK_SIZE;
+        assertEquals(uncachedReader.getSequence("22", blockEnd - 50, blockEnd + 50),
+                     reader.getSequence("22", blockEnd - 50, blockEnd + 50));
+        assertEquals(uncachedReader.getSequence("22", blockEnd, blockEnd), reader.getSequence("22", blockEnd, blockEnd));
+        assertEquals(uncachedReader.getSequence("22", blockEnd + 1, blockEnd + 1),
+                     reader.getSequence("22", blockEnd + 1, blockEnd + 1));
+        assertEquals(0, uncachedReader.getCacheHits() + uncachedReader.getCacheMisses());
+        uncachedReader.close();
+    }
+
+    @Test
+    public void repeatedLookupsAreServedFromTheCache() throws Exception {
+        assertEquals("T", reader.getSequence("22", 1, 1));
+        assertEquals(0, reader.getCacheHits());
+        assertEquals(1, reader.getCacheMisses());
+
+        reader.getSequence("22", 2, 10);
+        reader.getSequence("22", 1000, 1000);
+        assertEquals(2, reader.getCacheHits());
+        assertEquals(1, reader.getCacheMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedBlocksAreEvicted() throws Exception {
+        FastaSequenceReader smallCacheReader = new FastaSequenceReader(Paths.get(
+                FastaSequenceReaderTest.class.getResource("/input-files/fasta/Gallus_gallus-5.0.test.fa").toURI()),
+                                                                       2 * FastaSequenceReader.CACHE_BLOCK_SIZE);
+        long secondBlock = FastaSequenceReader.CACHE_BLOCK_SIZE + 1;
+        long thirdBlock = 2 * FastaSequenceReader.CACHE_BLOCK_SIZE + 1;
+        smallCacheReader.getSequence("22", 1, 1);
+        smallCacheReader.getSequence("22", secondBlock, secondBlock);
+        smallCacheReader.getSequence("22", 1, 1);
+        smallCacheReader.getSequence("22", thirdBlock, thirdBlock);
+        assertEquals(1, smallCacheReader.getCacheHits());
+        assertEquals(3, smallCacheReader.getCacheMisses());
+
+        // the second block was the least recently used, so it's the one that was evicted
+        smallCacheReader.getSequence("22", 1, 1);
+        smallCacheReader.getSequence("22", secondBlock, secondBlock);
+        assertEquals(2, smallCacheReader.getCacheHits());
+        assertEquals(4, smallCacheReader.getCacheMisses());
+        smallCacheReader.close();
+    }
+
+    @Test
+    public void sequencesLongerThanABlockAreNotCached() throws Exception {
+        String sequence = reader.getSequence("22", 1, FastaSequenceReader.CACHE_BLOCK_SIZE + 1);
+        assertEquals(FastaSequenceReader.CACHE_BLOCK_SIZE + 1, sequence.length());
+        assertEquals(0, reader.getCacheHits() + reader.getCacheMisses());
+    }
+
+    @Test
+    public void lastBlockOfContigIsShorter() throws Exception {
+        assertEquals("G", reader.getSequence("22", 4729743, 4729743));
+        assertEquals("G", reader.getSequence("22", 4729743, 4729743));
+        assertEquals(1, reader.getCacheHits());
+    }
+
+    @Test
+    public void memoryMappedFastaReturnsSameSequences() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(Paths.get(
+                FastaSequenceReaderTest.class.getResource("/input-files/fasta/Gallus_gallus-5.0.test.fa").toURI()), 0,
+                                                                   true);
+        assertEquals("T", mappedReader.getSequence("22", 1, 1));
+        assertEquals("G", mappedReader.getSequence("22", 4729743, 4729743));
+        // this sequence is split between three lines in the FASTA file
+        assertEquals("GTTTCAAGTGGTTGTGACCCCCGCTGCACAGTCAGTTGGGTTAGGGTTAGGGTTAGGGTCAGTCACAGTCAGTTGTCAGACTGGTGTTTA",
+                     mappedReader.getSequence("22", 59986, 60075));
+        assertEquals(reader.getSequence("AADN04000814.1", 1, 52690),
+                     mappedReader.getSequence("AADN04000814.1", 1, 52690));
+        mappedReader.close();
+    }
+
+    @Test
+    public void memoryMappedFastaCanBeReadConcurrently() throws Exception {
+        FastaSequenceReader mappedReader = new FastaSequenceReader(Paths.get(
+                FastaSequenceReaderTest.class.getResource("/input-files/fasta/Gallus_gallus-5.0.test.fa").toURI()), 0,
+                                                                   true);
+        String expected = reader.getSequence("22", 100000, 101000);
+        List<Callable<Boolean>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lookups.add(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (!expected.equals(mappedReader.getSequence("22", 100000, 101000))) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(lookups.size());
+        for (Future<Boolean> result : executor.invokeAll(lookups)) {
+            assertTrue(result.get());
+        }
+        executor.shutdown();
+        mappedReader.close();
+    }
+
     @Test
     public void fastaWithNoDictionary() throws Exception {
         FastaSequenceReader fastaSequenceReader = new FastaSequenceReader(Paths.get(
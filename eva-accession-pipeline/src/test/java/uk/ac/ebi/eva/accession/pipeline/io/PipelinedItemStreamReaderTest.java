@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelinedItemStreamReaderTest {
+
+    private static final int BLOCK_SIZE = 3;
+
+    private static final int QUEUE_CAPACITY = 2;
+
+    private static final Integer INVALID_ITEM = -1;
+
+    private static final Integer FILTERED_ITEM = -2;
+
+    private PipelinedItemStreamReader<Integer, String> createReader(List<Integer> items) {
+        return new PipelinedItemStreamReader<>(new ListItemStreamReader(items), this::process, BLOCK_SIZE,
+                                               QUEUE_CAPACITY);
+    }
+
+    private String process(Integer item) {
+        if (INVALID_ITEM.equals(item)) {
+            throw new IllegalArgumentException("Invalid item");
+        }
+        return FILTERED_ITEM.equals(item) ? null : "item" + item;
+    }
+
+    private List<String> readAll(PipelinedItemStreamReader<Integer, String> reader) throws Exception {
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Test
+    public void readAllItemsInOrder() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        PipelinedItemStreamReader<Integer, String> reader = createReader(items);
+        reader.open(new ExecutionContext());
+
+        List<String> readItems = readAll(reader);
+
+        assertEquals(100, readItems.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("item" + i, readItems.get(i));
+        }
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void emptyInput() throws Exception {
+        PipelinedItemStreamReader<Integer, String> reader = createReader(Collections.emptyList());
+        reader.open(new ExecutionContext());
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void filteredItemsAreNotReturned() throws Exception {
+        PipelinedItemStreamReader<Integer, String> reader = createReader(Arrays.asList(1, FILTERED_ITEM, 2));
+        reader.open(new ExecutionContext());
+        assertEquals(Arrays.asList("item1", "item2"), readAll(reader));
+        reader.close();
+    }
+
+    @Test
+    public void exceptionsAreThrownInTheirPosition() throws Exception {
+        PipelinedItemStreamReader<Integer, String> reader = createReader(Arrays.asList(1, INVALID_ITEM, 2));
+        reader.open(new ExecutionContext());
+
+        assertEquals("item1", reader.read());
+        try {
+            reader.read();
+            fail("The exception of the invalid item should have been thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("item2", reader.read());
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void restartAfterTheLastUpdate() throws Exception {
+        List<Integer> items = Arrays.asList(1, 2, FILTERED_ITEM, 3, 4, 5, 6, 7, 8, 9);
+        ExecutionContext executionContext = new ExecutionContext();
+        PipelinedItemStreamReader<Integer, String> reader = createReader(items);
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.read();
+        reader.close();
+
+        PipelinedItemStreamReader<Integer, String> restartedReader = createReader(items);
+        restartedReader.open(executionContext);
+        assertEquals(Arrays.asList("item4", "item5", "item6", "item7", "item8", "item9"), readAll(restartedReader));
+        restartedReader.close();
+    }
+
+    @Test
+    public void closeBeforeTheEndOfTheInput() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+        }
+        ListItemStreamReader delegate = new ListItemStreamReader(items);
+        PipelinedItemStreamReader<Integer, String> reader = new PipelinedItemStreamReader<>(delegate, this::process,
+                                                                                            BLOCK_SIZE,
+                                                                                            QUEUE_CAPACITY);
+        reader.open(new ExecutionContext());
+        assertEquals("item0", reader.read());
+        reader.close();
+
+        assertTrue(delegate.closed);
+    }
+
+    private static class ListItemStreamReader extends ItemStreamSupport implements ItemStreamReader<Integer> {
+
+        private final List<Integer> items;
+
+        private Iterator<Integer> iterator;
+
+        private boolean closed;
+
+        ListItemStreamReader(List<Integer> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            iterator = items.iterator();
+            closed = false;
+        }
+
+        @Override
+        public Integer read() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.policies;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveChunkSizeCompletionPolicyTest {
+
+    private static final long TARGET_MILLIS = 1000;
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void initialSizeIsClampedToTheBounds() {
+        assertEquals(100, new AdaptiveChunkSizeCompletionPolicy(10, 100, 1000, TARGET_MILLIS).getChunkSize());
+        assertEquals(1000, new AdaptiveChunkSizeCompletionPolicy(5000, 100, 1000, TARGET_MILLIS).getChunkSize());
+    }
+
+    @Test
+    public void slowChunksShrinkTheSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(400, 10, 1000,
+                                                                                          TARGET_MILLIS);
+        policy.adjust(400, millis(1600));
+        assertEquals(250, policy.getChunkSize());
+
+        policy.adjust(250, millis(10000));
+        assertEquals(125, policy.getChunkSize());
+    }
+
+    @Test
+    public void fastChunksGrowTheSizeUpToTheMaximum() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(400, 10, 1000,
+                                                                                          TARGET_MILLIS);
+        policy.adjust(400, millis(100));
+        assertEquals(800, policy.getChunkSize());
+
+        policy.adjust(800, millis(100));
+        assertEquals(1000, policy.getChunkSize());
+    }
+
+    @Test
+    public void latenciesCloseToTheTargetDontChangeTheSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(400, 10, 1000,
+                                                                                          TARGET_MILLIS);
+        policy.adjust(400, millis(850));
+        policy.adjust(400, millis(1150));
+        assertEquals(400, policy.getChunkSize());
+    }
+
+    @Test
+    public void fastShortChunksDontChangeTheSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(400, 10, 1000,
+                                                                                          TARGET_MILLIS);
+        policy.adjust(50, millis(100));
+        assertEquals(400, policy.getChunkSize());
+    }
+
+    @Test
+    public void equalBoundsFixTheSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(400, 400, 400,
+                                                                                          TARGET_MILLIS);
+        policy.adjust(400, millis(10000));
+        policy.adjust(400, millis(1));
+        assertEquals(400, policy.getChunkSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minimumGreaterThanMaximumIsRejected() {
+        new AdaptiveChunkSizeCompletionPolicy(400, 1000, 10, TARGET_MILLIS);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.listeners;
+
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+import uk.ac.ebi.eva.accession.core.generators.ConcurrentMonotonicAccessionGenerator;
+
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ReleaseUnusedAccessionsListenerTest {
+
+    @Test
+    public void unusedAccessionsAreReleasedAfterTheStep() {
+        ConcurrentMonotonicAccessionGenerator<?> accessionGenerator = mock(ConcurrentMonotonicAccessionGenerator.class);
+        ReleaseUnusedAccessionsListener listener = new ReleaseUnusedAccessionsListener(accessionGenerator);
+        StepExecution stepExecution = new StepExecution("step", new JobExecution(0L));
+
+        listener.beforeStep(stepExecution);
+        verify(accessionGenerator, never()).releaseUnusedAccessions();
+
+        assertNull(listener.afterStep(stepExecution));
+        verify(accessionGenerator).releaseUnusedAccessions();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.listeners;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class StepMetricsListenerTest {
+
+    private MetricRegistry metricRegistry;
+
+    private StepMetricsListener listener;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        listener = new StepMetricsListener(metricRegistry);
+    }
+
+    @Test
+    public void readAndProcessTimesAreRecordedOncePerChunk() {
+        for (int chunk = 0; chunk < 2; chunk++) {
+            for (int item = 0; item < 3; item++) {
+                listener.beforeRead();
+                listener.afterRead(item);
+                listener.beforeProcess(item);
+                listener.afterProcess(item, item);
+            }
+            listener.beforeWrite(Arrays.asList(0, 1, 2));
+            listener.afterWrite(Arrays.asList(0, 1, 2));
+        }
+
+        assertEquals(2, metricRegistry.timer(StepMetricsListener.READ_TIMER).getCount());
+        assertEquals(2, metricRegistry.timer(StepMetricsListener.PROCESS_TIMER).getCount());
+        assertEquals(2, metricRegistry.timer(StepMetricsListener.WRITE_TIMER).getCount());
+        assertEquals(6, metricRegistry.counter(StepMetricsListener.READ_COUNTER).getCount());
+        assertEquals(6, metricRegistry.counter(StepMetricsListener.WRITE_COUNTER).getCount());
+    }
+
+    @Test
+    public void processTimeIsNotRecordedWithoutProcessor() {
+        listener.beforeRead();
+        listener.afterRead(0);
+        listener.beforeWrite(Collections.singletonList(0));
+        listener.afterWrite(Collections.singletonList(0));
+
+        assertEquals(1, metricRegistry.timer(StepMetricsListener.READ_TIMER).getCount());
+        assertEquals(0, metricRegistry.timer(StepMetricsListener.PROCESS_TIMER).getCount());
+    }
+
+    @Test
+    public void skipsAreCountedByPhase() {
+        RuntimeException exception = new RuntimeException();
+        listener.onSkipInRead(exception);
+        listener.onSkipInRead(exception);
+        listener.onSkipInProcess(0, exception);
+        listener.onSkipInWrite(0, exception);
+
+        assertEquals(2, metricRegistry.counter(StepMetricsListener.READ_SKIP_COUNTER).getCount());
+        assertEquals(1, metricRegistry.counter(StepMetricsListener.PROCESS_SKIP_COUNTER).getCount());
+        assertEquals(1, metricRegistry.counter(StepMetricsListener.WRITE_SKIP_COUNTER).getCount());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.partitioners;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ContigPartitionerTest {
+
+    private static final String OUTPUT_VCF = "/tmp/output.vcf";
+
+    private ContigPartitioner partitioner;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws Exception {
+        File vcf = new File(ContigPartitionerTest.class.getResource(
+                "/input-files/vcf/multiple_contigs.vcf.gz").toURI());
+        partitioner = new ContigPartitioner(vcf, OUTPUT_VCF);
+    }
+
+    @Test
+    public void singlePartition() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+        assertEquals(1, partitions.size());
+        assertPartition(partitions, 0, Arrays.asList("1", "2", "3", "4"));
+    }
+
+    @Test
+    public void contigsAreBalancedByNumberOfVariants() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(2);
+        assertEquals(2, partitions.size());
+        assertPartition(partitions, 0, Collections.singletonList("1"));
+        assertPartition(partitions, 1, Arrays.asList("2", "3", "4"));
+    }
+
+    @Test
+    public void partitionsKeepTheOrderOfTheVcf() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(3);
+        assertEquals(3, partitions.size());
+        assertPartition(partitions, 0, Collections.singletonList("1"));
+        assertPartition(partitions, 1, Arrays.asList("2", "3"));
+        assertPartition(partitions, 2, Collections.singletonList("4"));
+    }
+
+    @Test
+    public void noMorePartitionsThanContigs() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(10);
+        assertEquals(4, partitions.size());
+        assertPartition(partitions, 0, Collections.singletonList("1"));
+        assertPartition(partitions, 1, Collections.singletonList("2"));
+        assertPartition(partitions, 2, Collections.singletonList("3"));
+        assertPartition(partitions, 3, Collections.singletonList("4"));
+    }
+
+    @Test
+    public void gridSizeMustBePositive() {
+        thrown.expect(IllegalArgumentException.class);
+        partitioner.partition(0);
+    }
+
+    @Test
+    public void contigsAreBalancedBySizeInTheTabixIndex() throws Exception {
+        File vcf = writeIndexedVcf(new String[]{"1", "2", "3", "4"}, new int[]{10000, 100, 100, 100});
+        Map<String, ExecutionContext> partitions = new ContigPartitioner(vcf, OUTPUT_VCF).partition(2);
+
+        // with the same weight for every contig, the second partition would start at contig 3
+        assertEquals(2, partitions.size());
+        assertPartition(partitions, 0, Collections.singletonList("1"));
+        assertPartition(partitions, 1, Arrays.asList("2", "3", "4"));
+    }
+
+    @Test
+    public void interleavedContigsAreNotSplit() throws Exception {
+        File vcf = temporaryFolder.newFile("interleaved.vcf");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(vcf), StandardCharsets.UTF_8)) {
+            writer.write("##fileformat=VCFv4.2\n");
+            writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+            for (String contig : new String[]{"1", "2", "1", "3"}) {
+                writer.write(contig + "\t100\t.\tA\tT\t.\t.\t.\n");
+            }
+        }
+        Map<String, ExecutionContext> partitions = new ContigPartitioner(vcf, OUTPUT_VCF).partition(2);
+
+        assertEquals(1, partitions.size());
+        assertPartition(partitions, 0, Arrays.asList("1", "2", "3"));
+    }
+
+    private File writeIndexedVcf(String[] contigs, int[] variantsPerContig) throws IOException {
+        File vcf = temporaryFolder.newFile("indexed.vcf.gz");
+        try (Writer writer = new OutputStreamWriter(new BlockCompressedOutputStream(vcf), StandardCharsets.UTF_8)) {
+            writer.write("##fileformat=VCFv4.2\n");
+            writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+            for (int i = 0; i < contigs.length; i++) {
+                for (int position = 1; position <= variantsPerContig[i]; position++) {
+                    writer.write(contigs[i] + "\t" + position + "\trs" + position + "\tA\tT\t.\t.\t.\n");
+                }
+            }
+        }
+        IndexFactory.createTabixIndex(vcf, new VCFCodec(), TabixFormat.VCF, null)
+                    .write(ContigPartitioner.getTabixIndex(vcf));
+        return vcf;
+    }
+
+    private void assertPartition(Map<String, ExecutionContext> partitions, int index, List<String> expectedContigs) {
+        ExecutionContext context = partitions.get(ContigPartitioner.PARTITION_NAME_PREFIX + index);
+        assertEquals(expectedContigs, context.get(ContigPartitioner.CONTIGS_KEY));
+        assertEquals(ContigPartitioner.getPartitionOutputVcf(OUTPUT_VCF, index),
+                     context.getString(ContigPartitioner.OUTPUT_VCF_KEY));
+    }
+}
@@ -22,9 +22,11 @@ import org.junit.Test;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class VariantProcessorTest {
 
@@ -46,7 +48,7 @@ public class VariantProcessorTest {
 
     @Before
     public void setUp() {
-        processor = new VariantProcessor(ASSEMBLY, TAXONOMY, PROJECT);
+        processor = new VariantProcessor(ASSEMBLY, TAXONOMY, PROJECT, new StringInterner(10));
     }
 
     @Test
@@ -58,6 +60,15 @@ public class VariantProcessorTest {
         assertEquals(expected, processed);
     }
 
+    @Test
+    public void contigsAreInterned() throws Exception {
+        ISubmittedVariant first = processor.process(new Variant(new String(CONTIG), START, START, REFERENCE_ALLELE,
+                                                                ALTERNATE_ALLELE));
+        ISubmittedVariant second = processor.process(new Variant(new String(CONTIG), START + 1, START + 1,
+                                                                 REFERENCE_ALLELE, ALTERNATE_ALLELE));
+        assertSame(first.getContig(), second.getContig());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldThrowExceptionAssemblyNull() {
         SubmittedVariant submittedVariant = new SubmittedVariant(null, TAXONOMY, PROJECT, CONTIG, START,
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.bulkLoad;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.utils.StringInterner;
+import uk.ac.ebi.eva.accession.pipeline.io.AccessionReportWriter;
+import uk.ac.ebi.eva.accession.pipeline.io.FastaSequenceReader;
+import uk.ac.ebi.eva.accession.pipeline.steps.processors.VariantProcessor;
+import uk.ac.ebi.eva.accession.pipeline.test.MongoTestConfiguration;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.BULK_LOAD_SUBSNP_ACCESSION_STEP;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class, MongoTestConfiguration.class})
+@TestPropertySource("classpath:accession-pipeline-test.properties")
+public class BulkLoadSubsnpAccessionsTaskletTest {
+
+    private static final String CONTIG = "20";
+
+    private static final long JOB_ID = 0L;
+
+    private static final int BATCH_SIZE = 2;
+
+    private static final int MAX_VARIANTS_IN_MEMORY = 2;
+
+    private static final String COORDINATES_INDEX = "asm_contig_start";
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository repository;
+
+    @Autowired
+    private MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private FastaSequenceReader fastaSequenceReader;
+
+    @Before
+    public void setUp() throws Exception {
+        Path fastaPath = Paths.get(BulkLoadSubsnpAccessionsTaskletTest.class.getResource(
+                "/input-files/fasta/Homo_sapiens.GRCh37.75.chr20.head_1200.fa").toURI());
+        fastaSequenceReader = new FastaSequenceReader(fastaPath);
+    }
+
+    @Test
+    @DirtiesContext
+    public void repeatedVariantsGetOneAccession() throws Exception {
+        File report = temporaryFolderRule.newFile();
+        BulkLoadSubsnpAccessionsTasklet tasklet = getTasklet(report, new Variant(CONTIG, 100, 100, "A", "T"),
+                                                             new Variant(CONTIG, 200, 200, "A", "C"),
+                                                             new Variant(CONTIG, 100, 100, "A", "T"),
+                                                             new Variant(CONTIG, 150, 150, "G", "A"));
+
+        execute(tasklet);
+
+        assertEquals(3, tasklet.getInsertedVariants());
+        assertEquals(1, tasklet.getDuplicatedVariants());
+        assertEquals(3, repository.count());
+        List<String[]> reportLines = Files.lines(report.toPath())
+                                          .filter(line -> !line.startsWith("#"))
+                                          .map(line -> line.split("\t"))
+                                          .collect(Collectors.toList());
+        assertEquals(Arrays.asList("100", "150", "200"),
+                     reportLines.stream().map(line -> line[1]).collect(Collectors.toList()));
+        assertEquals(3, reportLines.stream().map(line -> line[2]).distinct().count());
+    }
+
+    @Test
+    @DirtiesContext
+    public void variantsAlreadyInDatabaseFailBeforeInsertingAnything() throws Exception {
+        execute(getTasklet(temporaryFolderRule.newFile(), new Variant(CONTIG, 100, 100, "A", "T")));
+
+        BulkLoadSubsnpAccessionsTasklet tasklet = getTasklet(temporaryFolderRule.newFile(),
+                                                             new Variant(CONTIG, 100, 100, "A", "T"),
+                                                             new Variant(CONTIG, 200, 200, "A", "C"));
+        try {
+            execute(tasklet);
+            fail("A project already in the database should not be bulk loaded");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, repository.count());
+            assertEquals(0, tasklet.getInsertedVariants());
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void indexesAreRebuiltAfterLoadingIntoAnEmptyCollection() throws Exception {
+        execute(getTasklet(temporaryFolderRule.newFile(), new Variant(CONTIG, 100, 100, "A", "T"),
+                           new Variant(CONTIG, 200, 200, "A", "C"), new Variant(CONTIG, 150, 150, "G", "A")));
+
+        Set<String> indexNames = mongoTemplate.indexOps(SubmittedVariantEntity.class).getIndexInfo().stream()
+                                              .map(IndexInfo::getName).collect(Collectors.toSet());
+        assertTrue(indexNames.contains(COORDINATES_INDEX));
+        assertEquals(3, repository.count());
+    }
+
+    private BulkLoadSubsnpAccessionsTasklet getTasklet(File report, Variant... variants) throws Exception {
+        return new BulkLoadSubsnpAccessionsTasklet(new ListVariantReader(Arrays.asList(variants)),
+                                                   new VariantProcessor("assembly", 1111, "project",
+                                                                        new StringInterner(10)), repository,
+                                                   accessionGenerator,
+                                                   new AccessionReportWriter(report, fastaSequenceReader),
+                                                   BATCH_SIZE, MAX_VARIANTS_IN_MEMORY,
+                                                   temporaryFolderRule.getRoot());
+    }
+
+    private void execute(BulkLoadSubsnpAccessionsTasklet tasklet) throws Exception {
+        StepContribution stepContribution = new StepContribution(
+                new StepExecution(BULK_LOAD_SUBSNP_ACCESSION_STEP, new JobExecution(JOB_ID)));
+        tasklet.execute(stepContribution, null);
+    }
+
+    private static class ListVariantReader implements ItemStreamReader<Variant> {
+
+        private final List<Variant> variants;
+
+        private Iterator<Variant> iterator;
+
+        ListVariantReader(List<Variant> variants) {
+            this.variants = variants;
+        }
+
+        @Override
+        public Variant read() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            iterator = variants.iterator();
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
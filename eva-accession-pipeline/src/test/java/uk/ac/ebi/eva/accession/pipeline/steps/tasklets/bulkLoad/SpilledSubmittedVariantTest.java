@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.bulkLoad;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantSummaryHashingFunction;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter;
+import uk.ac.ebi.eva.accession.pipeline.io.ExternalSorter.SortedIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpilledSubmittedVariantTest {
+
+    private static final String ASSEMBLY = "GCA_000001405.1";
+
+    private static final int TAXONOMY = 9606;
+
+    private static final String PROJECT = "PRJEB00001";
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    private SubmittedVariantSummaryHashingFunction hashingFunction = new SubmittedVariantSummaryHashingFunction();
+
+    private SpilledSubmittedVariant spilledVariant(String contig, long start, String reference, String alternate) {
+        SubmittedVariant variant = new SubmittedVariant(ASSEMBLY, TAXONOMY, PROJECT, contig, start, reference,
+                                                        alternate, false);
+        return new SpilledSubmittedVariant(hashingFunction.apply(variant), variant);
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        SpilledSubmittedVariant variant = spilledVariant("22", 1000, "A", "");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SpilledSubmittedVariant.CODEC.write(variant, new DataOutputStream(bytes));
+
+        SpilledSubmittedVariant read = SpilledSubmittedVariant.CODEC.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(variant, read);
+        assertEquals(variant.getHash(), read.getHash());
+        assertEquals(variant.getVariant(), read.getVariant());
+        assertFalse(read.getVariant().isSupportedByEvidence());
+    }
+
+    @Test
+    public void writeAndReadAlleleLongerThan64KB() throws Exception {
+        String longAllele = new String(new char[70000]).replace('\0', 'A');
+        SpilledSubmittedVariant variant = spilledVariant("22", 1000, longAllele, "T");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SpilledSubmittedVariant.CODEC.write(variant, new DataOutputStream(bytes));
+
+        SpilledSubmittedVariant read = SpilledSubmittedVariant.CODEC.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(variant.getVariant(), read.getVariant());
+        assertEquals(longAllele, read.getVariant().getReferenceAllele());
+    }
+
+    @Test
+    public void orderedByCoordinates() {
+        assertTrue(spilledVariant("1", 200, "A", "C").compareTo(spilledVariant("2", 100, "A", "C")) < 0);
+        assertTrue(spilledVariant("1", 100, "T", "C").compareTo(spilledVariant("1", 200, "A", "C")) < 0);
+        assertTrue(spilledVariant("1", 100, "A", "T").compareTo(spilledVariant("1", 100, "C", "A")) < 0);
+        assertTrue(spilledVariant("1", 100, "A", "C").compareTo(spilledVariant("1", 100, "A", "T")) < 0);
+        assertEquals(0, spilledVariant("1", 100, "A", "C").compareTo(spilledVariant("1", 100, "A", "C")));
+    }
+
+    @Test
+    public void repeatedVariantsAreSortedTogetherThroughSpillFiles() throws Exception {
+        List<SpilledSubmittedVariant> expected = new ArrayList<>();
+        Random random = new Random(0);
+        try (ExternalSorter<SpilledSubmittedVariant> sorter = new ExternalSorter<>(
+                temporaryFolderRule.getRoot(), 10, "bulk-load-test-", SpilledSubmittedVariant.CODEC)) {
+            for (int i = 0; i < 500; i++) {
+                SpilledSubmittedVariant variant = spilledVariant(Integer.toString(1 + random.nextInt(3)),
+                                                                 1 + random.nextInt(50), "A",
+                                                                 random.nextBoolean() ? "C" : "T");
+                sorter.add(variant);
+                expected.add(variant);
+            }
+            Collections.sort(expected);
+
+            List<SpilledSubmittedVariant> sorted = new ArrayList<>();
+            try (SortedIterator<SpilledSubmittedVariant> iterator = sorter.sort()) {
+                SpilledSubmittedVariant variant;
+                while ((variant = iterator.next()) != null) {
+                    sorted.add(variant);
+                }
+            }
+            assertEquals(expected, sorted);
+        }
+        assertEquals(0, temporaryFolderRule.getRoot().listFiles().length);
+    }
+}
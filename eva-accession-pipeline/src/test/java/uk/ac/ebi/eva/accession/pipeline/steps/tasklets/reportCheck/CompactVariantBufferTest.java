@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompactVariantBufferTest {
+
+    private CompactVariantKeyEncoder encoder;
+
+    @Before
+    public void setUp() {
+        encoder = new CompactVariantKeyEncoder();
+    }
+
+    @Test
+    public void packSnvsAndShortIndels() {
+        assertPacked(new Variant("1", 100, 100, "A", "T"));
+        assertPacked(new Variant("1", 100, 100, "", "T"));
+        assertPacked(new Variant("1", 100, 102, "ACG", ""));
+        assertPacked(new Variant("chr22", 4294967295L, 4294967295L, "G", "C"));
+    }
+
+    @Test
+    public void doNotPackLongOrUnusualAlleles() {
+        assertNotPacked(new Variant("1", 100, 103, "ACGT", "A"));
+        assertNotPacked(new Variant("1", 100, 100, "N", "A"));
+        assertNotPacked(new Variant("1", 100, 100, "a", "C"));
+        assertNotPacked(new Variant("1", 4294967296L, 4294967296L, "A", "C"));
+        assertNotPacked(new Variant("1", 100, 101, "A", "C"));
+    }
+
+    @Test
+    public void packedKeysDistinguishAlleles() {
+        assertNotEquals(encoder.encodePacked(new Variant("1", 100, 100, "A", "")),
+                        encoder.encodePacked(new Variant("1", 100, 100, "", "A")));
+        assertNotEquals(encoder.encodePacked(new Variant("1", 100, 101, "AA", "")),
+                        encoder.encodePacked(new Variant("1", 100, 100, "A", "")));
+        assertNotEquals(encoder.encodePacked(new Variant("1", 100, 100, "A", "C")),
+                        encoder.encodePacked(new Variant("2", 100, 100, "A", "C")));
+    }
+
+    @Test
+    public void addDuplicates() {
+        CompactVariantBuffer buffer = new CompactVariantBuffer(encoder);
+        assertTrue(buffer.add(new Variant("1", 100, 100, "A", "T")));
+        assertFalse(buffer.add(new Variant("1", 100, 100, "A", "T")));
+        assertTrue(buffer.add(new Variant("1", 100, 103, "ACGT", "A")));
+        assertFalse(buffer.add(new Variant("1", 100, 103, "ACGT", "A")));
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    public void removeMatchingVariants() {
+        CompactVariantBuffer input = new CompactVariantBuffer(encoder);
+        input.add(new Variant("1", 100, 100, "A", "T"));
+        input.add(new Variant("1", 100, 103, "ACGT", "A"));
+        input.add(new Variant("2", 200, 200, "C", "G"));
+        CompactVariantBuffer report = new CompactVariantBuffer(encoder);
+        report.add(new Variant("2", 200, 200, "C", "G"));
+        report.add(new Variant("1", 100, 103, "ACGT", "A"));
+        report.add(new Variant("3", 300, 300, "N", "A"));
+
+        assertEquals(2, input.removeMatching(report));
+
+        assertEquals(1, input.size());
+        assertEquals(1, report.size());
+        assertEquals("[1:100:A:T]", input.toString());
+        assertEquals("[3:300:N:A]", report.toString());
+    }
+
+    private void assertPacked(Variant variant) {
+        long key = encoder.encodePacked(variant);
+        assertTrue(key >= 0);
+        assertEquals(variant.getChromosome() + ":" + variant.getStart() + ":" + variant.getReference() + ":"
+                             + variant.getAlternate(), encoder.decodePacked(key));
+    }
+
+    private void assertNotPacked(Variant variant) {
+        assertEquals(CompactVariantKeyEncoder.NOT_PACKED, encoder.encodePacked(variant));
+        assertEquals(variant.getChromosome() + ":" + variant.getStart() + ":" + variant.getReference() + ":"
+                             + variant.getAlternate(), encoder.decodeUnpacked(encoder.encodeUnpacked(variant)));
+    }
+}
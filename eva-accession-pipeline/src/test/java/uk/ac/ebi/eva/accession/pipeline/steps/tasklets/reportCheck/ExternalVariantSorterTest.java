@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck.ExternalVariantSorter.SortedVariantIterator;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExternalVariantSorterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    @Test
+    public void sortInMemory() throws Exception {
+        assertSorted(1000, 100000);
+    }
+
+    @Test
+    public void sortWithSpillFiles() throws Exception {
+        assertSorted(1000, 10);
+    }
+
+    @Test
+    public void sortWithSeveralMergePasses() throws Exception {
+        assertSorted(1000, 2);
+    }
+
+    @Test
+    public void allelesLongerThan64KBAreSpilled() throws Exception {
+        String longAllele = new String(new char[70000]).replace('\0', 'A');
+        List<VariantKey> expected = Arrays.asList(new VariantKey("1", 100, 100, "A", "T"),
+                                                  new VariantKey("1", 200, 200 + longAllele.length() - 1, longAllele,
+                                                                 "C"),
+                                                  new VariantKey("2", 100, 100, "C", "G"));
+        try (ExternalVariantSorter sorter = new ExternalVariantSorter(temporaryFolderRule.getRoot(), 1)) {
+            sorter.add(new Variant("2", 100, 100, "C", "G"));
+            sorter.add(new Variant("1", 200, 200 + longAllele.length() - 1, longAllele, "C"));
+            sorter.add(new Variant("1", 100, 100, "A", "T"));
+
+            List<VariantKey> sorted = new ArrayList<>();
+            try (SortedVariantIterator iterator = sorter.sort()) {
+                VariantKey variant;
+                while ((variant = iterator.next()) != null) {
+                    sorted.add(variant);
+                }
+            }
+            assertEquals(expected, sorted);
+        }
+    }
+
+    private void assertSorted(int numVariants, int maxVariantsInMemory) throws Exception {
+        List<VariantKey> expected = new ArrayList<>();
+        Random random = new Random(numVariants);
+        try (ExternalVariantSorter sorter = new ExternalVariantSorter(temporaryFolderRule.getRoot(),
+                                                                      maxVariantsInMemory)) {
+            for (int i = 0; i < numVariants; i++) {
+                String contig = Integer.toString(1 + random.nextInt(3));
+                long start = random.nextInt(100);
+                Variant variant = new Variant(contig, start, start, "A", random.nextBoolean() ? "C" : "T");
+                sorter.add(variant);
+                expected.add(new VariantKey(variant));
+            }
+            Collections.sort(expected);
+
+            List<VariantKey> sorted = new ArrayList<>();
+            try (SortedVariantIterator iterator = sorter.sort()) {
+                VariantKey variant;
+                while ((variant = iterator.next()) != null) {
+                    sorted.add(variant);
+                }
+            }
+            assertEquals(expected, sorted);
+            assertEquals(Math.min(numVariants, maxVariantsInMemory), sorter.getMaxBufferSize());
+        }
+        assertEquals(0, temporaryFolderRule.getRoot().listFiles().length);
+    }
+}
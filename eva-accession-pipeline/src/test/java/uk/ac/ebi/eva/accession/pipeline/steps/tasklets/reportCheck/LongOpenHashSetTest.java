@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongOpenHashSetTest {
+
+    @Test
+    public void addAndRemove() {
+        LongOpenHashSet set = new LongOpenHashSet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertEquals(3, set.size());
+
+        assertTrue(set.contains(0));
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertFalse(set.remove(0));
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(-1));
+    }
+
+    @Test
+    public void behaveLikeHashSet() {
+        Random random = new Random(42);
+        LongOpenHashSet set = new LongOpenHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            // a small range of values makes collisions and removals of present values frequent
+            long value = random.nextInt(5000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long value = -100; value < 4900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        long[] expectedValues = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+        assertTrue(Arrays.equals(expectedValues, values));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportCheck;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+
+import uk.ac.ebi.eva.commons.batch.io.AggregatedVcfReader;
+import uk.ac.ebi.eva.commons.batch.io.UnwindingItemStreamReader;
+import uk.ac.ebi.eva.commons.batch.io.VcfReader;
+import uk.ac.ebi.eva.commons.core.models.Aggregation;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CHECK_SUBSNP_ACCESSION_STEP;
+
+public class SortMergeReportCheckTaskletTest {
+
+    private static final long JOB_ID = 0L;
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    @Test
+    public void correctReport() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.vcf.gz",
+                                                         "/input-files/vcf/aggregated.report.vcf.gz", 1000);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.COMPLETED, stepContribution.getExitStatus());
+        assertEquals(0, tasklet.getUnmatchedVariantsInInputVcf());
+        assertEquals(0, tasklet.getUnmatchedVariantsInReportVcf());
+        assertEquals(2, tasklet.getIterations());
+    }
+
+    @Test
+    public void unorderedReportWithSmallMemoryLimit() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.vcf.gz",
+                                                         "/input-files/vcf/aggregated.report.vcf.gz", 7);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.COMPLETED, stepContribution.getExitStatus());
+        assertEquals(0, tasklet.getUnmatchedVariantsInInputVcf());
+        assertEquals(0, tasklet.getUnmatchedVariantsInReportVcf());
+        assertEquals(7, tasklet.getMaxBufferSize());
+        assertEquals(0, temporaryFolderRule.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void variantMissingInReport() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.vcf.gz",
+                                                         "/input-files/vcf/aggregated.incomplete-report.vcf.gz", 10);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.FAILED, stepContribution.getExitStatus());
+        assertEquals(1, tasklet.getUnmatchedVariantsInInputVcf());
+        assertEquals(0, tasklet.getUnmatchedVariantsInReportVcf());
+    }
+
+    @Test
+    public void reportContainsAccessionNotPresentInOriginalVcf() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.vcf.gz",
+                                                         "/input-files/vcf/aggregated.unexpected-report.vcf.gz", 10);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.FAILED, stepContribution.getExitStatus());
+        assertEquals(0, tasklet.getUnmatchedVariantsInInputVcf());
+        assertEquals(1, tasklet.getUnmatchedVariantsInReportVcf());
+    }
+
+    @Test
+    public void originalVcfContainsNonVariants() throws Exception {
+        File vcfFile = getFile("/input-files/vcf/genotyped.vcf.gz");
+        VcfReader vcfReader = new VcfReader("fileId", "studyId", vcfFile);
+        File reportFile = getFile("/input-files/vcf/genotyped.report.vcf.gz");
+        VcfReader reportReader = new VcfReader(new CoordinatesVcfLineMapper(), reportFile);
+        SortMergeReportCheckTasklet tasklet = new SortMergeReportCheckTasklet(
+                new UnwindingItemStreamReader<>(vcfReader), new UnwindingItemStreamReader<>(reportReader), 100,
+                temporaryFolderRule.getRoot());
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.COMPLETED, stepContribution.getExitStatus());
+        assertEquals(1, tasklet.getSkippedVariantsInInputVcf());
+        assertEquals(0, tasklet.getSkippedVariantsInReportVcf());
+    }
+
+    @Test
+    public void vcfsContainDuplicates() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.with_duplicates.vcf.gz",
+                                                         "/input-files/vcf/aggregated.with_duplicates.report.vcf.gz",
+                                                         10);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.FAILED, stepContribution.getExitStatus());
+        assertEquals(1, tasklet.getDuplicatedVariantsInInputVcf());
+        assertEquals(1, tasklet.getDuplicatedVariantsInReportVcf());
+    }
+
+    @Test
+    public void vcfsContainAmbiguousVariantThatCanNotBeMatched() throws Exception {
+        SortMergeReportCheckTasklet tasklet = getTasklet("/input-files/vcf/aggregated.with_ambiguous.vcf.gz",
+                                                         "/input-files/vcf/aggregated.with_ambiguous.report.vcf.gz",
+                                                         10);
+
+        StepContribution stepContribution = execute(tasklet);
+
+        assertEquals(ExitStatus.FAILED, stepContribution.getExitStatus());
+        assertEquals(1, tasklet.getUnmatchedVariantsInInputVcf());
+        assertEquals(1, tasklet.getUnmatchedVariantsInReportVcf());
+    }
+
+    private SortMergeReportCheckTasklet getTasklet(String vcf, String report, int maxVariantsInMemory)
+            throws Exception {
+        AggregatedVcfReader vcfReader = new AggregatedVcfReader("fileId", "studyId", Aggregation.BASIC, null,
+                                                                getFile(vcf));
+        UnwindingItemStreamReader<Variant> unwindingVcfReader = new UnwindingItemStreamReader<>(vcfReader);
+
+        VcfReader reportReader = new VcfReader(new CoordinatesVcfLineMapper(), getFile(report));
+        UnwindingItemStreamReader<Variant> unwindingReportReader = new UnwindingItemStreamReader<>(reportReader);
+
+        return new SortMergeReportCheckTasklet(unwindingVcfReader, unwindingReportReader, maxVariantsInMemory,
+                                               temporaryFolderRule.getRoot());
+    }
+
+    private File getFile(String resource) throws Exception {
+        URI uri = SortMergeReportCheckTaskletTest.class.getResource(resource).toURI();
+        return new File(uri);
+    }
+
+    private StepContribution execute(SortMergeReportCheckTasklet tasklet) throws Exception {
+        StepContribution stepContribution = new StepContribution(
+                new StepExecution(CHECK_SUBSNP_ACCESSION_STEP, new JobExecution(JOB_ID)));
+        tasklet.execute(stepContribution, null);
+        return stepContribution;
+    }
+}
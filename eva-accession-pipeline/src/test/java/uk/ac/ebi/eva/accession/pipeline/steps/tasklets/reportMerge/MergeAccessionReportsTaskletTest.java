@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets.reportMerge;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import uk.ac.ebi.eva.accession.pipeline.steps.partitioners.ContigPartitioner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MergeAccessionReportsTaskletTest {
+
+    private static final String HEADER_LINE_1 = "##fileformat=VCFv4.2";
+
+    private static final String HEADER_LINE_2 = "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO";
+
+    private static final String VARIANT_1 = "1\t100\tss1\tA\tT\t.\t.\t.";
+
+    private static final String VARIANT_2 = "1\t200\tss2\tC\tG\t.\t.\t.";
+
+    private static final String VARIANT_3 = "2\t100\tss3\tG\tT\t.\t.\t.";
+
+    @Rule
+    public TemporaryFolder temporaryFolderRule = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private String outputVcf;
+
+    @Before
+    public void setUp() throws Exception {
+        outputVcf = new File(temporaryFolderRule.getRoot(), "output.vcf").getPath();
+    }
+
+    @Test
+    public void mergeReportsWritingHeaderOnce() throws Exception {
+        File partition0 = writePartition(0, HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2);
+        File partition1 = writePartition(1, HEADER_LINE_1, HEADER_LINE_2, VARIANT_3);
+
+        execute(new MergeAccessionReportsTasklet(outputVcf, 4), newChunkContext());
+
+        assertEquals(Arrays.asList(HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2, VARIANT_3),
+                     Files.readAllLines(new File(outputVcf).toPath()));
+        assertFalse(partition0.exists());
+        assertFalse(partition1.exists());
+    }
+
+    @Test
+    public void previousMergedReportIsOverwritten() throws Exception {
+        Files.write(new File(outputVcf).toPath(), Arrays.asList(HEADER_LINE_1, HEADER_LINE_2, VARIANT_1));
+        writePartition(0, HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2);
+
+        execute(new MergeAccessionReportsTasklet(outputVcf, 1), newChunkContext());
+
+        assertEquals(Arrays.asList(HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2),
+                     Files.readAllLines(new File(outputVcf).toPath()));
+    }
+
+    @Test
+    public void failIfThereAreNoPartitionReports() throws Exception {
+        thrown.expect(IllegalStateException.class);
+        execute(new MergeAccessionReportsTasklet(outputVcf, 2), newChunkContext());
+    }
+
+    @Test
+    public void partitionReportsAreKeptUntilTheMergeIsCommitted() throws Exception {
+        File partition0 = writePartition(0, HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2);
+        File partition1 = writePartition(1, HEADER_LINE_1, HEADER_LINE_2, VARIANT_3);
+        MergeAccessionReportsTasklet tasklet = new MergeAccessionReportsTasklet(outputVcf, 2);
+        ChunkContext chunkContext = newChunkContext();
+
+        assertEquals(RepeatStatus.CONTINUABLE, tasklet.execute(null, chunkContext));
+        assertTrue(partition0.exists());
+        assertTrue(partition1.exists());
+    }
+
+    @Test
+    public void restartAfterRemovingSomePartitionReportsKeepsTheMergedReport() throws Exception {
+        File partition0 = writePartition(0, HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2);
+        File partition1 = writePartition(1, HEADER_LINE_1, HEADER_LINE_2, VARIANT_3);
+        ChunkContext chunkContext = newChunkContext();
+        new MergeAccessionReportsTasklet(outputVcf, 2).execute(null, chunkContext);
+        Files.delete(partition0.toPath());
+
+        ChunkContext restartedChunkContext = newChunkContext();
+        restartedChunkContext.getStepContext().getStepExecution().getExecutionContext().put(
+                MergeAccessionReportsTasklet.MERGED_REPORTS_KEY,
+                chunkContext.getStepContext().getStepExecution().getExecutionContext().get(
+                        MergeAccessionReportsTasklet.MERGED_REPORTS_KEY));
+        execute(new MergeAccessionReportsTasklet(outputVcf, 2), restartedChunkContext);
+
+        assertEquals(Arrays.asList(HEADER_LINE_1, HEADER_LINE_2, VARIANT_1, VARIANT_2, VARIANT_3),
+                     Files.readAllLines(new File(outputVcf).toPath()));
+        assertFalse(partition1.exists());
+    }
+
+    private ChunkContext newChunkContext() {
+        return new ChunkContext(new StepContext(new StepExecution("merge", new JobExecution(0L))));
+    }
+
+    private void execute(MergeAccessionReportsTasklet tasklet, ChunkContext chunkContext) throws Exception {
+        while (tasklet.execute(null, chunkContext) == RepeatStatus.CONTINUABLE) {
+        }
+    }
+
+    private File writePartition(int index, String... lines) throws IOException {
+        File partition = new File(ContigPartitioner.getPartitionOutputVcf(outputVcf, index));
+        List<String> content = Arrays.asList(lines);
+        Files.write(partition.toPath(), content);
+        return partition;
+    }
+}
@@ -15,14 +15,17 @@ import uk.ac.ebi.eva.accession.pipeline.configuration.InvalidVariantSkipPolicyCo
 import uk.ac.ebi.eva.accession.pipeline.configuration.VariantProcessorConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.VcfReaderConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.CreateSubsnpAccessionsJobConfiguration;
+import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps.BulkLoadSubsnpAccessionsStepConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps.CheckSubsnpAccessionsStepConfiguration;
 import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps.CreateSubsnpAccessionsStepConfiguration;
+import uk.ac.ebi.eva.accession.pipeline.configuration.jobs.steps.PartitionedCreateSubsnpAccessionsStepConfiguration;
 
 import javax.sql.DataSource;
 
 @EnableAutoConfiguration
 @Import({CreateSubsnpAccessionsJobConfiguration.class,
-        CreateSubsnpAccessionsStepConfiguration.class, CheckSubsnpAccessionsStepConfiguration.class,
+        CreateSubsnpAccessionsStepConfiguration.class, PartitionedCreateSubsnpAccessionsStepConfiguration.class,
+        CheckSubsnpAccessionsStepConfiguration.class, BulkLoadSubsnpAccessionsStepConfiguration.class,
         VcfReaderConfiguration.class, VariantProcessorConfiguration.class, AccessionWriterConfiguration.class,
         ChunkSizeCompletionPolicyConfiguration.class, InvalidVariantSkipPolicyConfiguration.class})
 public class BatchTestConfiguration {
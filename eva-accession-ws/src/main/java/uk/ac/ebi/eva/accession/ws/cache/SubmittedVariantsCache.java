@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the submitted variants returned by the web service, keyed by accession. Every entry holds all
+ * the variants with that accession, as several submitted variants can share one (e.g. the alleles of a multiallelic
+ * dbSNP ss).
+ * <p>
+ * The traffic is very skewed towards a few popular accessions, so a bounded cache avoids most of the database
+ * lookups. The entries are evicted when the cache is full, and expire after a fixed time. There is no other
+ * invalidation: the variants are changed by other processes (the accessioning pipeline and the dbSNP import), so a
+ * merge, deprecation or update becomes visible in the responses at most that time after it happened.
+ * <p>
+ * The statistics are exposed in the actuator metrics with the same names that Spring Boot uses for its caches, plus
+ * the number of hits, misses and evictions.
+ */
+public class SubmittedVariantsCache implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "cache.submittedVariants.";
+
+    private final Cache<Long, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>> cache;
+
+    public SubmittedVariantsCache(long maximumSize, long expireAfterWriteSeconds) {
+        this(maximumSize, expireAfterWriteSeconds, Ticker.systemTicker());
+    }
+
+    SubmittedVariantsCache(long maximumSize, long expireAfterWriteSeconds, Ticker ticker) {
+        cache = Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                        .ticker(ticker)
+                        .recordStats()
+                        .build();
+    }
+
+    /**
+     * @param loader used to retrieve, in a single call, all the accessions that are not in the cache
+     * @return the variants found, in the same order as the requested accessions. An accession requested several times
+     * is returned as many times, as the loader would do.
+     */
+    public List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> get(
+            List<Long> accessions,
+            Function<List<Long>, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>>
+                    loader) {
+        Collection<Long> distinctAccessions = new LinkedHashSet<>(accessions);
+        Map<Long, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>> variants =
+                new HashMap<>(cache.getAllPresent(distinctAccessions));
+        if (variants.size() < distinctAccessions.size()) {
+            List<Long> missingAccessions = new ArrayList<>();
+            for (Long accession : distinctAccessions) {
+                if (!variants.containsKey(accession)) {
+                    missingAccessions.add(accession);
+                }
+            }
+            Map<Long, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>>
+                    loadedVariants = load(missingAccessions, loader);
+            cache.putAll(loadedVariants);
+            variants.putAll(loadedVariants);
+        }
+
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> orderedVariants =
+                new ArrayList<>(accessions.size());
+        for (Long accession : accessions) {
+            List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> accessionVariants =
+                    variants.get(accession);
+            if (accessionVariants != null) {
+                orderedVariants.addAll(accessionVariants);
+            }
+        }
+        return orderedVariants;
+    }
+
+    private Map<Long, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>> load(
+            List<Long> missingAccessions,
+            Function<List<Long>, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>>
+                    loader) {
+        Map<Long, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>> loadedVariants =
+                new HashMap<>();
+        for (AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long> variant :
+                loader.apply(missingAccessions)) {
+            loadedVariants.computeIfAbsent(variant.getAccession(), accession -> new ArrayList<>()).add(variant);
+        }
+        return loadedVariants;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = cache.stats();
+        return Arrays.asList(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()),
+                             new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()),
+                             new Metric<>(METRIC_PREFIX + "miss.ratio", stats.missRate()),
+                             new Metric<>(METRIC_PREFIX + "hits", stats.hitCount()),
+                             new Metric<>(METRIC_PREFIX + "misses", stats.missCount()),
+                             new Metric<>(METRIC_PREFIX + "evictions", stats.evictionCount()));
+    }
+}
@@ -20,20 +20,48 @@ package uk.ac.ebi.eva.accession.ws.configuration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import uk.ac.ebi.ampt2d.commons.accession.rest.BasicRestController;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.ws.cache.SubmittedVariantsCache;
 import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantsNdjsonWriter;
 
 @Configuration
 @Import({SubmittedVariantAccessioningConfiguration.class})
 public class ApplicationConfiguration {
 
+    public static final String REST_CONTROLLER_EXECUTOR = "restControllerExecutor";
+
+    public static final String BATCH_LOOKUP_EXECUTOR = "batchLookupExecutor";
+
+    /**
+     * Size of the thread pool of Tomcat when server.tomcat.max-threads is not set
+     */
+    private static final int DEFAULT_CONTAINER_THREADS = 200;
+
+    @Value("${accessioning.ws.executor.threads:0}")
+    private int executorThreads;
+
+    @Value("${server.tomcat.max-threads:0}")
+    private int containerThreads;
+
+    @Value("${accessioning.ws.executor.queueCapacity:1000}")
+    private int executorQueueCapacity;
+
+    @Value("${accessioning.ws.batchLookup.threads:8}")
+    private int batchLookupThreads;
+
+    @Value("${accessioning.ws.batchLookup.queueCapacity:100}")
+    private int batchLookupQueueCapacity;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -47,4 +75,63 @@ public class ApplicationConfiguration {
             SubmittedVariantAccessioningService service) {
         return new BasicRestController<>(service, SubmittedVariantDTO::new);
     }
+
+    /**
+     * Threads that query the database on behalf of the REST controllers, so that the servlet threads are released
+     * while the lookups are in progress.
+     * <p>
+     * The lookups are still blocking, so this doesn't serve more of them concurrently: every lookup holds one of these
+     * threads instead of a servlet thread, and a pool smaller than the container serves fewer lookups at a time. What
+     * it adds is the bounded queue, so that a burst of requests is rejected quickly with a 503 instead of piling up
+     * until the clients time out. If the number of threads is not set, it's the same as in the container.
+     */
+    @Bean(name = REST_CONTROLLER_EXECUTOR)
+    public ThreadPoolTaskExecutor restControllerExecutor() {
+        int threads = getExecutorThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(executorQueueCapacity);
+        executor.setThreadNamePrefix("rest-lookup-");
+        return executor;
+    }
+
+    private int getExecutorThreads() {
+        if (executorThreads > 0) {
+            return executorThreads;
+        }
+        return containerThreads > 0 ? containerThreads : DEFAULT_CONTAINER_THREADS;
+    }
+
+    /**
+     * Threads that write the streamed responses of the batch lookups. They are separate from the
+     * {@link #restControllerExecutor()}, so that a few long batch lookups can't leave the short lookups waiting.
+     */
+    @Bean(name = BATCH_LOOKUP_EXECUTOR)
+    public ThreadPoolTaskExecutor batchLookupExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchLookupThreads);
+        executor.setMaxPoolSize(batchLookupThreads);
+        executor.setQueueCapacity(batchLookupQueueCapacity);
+        executor.setThreadNamePrefix("rest-batch-lookup-");
+        return executor;
+    }
+
+    /**
+     * The batch lookups don't go through the {@link SubmittedVariantsCache}: they would evict the popular accessions
+     * with variants that are unlikely to be requested again.
+     */
+    @Bean
+    public SubmittedVariantsNdjsonWriter submittedVariantsNdjsonWriter(
+            BasicRestController<SubmittedVariantDTO, ISubmittedVariant, String, Long> basicRestController,
+            @Value("${accessioning.ws.batchLookup.pageSize:1000}") int pageSize) {
+        return new SubmittedVariantsNdjsonWriter(basicRestController::get, objectMapper(), pageSize);
+    }
+
+    @Bean
+    public SubmittedVariantsCache submittedVariantsCache(
+            @Value("${accessioning.ws.cache.maximumSize:100000}") long maximumSize,
+            @Value("${accessioning.ws.cache.expireAfterWriteSeconds:600}") long expireAfterWriteSeconds) {
+        return new SubmittedVariantsCache(maximumSize, expireAfterWriteSeconds);
+    }
 }
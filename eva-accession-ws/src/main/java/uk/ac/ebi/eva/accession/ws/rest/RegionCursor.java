@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+/**
+ * Position of the last variant returned in a page of a region query: its start and hash, which are unique and sorted
+ * in the same way as the compound index, so the next page can continue from there without skipping documents.
+ */
+class RegionCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final long start;
+
+    private final String hash;
+
+    RegionCursor(long start, String hash) {
+        this.start = start;
+        this.hash = hash;
+    }
+
+    static RegionCursor parse(String cursor) {
+        int separatorIndex = cursor.indexOf(SEPARATOR);
+        if (separatorIndex <= 0 || separatorIndex == cursor.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return new RegionCursor(Long.parseLong(cursor.substring(0, separatorIndex)),
+                                    cursor.substring(separatorIndex + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return start + String.valueOf(SEPARATOR) + hash;
+    }
+}
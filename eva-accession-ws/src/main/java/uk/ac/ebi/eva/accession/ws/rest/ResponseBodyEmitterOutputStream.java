@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Sends to a {@link ResponseBodyEmitter} everything written since the previous flush, so that each flush is written to
+ * the response as soon as possible.
+ */
+class ResponseBodyEmitterOutputStream extends ByteArrayOutputStream {
+
+    private final ResponseBodyEmitter emitter;
+
+    private final MediaType mediaType;
+
+    ResponseBodyEmitterOutputStream(ResponseBodyEmitter emitter, MediaType mediaType) {
+        this.emitter = emitter;
+        this.mediaType = mediaType;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (size() > 0) {
+            emitter.send(toByteArray(), mediaType);
+            reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
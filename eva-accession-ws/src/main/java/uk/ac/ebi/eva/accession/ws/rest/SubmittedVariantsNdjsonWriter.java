@@ -0,0 +1,136 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Looks up an arbitrary number of accessions and writes the variants found as newline-delimited JSON, one
+ * {@link AccessionResponseDTO} per line.
+ * <p>
+ * The accessions are read and validated before looking up any of them, so that a malformed request is rejected before
+ * the response starts. They are kept as an array of primitives, and looked up in pages of a fixed size, each of them
+ * written and flushed before looking up the next one. This way only one page of variants is held in memory at a time.
+ */
+public class SubmittedVariantsNdjsonWriter {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private static final int INITIAL_ACCESSIONS_CAPACITY = 1024;
+
+    private final Function<List<Long>, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String,
+            Long>>> lookup;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter objectWriter;
+
+    private final int pageSize;
+
+    /**
+     * @param lookup finds the variants of a page of accessions, usually with a single database query
+     */
+    public SubmittedVariantsNdjsonWriter(
+            Function<List<Long>, List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>>
+                    lookup,
+            ObjectMapper objectMapper, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be a positive number");
+        }
+        this.lookup = lookup;
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param accessions JSON array of accessions
+     * @throws IllegalArgumentException if the input is not a JSON array of numbers
+     */
+    public long[] readAccessions(InputStream accessions) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(accessions)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("The accessions must be a JSON array of numbers");
+            }
+            long[] values = new long[INITIAL_ACCESSIONS_CAPACITY];
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_INT) {
+                    throw new IllegalArgumentException("The accessions must be a JSON array of numbers, but found "
+                                                               + token + " in " + parser.getCurrentLocation());
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = parser.getLongValue();
+            }
+            return Arrays.copyOf(values, count);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("The accessions are not valid JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * @param accessions as returned by {@link #readAccessions(InputStream)}
+     * @param output where the variants found will be written, in pages, in the same order as the accessions
+     */
+    public void write(long[] accessions, OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            List<Long> page = new ArrayList<>(pageSize);
+            for (long accession : accessions) {
+                page.add(accession);
+                if (page.size() == pageSize) {
+                    writePage(page, generator);
+                    page.clear();
+                }
+            }
+            if (!page.isEmpty()) {
+                writePage(page, generator);
+            }
+        }
+    }
+
+    private void writePage(List<Long> page, JsonGenerator generator) throws IOException {
+        for (AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long> variant : lookup.apply(page)) {
+            objectWriter.writeValue(generator, variant);
+            generator.writeRaw(LINE_SEPARATOR);
+        }
+        generator.flush();
+    }
+}
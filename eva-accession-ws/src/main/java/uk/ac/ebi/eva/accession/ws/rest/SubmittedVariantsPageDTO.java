@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.util.List;
+
+/**
+ * Page of the submitted variants of a region. The cursor has to be passed in the next request to get the following
+ * page, and is null in the last page.
+ */
+public class SubmittedVariantsPageDTO {
+
+    private List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants;
+
+    private String nextCursor;
+
+    SubmittedVariantsPageDTO() {
+    }
+
+    public SubmittedVariantsPageDTO(
+            List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants,
+            String nextCursor) {
+        this.variants = variants;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> getVariants() {
+        return variants;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -19,34 +19,168 @@ package uk.ac.ebi.eva.accession.ws.rest;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
 import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
 import uk.ac.ebi.ampt2d.commons.accession.rest.BasicRestController;
 
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.ws.cache.SubmittedVariantsCache;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static uk.ac.ebi.eva.accession.ws.configuration.ApplicationConfiguration.BATCH_LOOKUP_EXECUTOR;
+import static uk.ac.ebi.eva.accession.ws.configuration.ApplicationConfiguration.REST_CONTROLLER_EXECUTOR;
+import static uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantsNdjsonWriter.NDJSON_MEDIA_TYPE;
 
 @RestController
 @RequestMapping(value = "/v1/submitted-variants")
 @Api(tags = {"Submitted variants"})
 public class SubmittedVariantsRestController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_MEDIA_TYPE);
+
     private final BasicRestController<SubmittedVariantDTO, ISubmittedVariant, String, Long> basicRestController;
 
+    private final Executor executor;
+
+    private final Executor batchLookupExecutor;
+
+    private final long batchLookupTimeoutMillis;
+
+    private final SubmittedVariantsCache cache;
+
+    private final SubmittedVariantsNdjsonWriter ndjsonWriter;
+
+    private final SubmittedVariantAccessioningDatabaseService databaseService;
+
+    private final int maxPageSize;
+
+    /**
+     * @param executor runs the database lookups, so that the servlet thread is returned to the container while they
+     * are in progress and the response is completed asynchronously
+     * @param batchLookupExecutor writes the streamed responses of the batch lookups, which take much longer than the
+     * rest, so that they don't hold up the other lookups
+     * @param batchLookupTimeoutMillis maximum time to stream the response of a batch lookup
+     */
     public SubmittedVariantsRestController(
-            BasicRestController<SubmittedVariantDTO, ISubmittedVariant, String, Long> basicRestController) {
+            BasicRestController<SubmittedVariantDTO, ISubmittedVariant, String, Long> basicRestController,
+            @Qualifier(REST_CONTROLLER_EXECUTOR) Executor executor,
+            @Qualifier(BATCH_LOOKUP_EXECUTOR) Executor batchLookupExecutor,
+            @Value("${accessioning.ws.batchLookup.timeoutMillis:600000}") long batchLookupTimeoutMillis,
+            SubmittedVariantsCache cache, SubmittedVariantsNdjsonWriter ndjsonWriter,
+            SubmittedVariantAccessioningDatabaseService databaseService,
+            @Value("${accessioning.ws.region.maxPageSize:1000}") int maxPageSize) {
         this.basicRestController = basicRestController;
+        this.executor = executor;
+        this.batchLookupExecutor = batchLookupExecutor;
+        this.batchLookupTimeoutMillis = batchLookupTimeoutMillis;
+        this.cache = cache;
+        this.ndjsonWriter = ndjsonWriter;
+        this.databaseService = databaseService;
+        this.maxPageSize = maxPageSize;
     }
 
     @ApiOperation(value = "Find submitted variants by identifier")
     @GetMapping(value = "/{identifiers}", produces = "application/json")
-    public List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> get(
+    public CompletableFuture<List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>> get(
             @PathVariable List<Long> identifiers) {
-        return basicRestController.get(identifiers);
+        return CompletableFuture.supplyAsync(() -> cache.get(identifiers, basicRestController::get), executor);
+    }
+
+    /**
+     * The whole body is read and validated before the response starts, so that a malformed one is answered with a
+     * 400. The variants are then looked up and written in pages, so that they don't need to be held in memory at once.
+     */
+    @ApiOperation(value = "Find a large number of submitted variants by identifier",
+            notes = "The body is a JSON array of identifiers. The variants found are returned as newline-delimited " +
+                    "JSON, one per line.")
+    @PostMapping(consumes = "application/json", produces = NDJSON_MEDIA_TYPE)
+    public ResponseBodyEmitter getInBatches(HttpServletRequest request) throws IOException {
+        long[] identifiers = ndjsonWriter.readAccessions(request.getInputStream());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchLookupTimeoutMillis);
+        batchLookupExecutor.execute(() -> {
+            try (OutputStream output = new ResponseBodyEmitterOutputStream(emitter, NDJSON)) {
+                ndjsonWriter.write(identifiers, output);
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return;
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    /**
+     * The pages are retrieved with a cursor instead of an offset, so that the cost of every page is the same however
+     * deep into the region it is. The page size is capped to keep every request short.
+     */
+    @ApiOperation(value = "Find submitted variants in a region of a contig",
+            notes = "The variants are sorted by start. If there are more variants in the region, the response " +
+                    "contains a cursor that can be used to get the next page.")
+    @GetMapping(produces = "application/json")
+    public CompletableFuture<SubmittedVariantsPageDTO> getByRegion(
+            @RequestParam String assemblyAccession, @RequestParam String contig, @RequestParam long start,
+            @RequestParam long end, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be a positive number");
+        }
+        RegionCursor after = cursor == null ? null : RegionCursor.parse(cursor);
+        int limit = Math.min(pageSize, maxPageSize);
+        return CompletableFuture.supplyAsync(
+                () -> findByRegion(assemblyAccession, contig, start, end, after, limit), executor);
+    }
+
+    private SubmittedVariantsPageDTO findByRegion(String assemblyAccession, String contig, long start, long end,
+                                                  RegionCursor after, int limit) {
+        List<AccessionWrapper<ISubmittedVariant, String, Long>> variants = databaseService.findByRegion(
+                assemblyAccession, contig, start, end, after == null ? null : after.getStart(),
+                after == null ? null : after.getHash(), limit + 1);
+
+        String nextCursor = null;
+        if (variants.size() > limit) {
+            variants = variants.subList(0, limit);
+            AccessionWrapper<ISubmittedVariant, String, Long> lastVariant = variants.get(limit - 1);
+            nextCursor = new RegionCursor(lastVariant.getData().getStart(), lastVariant.getHash()).toString();
+        }
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variantDTOs =
+                new ArrayList<>(variants.size());
+        for (AccessionWrapper<ISubmittedVariant, String, Long> variant : variants) {
+            variantDTOs.add(new AccessionResponseDTO<>(variant, SubmittedVariantDTO::new));
+        }
+        return new SubmittedVariantsPageDTO(variantDTOs, nextCursor);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void handleInvalidRequest() {
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleRejectedLookup() {
+        // too many lookups are already waiting, the client should retry later
     }
 }
 
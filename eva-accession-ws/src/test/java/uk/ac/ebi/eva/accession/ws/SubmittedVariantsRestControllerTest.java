@@ -17,16 +17,21 @@
  */
 package uk.ac.ebi.eva.accession.ws;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import uk.ac.ebi.ampt2d.commons.accession.core.exceptions.AccessionCouldNotBeGeneratedException;
 import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
 import uk.ac.ebi.ampt2d.commons.accession.rest.BasicRestController;
@@ -38,10 +43,18 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
 @Import({SubmittedVariantAccessioningConfiguration.class})
 @TestPropertySource("classpath:accession-ws-test.properties")
 public class SubmittedVariantsRestControllerTest {
@@ -52,10 +65,18 @@ public class SubmittedVariantsRestControllerTest {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Long ACCESSION = 10000000001L;
 
     private static final String URL = "/v1/submitted-variants/";
 
+    private static final String BATCH_LOOKUP_URL = "/v1/submitted-variants";
+
     @Test
     public void testGetVariantsRestApi() throws AccessionCouldNotBeGeneratedException {
         List<AccessionResponseDTO> generatedAccessions = basicRestController.generateAccessions(
@@ -69,6 +90,50 @@ public class SubmittedVariantsRestControllerTest {
         assertEquals(2, getVariantsResponse.getBody().size());
     }
 
+    @Test
+    public void testGetVariantsIsAsynchronous() throws Exception {
+        List<AccessionResponseDTO> generatedAccessions = basicRestController.generateAccessions(
+                getListOfVariantMessages());
+        String accessions = generatedAccessions.stream().map(acc -> acc.getAccession().toString()).collect(
+                Collectors.joining(","));
+
+        MvcResult lookup = mockMvc.perform(get(URL + accessions))
+                                  .andExpect(request().asyncStarted())
+                                  .andReturn();
+        mockMvc.perform(asyncDispatch(lookup))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    public void testGetVariantsInBatches() throws Exception {
+        List<AccessionResponseDTO> generatedAccessions = basicRestController.generateAccessions(
+                getListOfVariantMessages());
+        String accessions = generatedAccessions.stream().map(acc -> acc.getAccession().toString()).collect(
+                Collectors.joining(",", "[", ",1]"));
+
+        MvcResult lookup = mockMvc.perform(post(BATCH_LOOKUP_URL).contentType(MediaType.APPLICATION_JSON)
+                                                                 .content(accessions))
+                                  .andExpect(request().asyncStarted())
+                                  .andReturn();
+        lookup.getAsyncResult();
+
+        assertEquals(HttpStatus.OK.value(), lookup.getResponse().getStatus());
+        String[] lines = lookup.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(generatedAccessions.get(i).getAccession().longValue(),
+                         objectMapper.readTree(lines[i]).get("accession").asLong());
+        }
+    }
+
+    @Test
+    public void testGetVariantsInBatchesWithMalformedBody() throws Exception {
+        mockMvc.perform(post(BATCH_LOOKUP_URL).contentType(MediaType.APPLICATION_JSON).content("[1, \"two\"]"))
+               .andExpect(request().asyncNotStarted())
+               .andExpect(status().isBadRequest());
+    }
+
     public List<SubmittedVariantDTO> getListOfVariantMessages() {
         SubmittedVariantDTO variant1 = new SubmittedVariantDTO("ASMACC01", 1101, "PROJACC01", "CHROM1", 1234,
                                                                "REF", "ALT", false, null);
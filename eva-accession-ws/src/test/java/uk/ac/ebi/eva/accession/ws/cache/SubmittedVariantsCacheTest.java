@@ -0,0 +1,147 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantsCacheTest {
+
+    private static final long EXPIRE_AFTER_WRITE_SECONDS = 600;
+
+    private static final long MULTIALLELIC_ACCESSION = 500;
+
+    private SubmittedVariantsCache cache;
+
+    private List<List<Long>> loadedAccessions;
+
+    private AtomicLong nanos;
+
+    @Before
+    public void setUp() {
+        nanos = new AtomicLong(0);
+        Ticker ticker = nanos::get;
+        cache = new SubmittedVariantsCache(2, EXPIRE_AFTER_WRITE_SECONDS, ticker);
+        loadedAccessions = new ArrayList<>();
+    }
+
+    /**
+     * Like the database lookup, returns every variant of each accession once, regardless of how many times it was
+     * requested.
+     */
+    private List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> load(
+            List<Long> accessions) {
+        loadedAccessions.add(accessions);
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants = new ArrayList<>();
+        for (Long accession : new LinkedHashSet<>(accessions)) {
+            if (accession < 1000) {
+                variants.add(createVariant(accession, "T"));
+            }
+            if (accession == MULTIALLELIC_ACCESSION) {
+                variants.add(createVariant(accession, "G"));
+            }
+        }
+        return variants;
+    }
+
+    private AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long> createVariant(
+            Long accession, String alternate) {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", 1111, "project", "contig", accession, "A",
+                                                         alternate, true);
+        return new AccessionResponseDTO<>(new AccessionWrapper<>(accession, "hash-" + accession + alternate, variant),
+                                          SubmittedVariantDTO::new);
+    }
+
+    private List<Long> getAccessions(List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>>
+                                             variants) {
+        return variants.stream().map(AccessionResponseDTO::getAccession).collect(Collectors.toList());
+    }
+
+    @Test
+    public void onlyMissingAccessionsAreLoaded() {
+        cache.get(Collections.singletonList(1L), this::load);
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants =
+                cache.get(Arrays.asList(2L, 1L), this::load);
+
+        assertEquals(Arrays.asList(2L, 1L), getAccessions(variants));
+        assertEquals(Arrays.asList(Collections.singletonList(1L), Collections.singletonList(2L)), loadedAccessions);
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(2, cache.getStats().missCount());
+    }
+
+    @Test
+    public void accessionsNotFoundAreNotCached() {
+        assertEquals(Collections.emptyList(), cache.get(Collections.singletonList(1000L), this::load));
+        assertEquals(Collections.emptyList(), cache.get(Collections.singletonList(1000L), this::load));
+        assertEquals(2, loadedAccessions.size());
+    }
+
+    @Test
+    public void expiredAccessionsAreLoadedAgain() {
+        cache.get(Collections.singletonList(1L), this::load);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(EXPIRE_AFTER_WRITE_SECONDS + 1));
+        cache.get(Collections.singletonList(1L), this::load);
+
+        assertEquals(2, loadedAccessions.size());
+    }
+
+    @Test
+    public void allVariantsWithTheSameAccessionAreCached() {
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> uncached =
+                cache.get(Collections.singletonList(MULTIALLELIC_ACCESSION), this::load);
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> cached =
+                cache.get(Collections.singletonList(MULTIALLELIC_ACCESSION), this::load);
+
+        assertEquals(2, uncached.size());
+        assertEquals(getAlternateAlleles(uncached), getAlternateAlleles(cached));
+        assertEquals(1, loadedAccessions.size());
+    }
+
+    @Test
+    public void requestedOrderAndRepetitionsAreKept() {
+        cache.get(Collections.singletonList(2L), this::load);
+        List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants =
+                cache.get(Arrays.asList(2L, 1L, 2L), this::load);
+
+        assertEquals(Arrays.asList(2L, 1L, 2L), getAccessions(variants));
+        assertEquals(Collections.singletonList(1L), loadedAccessions.get(1));
+    }
+
+    private List<String> getAlternateAlleles(
+            List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> variants) {
+        return variants.stream().map(variant -> variant.getData().getAlternateAllele()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RegionCursorTest {
+
+    @Test
+    public void parseFormattedCursor() {
+        RegionCursor cursor = RegionCursor.parse(new RegionCursor(1234, "ABCDEF").toString());
+        assertEquals(1234, cursor.getStart());
+        assertEquals("ABCDEF", cursor.getHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorWithoutHash() {
+        RegionCursor.parse("1234:");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorWithoutSeparator() {
+        RegionCursor.parse("1234");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorWithInvalidStart() {
+        RegionCursor.parse("start:ABCDEF");
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.core.AccessionWrapper;
+import uk.ac.ebi.ampt2d.commons.accession.rest.AccessionResponseDTO;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SubmittedVariantsNdjsonWriterTest {
+
+    private ObjectMapper objectMapper;
+
+    private List<List<Long>> pages;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        pages = new ArrayList<>();
+    }
+
+    private List<AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long>> lookup(
+            List<Long> accessions) {
+        pages.add(new ArrayList<>(accessions));
+        return accessions.stream().filter(accession -> accession < 1000).map(this::createVariant)
+                         .collect(Collectors.toList());
+    }
+
+    private AccessionResponseDTO<SubmittedVariantDTO, ISubmittedVariant, String, Long> createVariant(Long accession) {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", 1111, "project", "contig", accession, "A", "T",
+                                                         true);
+        return new AccessionResponseDTO<>(new AccessionWrapper<>(accession, "hash-" + accession, variant),
+                                          SubmittedVariantDTO::new);
+    }
+
+    private String write(String accessions, int pageSize) throws IOException {
+        SubmittedVariantsNdjsonWriter writer = new SubmittedVariantsNdjsonWriter(this::lookup, objectMapper,
+                                                                                 pageSize);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.write(writer.readAccessions(new ByteArrayInputStream(accessions.getBytes(StandardCharsets.UTF_8))),
+                     output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writeOneVariantPerLine() throws IOException {
+        String[] lines = write("[1, 2, 1000, 3]", 2).split("\n");
+
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode variant = objectMapper.readTree(lines[i]);
+            assertEquals(i + 1, variant.get("accession").asLong());
+        }
+    }
+
+    @Test
+    public void lookupInPages() throws IOException {
+        write("[1, 2, 3, 4, 5]", 2);
+
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Collections.singletonList(5L)),
+                     pages);
+    }
+
+    @Test
+    public void emptyArray() throws IOException {
+        assertEquals("", write("[]", 2));
+        assertEquals(0, pages.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void accessionsMustBeAnArray() throws IOException {
+        write("{\"accessions\": [1, 2]}", 2);
+    }
+
+    @Test
+    public void malformedAccessionsAreRejectedBeforeAnyLookup() throws IOException {
+        for (String accessions : Arrays.asList("[1, 2, \"3\"]", "[1, 2", "[1, 2,, 3]")) {
+            try {
+                write(accessions, 1);
+                fail("The accessions " + accessions + " should have been rejected");
+            } catch (IllegalArgumentException expected) {
+                assertEquals(0, pages.size());
+            }
+        }
+    }
+
+    @Test
+    public void readMoreAccessionsThanTheInitialCapacity() throws IOException {
+        SubmittedVariantsNdjsonWriter writer = new SubmittedVariantsNdjsonWriter(this::lookup, objectMapper, 1);
+        String accessions = LongStream.range(0, 5000).mapToObj(Long::toString).collect(
+                Collectors.joining(",", "[", "]"));
+
+        long[] readAccessions = writer.readAccessions(
+                new ByteArrayInputStream(accessions.getBytes(StandardCharsets.UTF_8)));
+
+        assertArrayEquals(LongStream.range(0, 5000).toArray(), readAccessions);
+    }
+}